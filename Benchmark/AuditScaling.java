@@ -0,0 +1,149 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Benchmark/AuditScaling.java
+// Description:
+// 	This class, AuditScaling, is a stand-alone program that measures how the
+// 	end of day audit (see NightAudit) scales with the number of cores. It
+// 	fills a large inventory with a mix of available, booked and checked out
+// 	rooms, some of them staying past their end date, then runs the audit
+// 	in fork-join pools of 1, 2, 4 and so on up to the given number of
+// 	threads. Every run must produce the same report as the single threaded
+// 	one, and the speed up over it is shown.
+//
+// 	Inventories of millions of rooms need a large heap, for example -Xmx4g.
+//
+// 	Usage: java Benchmark.AuditScaling [rooms] [runs per pool] [max threads]
+// 	e.g.   java -Xmx4g Benchmark.AuditScaling 4000000 10 16
+//
+package Benchmark;
+
+import Room.AuditReport;
+import Room.NightAudit;
+import Room.PremiumRoom;
+import Room.Room;
+import utilities.Clock;
+import utilities.VirtualClock;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class AuditScaling
+{
+
+	// Program starts here:
+	public static void main(String[] args) throws Exception
+	{
+		int numberOfRooms = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		// Book two thirds of the rooms for up to a week, check half of those out again,
+		// then move on three days so some of the guests still booked have overstayed.
+		VirtualClock clock = new VirtualClock(System.currentTimeMillis());
+		Clock.set(clock);
+		Room[] rooms = new Room[numberOfRooms];
+		Random random = new Random(42);
+		for(int i=0; i < numberOfRooms; i++)
+		{
+			String roomId = String.format("ROOM%07d", i);
+			if(i % 4 == 3)
+			{
+				rooms[i] = new PremiumRoom(roomId, "Premium Room", 90.00 + random.nextInt(400), 1 + i % 3, 100.00);
+			}
+			else
+			{
+				rooms[i] = new Room(roomId, "Standard Room", 35.00 + random.nextInt(300));
+			}
+			int kind = random.nextInt(3);
+			if(kind > 0)
+			{
+				rooms[i].bookRoom(String.format("c%07d", random.nextInt(10000000)), 1 + random.nextInt(7));
+				if(kind == 2)
+				{
+					rooms[i].checkout();
+				}
+			}
+		}
+		clock.advanceDays(3);
+
+		System.out.printf("%,d rooms, %d runs per pool%n", numberOfRooms, runs);
+		System.out.printf("%8s %14s %14s %10s%n", "Threads", "ms/audit", "rooms/sec", "Speed up");
+		double baseline = 0;
+		AuditReport expected = null;
+		boolean failed = false;
+		for(int threads = 1; threads <= maxThreads; threads *= 2)
+		{
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try
+			{
+
+				// Warm up first, then time the runs.
+				AuditReport report = null;
+				for(int i=0; i < Math.max(1, runs / 2); i++)
+				{
+					report = NightAudit.run(rooms, NightAudit.DEFAULT_BAND_WIDTH, pool);
+				}
+				long start = System.nanoTime();
+				for(int i=0; i < runs; i++)
+				{
+					report = NightAudit.run(rooms, NightAudit.DEFAULT_BAND_WIDTH, pool);
+				}
+				double millis = (System.nanoTime() - start) / 1e6 / runs;
+
+				if(expected == null)
+				{
+					expected = report;
+					baseline = millis;
+				}
+				else if(!sameReport(expected, report))
+				{
+					failed = true;
+				}
+				System.out.printf("%8d %14.2f %,14.0f %9.2fx%n", threads, millis, numberOfRooms / (millis / 1000), baseline / millis);
+			}
+			finally
+			{
+				pool.shutdown();
+			}
+		}
+		System.out.printf("Anomalies: %,d (%,d booked past their end date)%n", expected.getAnomalyCount(), expected.getAnomalyCount(AuditReport.OVERSTAY));
+		if(failed)
+		{
+			System.out.println("FAILED: a parallel audit did not match the single threaded one");
+			System.exit(1);
+		}
+	}
+
+	// Method to determine if two reports over the same rooms agree.
+	private static boolean sameReport(AuditReport first, AuditReport second)
+	{
+		char[] statuses = {'A', 'B', 'U'};
+		for(char status : statuses)
+		{
+			if(first.getCount(AuditReport.STANDARD, status) != second.getCount(AuditReport.STANDARD, status)
+				|| first.getCount(AuditReport.PREMIUM, status) != second.getCount(AuditReport.PREMIUM, status)
+				|| first.getCharges(status) != second.getCharges(status))
+			{
+				return false;
+			}
+		}
+		for(int i=0; i < AuditReport.BANDS; i++)
+		{
+			if(first.getBandRooms(i) != second.getBandRooms(i) || first.getBandBooked(i) != second.getBandBooked(i)
+				|| first.getBandNightlyRevenue(i) != second.getBandNightlyRevenue(i))
+			{
+				return false;
+			}
+		}
+		for(int i=0; i < AuditReport.ANOMALY_KINDS; i++)
+		{
+			if(first.getAnomalyCount(i) != second.getAnomalyCount(i))
+			{
+				return false;
+			}
+		}
+		return first.getDiscounts() == second.getDiscounts() && first.getVouchers() == second.getVouchers()
+			&& first.getAnomalies().toString().equals(second.getAnomalies().toString());
+	}
+}
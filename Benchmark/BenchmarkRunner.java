@@ -0,0 +1,136 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Benchmark/BenchmarkRunner.java
+// Description:
+// 	This class, BenchmarkRunner, runs micro benchmarks in the style of JMH,
+// 	without needing any libraries. Each benchmark case performs batches of
+// 	an operation, timing only the operations themselves and not any set up
+// 	or reset work between batches. The runner warms the case up for a few
+// 	iterations so the JIT compiler has done its work, then measures a number
+// 	of iterations of fixed length, and reports the average time per
+// 	operation and how much it varied between iterations.
+//
+package Benchmark;
+
+public class BenchmarkRunner
+{
+
+	// A benchmark case, such as booking rooms in an inventory of a given size.
+	public static abstract class Case
+	{
+		private final String name;
+
+		public Case(String name)
+		{
+			this.name = name;
+		}
+
+		// Accessor method for the case name.
+		public String getName()
+		{
+			return name;
+		}
+
+		// Methods to prepare for the case and clean up after it, run once either side
+		// of its iterations and not timed.
+		public void setUp() throws Exception
+		{
+		}
+
+		public void tearDown() throws Exception
+		{
+		}
+
+		// Method to run one batch of operations, returning the nanoseconds taken by
+		// the operations alone.
+		public abstract long runBatch() throws Exception;
+
+		// Method to fetch the number of operations in each batch.
+		public abstract int getBatchSize();
+	}
+
+	// Results are folded into this field so the JIT compiler cannot remove the work
+	// that produced them.
+	private static volatile long sink;
+
+	// Class wide variables.
+	private final int warmupIterations;
+	private final int measurementIterations;
+	private final long iterationNanos;
+
+	// Constructor.
+	public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis)
+	{
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		this.iterationNanos = iterationMillis * 1000000L;
+	}
+
+	// Method to keep a result alive, as JMH's Blackhole does.
+	public static void consume(long value)
+	{
+		sink ^= value;
+	}
+
+	public static void consume(double value)
+	{
+		sink ^= Double.doubleToRawLongBits(value);
+	}
+
+	public static void consume(Object value)
+	{
+		sink ^= System.identityHashCode(value);
+	}
+
+	// Method to print the heading for the result rows.
+	public static void printHeader()
+	{
+		System.out.printf("%-20s %10s %16s %12s %16s%n", "Benchmark", "Rooms", "ns/op", "+/- (sd)", "ops/s");
+	}
+
+	// Method to warm up and measure a case, and print its result row. Returns the
+	// average time per operation, in nanoseconds.
+	public double run(Case benchmark, long rooms) throws Exception
+	{
+		for(int i=0; i < warmupIterations; i++)
+		{
+			iteration(benchmark);
+		}
+
+		double[] results = new double[measurementIterations];
+		double total = 0;
+		for(int i=0; i < measurementIterations; i++)
+		{
+			results[i] = iteration(benchmark);
+			total += results[i];
+		}
+		double mean = total / measurementIterations;
+		double squares = 0;
+		for(int i=0; i < measurementIterations; i++)
+		{
+			squares += (results[i] - mean) * (results[i] - mean);
+		}
+		double deviation = measurementIterations > 1 ? Math.sqrt(squares / (measurementIterations - 1)) : 0;
+
+		System.out.printf("%-20s %10d %16.1f %12.1f %16.0f%n", benchmark.getName(), rooms, mean, deviation, 1e9 / mean);
+		return mean;
+	}
+
+	// Method to run batches for one iteration, returning the average time per
+	// operation in nanoseconds. At least one batch is run however long it takes.
+	private double iteration(Case benchmark) throws Exception
+	{
+		long timed = 0;
+		long operations = 0;
+		long end = System.nanoTime() + iterationNanos;
+		do
+		{
+			timed += benchmark.runBatch();
+			operations += benchmark.getBatchSize();
+		}
+		while(System.nanoTime() < end);
+		return (double) timed / operations;
+	}
+}
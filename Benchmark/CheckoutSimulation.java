@@ -0,0 +1,141 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Benchmark/CheckoutSimulation.java
+// Description:
+// 	This class, CheckoutSimulation, is a stand-alone program that simulates
+// 	a number of days of bookings, checkouts and cleaning across a property,
+// 	using a VirtualClock so that each day passes instantly. Guests stay for
+// 	a random number of nights and are billed at checkout as they would be
+// 	at the front desk. The same seed always gives the same revenue, so the
+// 	results can be compared between runs and between versions of the
+// 	billing code, along with the time taken.
+//
+// 	Usage: java Benchmark.CheckoutSimulation [rooms] [days] [seed]
+//
+package Benchmark;
+
+import Room.Room;
+import Room.PremiumRoom;
+import utilities.Clock;
+import utilities.VirtualClock;
+import java.util.Random;
+
+public class CheckoutSimulation
+{
+
+	// The simulation starts at midday on 1 January 2018 (UTC), so that dates are
+	// the same on every run.
+	private static final long START_MILLIS = 1514808000000L;
+
+	// Program starts here:
+	public static void main(String[] args)
+	{
+		int numberOfRooms = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int days = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+		VirtualClock clock = new VirtualClock(START_MILLIS);
+		Clock.set(clock);
+		try
+		{
+			run(clock, numberOfRooms, days, seed);
+		}
+		finally
+		{
+			Clock.set(null);
+		}
+	}
+
+	// Method to run the simulation and print its results.
+	private static void run(VirtualClock clock, int numberOfRooms, int days, long seed)
+	{
+		Random random = new Random(seed);
+
+		// Every fourth room is a premium room.
+		Room[] rooms = new Room[numberOfRooms];
+		for(int i=0; i < numberOfRooms; i++)
+		{
+			if(i % 4 == 3)
+			{
+				rooms[i] = new PremiumRoom(String.format("POOL%06d", i), "Premium Room", 90.00 + random.nextInt(60), 1 + random.nextInt(2), 100.00 + random.nextInt(100));
+			}
+			else
+			{
+				rooms[i] = new Room(String.format("ROOM%06d", i), "Standard Room", 35.00 + random.nextInt(40));
+			}
+		}
+
+		// The day each booked room's guest leaves.
+		int[] leavingDay = new int[numberOfRooms];
+
+		long bookings = 0;
+		long checkouts = 0;
+		double revenue = 0.00;
+		double discounts = 0.00;
+		long start = System.nanoTime();
+		for(int day = 0; day < days; day++)
+		{
+			for(int i=0; i < numberOfRooms; i++)
+			{
+				Room room = rooms[i];
+				switch(room.getStatus())
+				{
+
+					// Rooms cleaned yesterday are booked again two times in three.
+					case 'A':
+						if(random.nextInt(3) != 0)
+						{
+							int nights = 1 + random.nextInt(7);
+							String customerId = String.format("c%07d", random.nextInt(10000000));
+							boolean booked;
+							if(room instanceof PremiumRoom && random.nextInt(4) == 0)
+							{
+								booked = ((PremiumRoom) room).bookRoom(customerId, nights, 10.00 + random.nextInt(90));
+							}
+							else
+							{
+								booked = room.bookRoom(customerId, nights);
+							}
+							if(booked)
+							{
+								bookings++;
+								leavingDay[i] = day + nights;
+							}
+						}
+						break;
+
+					// Guests check out on the day they leave, and are billed.
+					case 'B':
+						if(day >= leavingDay[i] && room.checkout())
+						{
+							checkouts++;
+							revenue += room.getCharge();
+							if(room instanceof PremiumRoom)
+							{
+								discounts += ((PremiumRoom) room).getDiscountAmount();
+							}
+						}
+						break;
+
+					// Rooms checked out are cleaned the same day.
+					case 'U':
+						room.cleanRoom();
+						break;
+				}
+			}
+
+			// Move on to the next day.
+			clock.advanceDays(1);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%d rooms, %d days, seed %d%n", numberOfRooms, days, seed);
+		System.out.printf("Bookings:   %d%n", bookings);
+		System.out.printf("Checkouts:  %d%n", checkouts);
+		System.out.printf("Revenue:    $ %,.2f%n", revenue);
+		System.out.printf("Discounts:  $ %,.2f%n", discounts);
+		System.out.printf("Time:       %.3f s (%.0f simulated days/s, %.0f checkouts/s)%n", seconds, days / seconds, checkouts / seconds);
+	}
+}
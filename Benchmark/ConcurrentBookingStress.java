@@ -0,0 +1,185 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Benchmark/ConcurrentBookingStress.java
+// Description:
+// 	This class, ConcurrentBookingStress, is a stand-alone program that has
+// 	many threads (front desks) book, check out and clean a small set of
+// 	shared rooms at the same time. It checks that no room is ever booked by
+// 	two desks at once, and reports how throughput changes with the number
+// 	of threads.
+//
+// 	Usage: java Benchmark.ConcurrentBookingStress [rooms] [seconds per run] [max threads]
+//
+package Benchmark;
+
+import Room.Room;
+import Room.PremiumRoom;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentBookingStress
+{
+
+	// Program starts here:
+	public static void main(String[] args) throws Exception
+	{
+		int numberOfRooms = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2.0;
+		int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors() * 2;
+
+		// First make every thread race for the same room many times over, there must
+		// be exactly one winner each time.
+		int races = 2000;
+		int raceThreads = Math.max(2, maxThreads);
+		int badRaces = race(raceThreads, races);
+		System.out.printf("Single room races: %d threads, %d races, %d without exactly one winner%n", raceThreads, races, badRaces);
+
+		// Then measure throughput with the threads spread over all rooms.
+		System.out.printf("%8s %16s %16s %14s%n", "Threads", "Attempts/sec", "Bookings/sec", "Double books");
+		boolean failed = badRaces > 0;
+		for(int threads = 1; threads <= maxThreads; threads *= 2)
+		{
+			failed |= run(threads, numberOfRooms, seconds);
+		}
+		if(failed)
+		{
+			System.out.println("FAILED: a room was double booked");
+			System.exit(1);
+		}
+	}
+
+	// Method to have the given number of threads all try to book one room at the
+	// same moment, repeatedly, returning the number of races without exactly one
+	// successful booking.
+	private static int race(final int threads, final int races) throws Exception
+	{
+		final Room room = new PremiumRoom("RACE000001", "Contended Room", 100.00, 1, 100.00);
+		final AtomicIntegerArray winners = new AtomicIntegerArray(races);
+		final CyclicBarrier start = new CyclicBarrier(threads);
+		final CyclicBarrier reset = new CyclicBarrier(threads, new Runnable()
+		{
+			public void run()
+			{
+				room.checkout();
+				room.cleanRoom();
+			}
+		});
+
+		Thread[] workers = new Thread[threads];
+		for(int t=0; t < threads; t++)
+		{
+			final String customerId = String.format("c%07d", t);
+			workers[t] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						for(int i=0; i < races; i++)
+						{
+							start.await();
+							if(room.bookRoom(customerId, 1))
+							{
+								winners.incrementAndGet(i);
+							}
+							reset.await();
+						}
+					}
+					catch(Exception e)
+					{
+						throw new RuntimeException(e);
+					}
+				}
+			});
+			workers[t].start();
+		}
+		for(int t=0; t < threads; t++)
+		{
+			workers[t].join();
+		}
+
+		int bad = 0;
+		for(int i=0; i < races; i++)
+		{
+			if(winners.get(i) != 1)
+			{
+				bad++;
+			}
+		}
+		return bad;
+	}
+
+	// Method to run one throughput test, returning true if a double booking was seen.
+	// Each thread picks random rooms and books them, and whoever wins a room checks
+	// it out and cleans it again. A per-room occupant count catches two winners.
+	private static boolean run(int threads, final int numberOfRooms, double seconds) throws Exception
+	{
+		final Room[] rooms = new Room[numberOfRooms];
+		for(int i=0; i < numberOfRooms; i++)
+		{
+			if(i % 2 == 0)
+			{
+				rooms[i] = new Room(String.format("ROOM%06d", i), "Standard Room", 50.00);
+			}
+			else
+			{
+				rooms[i] = new PremiumRoom(String.format("ROOM%06d", i), "Premium Room", 120.00, 1, 100.00);
+			}
+		}
+
+		final AtomicIntegerArray occupants = new AtomicIntegerArray(numberOfRooms);
+		final AtomicLong attempts = new AtomicLong();
+		final AtomicLong bookings = new AtomicLong();
+		final AtomicLong doubleBookings = new AtomicLong();
+		final long stopAt = System.nanoTime() + (long) (seconds * 1e9);
+
+		Thread[] workers = new Thread[threads];
+		for(int t=0; t < threads; t++)
+		{
+			final String customerId = String.format("c%07d", t);
+			workers[t] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					long localAttempts = 0;
+					long localBookings = 0;
+					while(System.nanoTime() < stopAt)
+					{
+						int i = random.nextInt(numberOfRooms);
+						localAttempts++;
+						if(rooms[i].bookRoom(customerId, 1 + random.nextInt(5)))
+						{
+							localBookings++;
+							if(occupants.incrementAndGet(i) != 1)
+							{
+								doubleBookings.incrementAndGet();
+							}
+							occupants.decrementAndGet(i);
+							rooms[i].checkout();
+							rooms[i].cleanRoom();
+						}
+					}
+					attempts.addAndGet(localAttempts);
+					bookings.addAndGet(localBookings);
+				}
+			});
+		}
+
+		for(int t=0; t < threads; t++)
+		{
+			workers[t].start();
+		}
+		for(int t=0; t < threads; t++)
+		{
+			workers[t].join();
+		}
+
+		System.out.printf("%8d %16.0f %16.0f %14d%n", threads, attempts.get() / seconds, bookings.get() / seconds, doubleBookings.get());
+		return doubleBookings.get() > 0;
+	}
+}
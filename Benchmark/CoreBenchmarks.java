@@ -0,0 +1,476 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Benchmark/CoreBenchmarks.java
+// Description:
+// 	This class, CoreBenchmarks, is a stand-alone program that measures the
+// 	core booking operations over inventories of different sizes, as a
+// 	baseline for telling whether a change to them helps or hurts:
+//
+// 		bookRoom		booking an available room
+// 		checkout		checking out of a booked room
+// 		processDiscounts	working out a premium room's discount
+// 		quoteBatch		quoting a stay in premium rooms with QuoteEngine,
+// 					to compare with processDiscounts
+// 		lookup			finding a room by ID, as roomSelection() does
+// 		searchByPrice		finding rooms in a $1 price range, as
+// 					searchRoomsByPrice() does
+// 		searchAvailable		finding rooms in a $1 price range that are free
+// 					for a week, with half the rooms reserved for
+// 					some of the next 90 nights
+// 		filter			finding available standard rooms between $40
+// 					and $60, with a third of the rooms booked
+// 		save, load		saving and loading every room, as saveRooms() and
+// 					loadRooms() do
+//
+// 	Each case is run with BenchmarkRunner. Inventories of 10 million rooms
+// 	need a large heap, for example -Xmx8g.
+//
+// 	Usage: java Benchmark.CoreBenchmarks [sizes] [cases] [iteration ms]
+// 	e.g.   java -Xmx8g Benchmark.CoreBenchmarks 10,1000,100000,1000000,10000000 all 500
+//
+package Benchmark;
+
+import Room.Room;
+import Room.PremiumRoom;
+import Room.QuoteEngine;
+import Room.RoomRegistry;
+import Room.RoomSnapshot;
+import utilities.EpochDays;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class CoreBenchmarks
+{
+
+	// The number of operations in each batch, for the cases that work through the
+	// rooms a batch at a time.
+	private static final int BATCH = 1024;
+
+	// Program starts here:
+	public static void main(String[] args) throws Exception
+	{
+		String sizes = args.length > 0 ? args[0] : "10,1000,100000,1000000";
+		List<String> cases = Arrays.asList((args.length > 1 ? args[1] : "all").split(","));
+		long iterationMillis = args.length > 2 ? Long.parseLong(args[2]) : 500;
+
+		BenchmarkRunner runner = new BenchmarkRunner(3, 5, iterationMillis);
+		BenchmarkRunner.printHeader();
+		for(String size : sizes.split(","))
+		{
+			int numberOfRooms = Integer.parseInt(size.trim());
+			Inventory inventory = new Inventory(numberOfRooms);
+			for(BenchmarkRunner.Case benchmark : createCases(inventory))
+			{
+				if(cases.contains("all") || cases.contains(benchmark.getName()))
+				{
+					benchmark.setUp();
+					try
+					{
+						runner.run(benchmark, numberOfRooms);
+					}
+					finally
+					{
+						benchmark.tearDown();
+					}
+				}
+			}
+		}
+	}
+
+	// The rooms being measured, with a registry to look them up by ID and price.
+	// Every fourth room is a premium room, and every room starts out available.
+	private static class Inventory
+	{
+		private final Room[] rooms;
+		private final Room[] premiumRooms;
+		private final RoomRegistry registry;
+		private final String[] customerIds = new String[BATCH];
+		private final Random random = new Random(42);
+
+		private Inventory(int numberOfRooms)
+		{
+			rooms = new Room[numberOfRooms];
+			List<Room> premium = new ArrayList<Room>();
+			for(int i=0; i < numberOfRooms; i++)
+			{
+				String roomId = String.format("ROOM%07d", i);
+				if(i % 4 == 3)
+				{
+					rooms[i] = new PremiumRoom(roomId, "Premium Room", 90.00 + i % 50, 1 + i % 3, 100.00);
+					premium.add(rooms[i]);
+				}
+				else
+				{
+					rooms[i] = new Room(roomId, "Standard Room", 35.00 + i % 40);
+				}
+			}
+			premiumRooms = premium.toArray(new Room[premium.size()]);
+			registry = new RoomRegistry(rooms);
+			for(int i=0; i < BATCH; i++)
+			{
+				customerIds[i] = String.format("c%07d", random.nextInt(10000000));
+			}
+		}
+	}
+
+	// Method to create the benchmark cases for an inventory.
+	private static List<BenchmarkRunner.Case> createCases(final Inventory inventory) throws Exception
+	{
+		final Room[] rooms = inventory.rooms;
+		final int batch = Math.min(BATCH, rooms.length);
+		List<BenchmarkRunner.Case> cases = new ArrayList<BenchmarkRunner.Case>();
+
+		// Booking available rooms, which are released again (untimed) after each batch.
+		cases.add(new BatchCase("bookRoom", rooms, batch)
+		{
+			protected long run(int first)
+			{
+				long start = System.nanoTime();
+				for(int i=0; i < batch; i++)
+				{
+					room(first + i).bookRoom(inventory.customerIds[i], 1 + (i & 3));
+				}
+				long time = System.nanoTime() - start;
+				for(int i=0; i < batch; i++)
+				{
+					room(first + i).cancelBooking();
+				}
+				return time;
+			}
+		});
+
+		// Checking out of rooms booked (untimed) before each batch, and cleaned after it.
+		cases.add(new BatchCase("checkout", rooms, batch)
+		{
+			protected long run(int first)
+			{
+				for(int i=0; i < batch; i++)
+				{
+					room(first + i).bookRoom(inventory.customerIds[i], 1 + (i & 3));
+				}
+				long start = System.nanoTime();
+				for(int i=0; i < batch; i++)
+				{
+					room(first + i).checkout();
+				}
+				long time = System.nanoTime() - start;
+				for(int i=0; i < batch; i++)
+				{
+					room(first + i).cleanRoom();
+				}
+				return time;
+			}
+		});
+
+		// Working out the discount for booked premium rooms, some with vouchers.
+		final Room[] premiumRooms = inventory.premiumRooms;
+		if(premiumRooms.length > 0)
+		{
+			final int premiumBatch = Math.min(BATCH, premiumRooms.length);
+			cases.add(new BatchCase("processDiscounts", premiumRooms, premiumBatch)
+			{
+				public void setUp()
+				{
+					for(int i=0; i < premiumRooms.length; i++)
+					{
+						((PremiumRoom) premiumRooms[i]).bookRoom(inventory.customerIds[i % BATCH], 1 + i % 7, i % 3 == 0 ? 50.00 : 0.00);
+					}
+				}
+
+				public void tearDown()
+				{
+					for(int i=0; i < premiumRooms.length; i++)
+					{
+						premiumRooms[i].cancelBooking();
+					}
+				}
+
+				protected long run(int first)
+				{
+					double total = 0;
+					long start = System.nanoTime();
+					for(int i=0; i < premiumBatch; i++)
+					{
+						total += ((PremiumRoom) room(first + i)).processDiscounts();
+					}
+					long time = System.nanoTime() - start;
+					BenchmarkRunner.consume(total);
+					return time;
+				}
+			});
+
+			// Quoting the same rooms in batches, for stays of one to seven nights, half
+			// of them with a voucher.
+			final QuoteEngine engine = new QuoteEngine(premiumRooms);
+			final double[] discounts = new double[premiumRooms.length];
+			final double[] prices = new double[premiumRooms.length];
+			cases.add(new BenchmarkRunner.Case("quoteBatch")
+			{
+				private int next;
+				private int quotes;
+
+				public long runBatch()
+				{
+					int to = Math.min(next + premiumBatch, premiumRooms.length);
+					quotes++;
+					long start = System.nanoTime();
+					engine.quote(next, to, 1 + quotes % 7, (quotes & 1) == 0 ? 50.00 : 0.00, discounts, prices);
+					long time = System.nanoTime() - start;
+					BenchmarkRunner.consume(prices[next] + discounts[to - 1]);
+					next = to == premiumRooms.length ? 0 : to;
+					return time;
+				}
+
+				public int getBatchSize()
+				{
+					return premiumBatch;
+				}
+			});
+		}
+
+		// Finding rooms by ID, from a fixed set of randomly chosen IDs.
+		final String[] roomIds = new String[BATCH];
+		for(int i=0; i < BATCH; i++)
+		{
+			roomIds[i] = new String(rooms[inventory.random.nextInt(rooms.length)].getId());
+		}
+		cases.add(new BenchmarkRunner.Case("lookup")
+		{
+			public long runBatch()
+			{
+				long found = 0;
+				long start = System.nanoTime();
+				for(int i=0; i < BATCH; i++)
+				{
+					found += inventory.registry.indexOf(roomIds[i]);
+				}
+				long time = System.nanoTime() - start;
+				BenchmarkRunner.consume(found);
+				return time;
+			}
+
+			public int getBatchSize()
+			{
+				return BATCH;
+			}
+		});
+
+		// Finding rooms within a $1 price range, starting at a random price.
+		final double[] minimumPrices = new double[64];
+		for(int i=0; i < minimumPrices.length; i++)
+		{
+			minimumPrices[i] = 35.00 + inventory.random.nextInt(105);
+		}
+		cases.add(new BenchmarkRunner.Case("searchByPrice")
+		{
+			public long runBatch()
+			{
+				long found = 0;
+				long start = System.nanoTime();
+				for(int i=0; i < minimumPrices.length; i++)
+				{
+					found += inventory.registry.searchByPrice(minimumPrices[i], minimumPrices[i] + 1.00).length;
+				}
+				long time = System.nanoTime() - start;
+				BenchmarkRunner.consume(found);
+				return time;
+			}
+
+			public int getBatchSize()
+			{
+				return minimumPrices.length;
+			}
+		});
+
+		// Finding rooms within a $1 price range that are free for a week starting in
+		// the next 60 days, with reservations made (untimed) before the case.
+		final long today = EpochDays.today();
+		final long[] firstNights = new long[minimumPrices.length];
+		for(int i=0; i < firstNights.length; i++)
+		{
+			firstNights[i] = today + inventory.random.nextInt(60);
+		}
+		cases.add(new BenchmarkRunner.Case("searchAvailable")
+		{
+			public void setUp()
+			{
+				for(int i=0; i < rooms.length; i += 2)
+				{
+					rooms[i].reserve(inventory.customerIds[i % BATCH], today + i % 90, 1 + i % 7);
+				}
+			}
+
+			public void tearDown()
+			{
+				for(int i=0; i < rooms.length; i += 2)
+				{
+					rooms[i].cancelReservation(inventory.customerIds[i % BATCH], today + i % 90);
+				}
+			}
+
+			public long runBatch()
+			{
+				long found = 0;
+				long start = System.nanoTime();
+				for(int i=0; i < minimumPrices.length; i++)
+				{
+					found += inventory.registry.searchAvailable(firstNights[i], 7, minimumPrices[i], minimumPrices[i] + 1.00).length;
+				}
+				long time = System.nanoTime() - start;
+				BenchmarkRunner.consume(found);
+				return time;
+			}
+
+			public int getBatchSize()
+			{
+				return minimumPrices.length;
+			}
+		});
+
+		// Filtering rooms by status, class and a $20 price range.
+		cases.add(new BenchmarkRunner.Case("filter")
+		{
+			public void setUp()
+			{
+				bookEveryThirdRoom(rooms, inventory);
+			}
+
+			public void tearDown()
+			{
+				cancelEveryThirdRoom(rooms);
+			}
+
+			public long runBatch()
+			{
+				long start = System.nanoTime();
+				int[] found = inventory.registry.filter("A", RoomRegistry.STANDARD_ROOMS, 40.00, 60.00);
+				long time = System.nanoTime() - start;
+				BenchmarkRunner.consume(found.length);
+				return time;
+			}
+
+			public int getBatchSize()
+			{
+				return 1;
+			}
+		});
+
+		// Saving and loading every room, with a third of them booked.
+		final File file = File.createTempFile("rooms-benchmark", ".dat");
+		file.deleteOnExit();
+		cases.add(new BenchmarkRunner.Case("save")
+		{
+			public void setUp()
+			{
+				bookEveryThirdRoom(rooms, inventory);
+			}
+
+			public void tearDown()
+			{
+				cancelEveryThirdRoom(rooms);
+			}
+
+			public long runBatch() throws Exception
+			{
+				long start = System.nanoTime();
+				RoomSnapshot.save(rooms, file.getPath());
+				return System.nanoTime() - start;
+			}
+
+			public int getBatchSize()
+			{
+				return 1;
+			}
+		});
+		cases.add(new BenchmarkRunner.Case("load")
+		{
+			public void setUp() throws Exception
+			{
+				bookEveryThirdRoom(rooms, inventory);
+				RoomSnapshot.save(rooms, file.getPath());
+			}
+
+			public void tearDown()
+			{
+				cancelEveryThirdRoom(rooms);
+				file.delete();
+			}
+
+			public long runBatch() throws Exception
+			{
+				long start = System.nanoTime();
+				Room[] loaded = RoomSnapshot.load(file.getPath());
+				long time = System.nanoTime() - start;
+				BenchmarkRunner.consume(loaded.length);
+				return time;
+			}
+
+			public int getBatchSize()
+			{
+				return 1;
+			}
+		});
+		return cases;
+	}
+
+	// Method to book every third room, for the save and load cases.
+	private static void bookEveryThirdRoom(Room[] rooms, Inventory inventory)
+	{
+		for(int i=0; i < rooms.length; i += 3)
+		{
+			rooms[i].bookRoom(inventory.customerIds[i % BATCH], 1 + i % 7);
+		}
+	}
+
+	// Method to release the rooms booked by bookEveryThirdRoom().
+	private static void cancelEveryThirdRoom(Room[] rooms)
+	{
+		for(int i=0; i < rooms.length; i += 3)
+		{
+			rooms[i].cancelBooking();
+		}
+	}
+
+	// A case that works through an array of rooms a batch at a time, wrapping
+	// around at the end, so that each batch uses different rooms.
+	private static abstract class BatchCase extends BenchmarkRunner.Case
+	{
+		private final Room[] rooms;
+		private final int batch;
+		private int next;
+
+		private BatchCase(String name, Room[] rooms, int batch)
+		{
+			super(name);
+			this.rooms = rooms;
+			this.batch = batch;
+		}
+
+		// Method to fetch a room by position, wrapping around at the end.
+		protected Room room(int position)
+		{
+			return rooms[position % rooms.length];
+		}
+
+		// Method to run a batch starting at the given position, returning the time
+		// taken by the operations being measured.
+		protected abstract long run(int first);
+
+		public long runBatch()
+		{
+			long time = run(next);
+			next = (next + batch) % rooms.length;
+			return time;
+		}
+
+		public int getBatchSize()
+		{
+			return batch;
+		}
+	}
+}
@@ -0,0 +1,246 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Benchmark/RenderBenchmark.java
+// Description:
+// 	This class, RenderBenchmark, is a stand-alone program that renders the
+// 	"View all rooms" screen for a large number of rooms, once the way the
+// 	program used to (padding printed a character at a time and a printf per
+// 	row) and once through ScreenManager's frame buffer. It checks both give
+// 	the same output, and reports the bytes, writes and time per screen.
+//
+// 	Usage: java Benchmark.RenderBenchmark [number of rooms] [rounds]
+//
+package Benchmark;
+
+import Room.Room;
+import Room.PremiumRoom;
+import utilities.ScreenManager;
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Arrays;
+
+public class RenderBenchmark
+{
+
+	// Program starts here:
+	public static void main(String[] args) throws Exception
+	{
+		int numberOfRooms = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		// Create the rooms, with every third room booked.
+		Room[] rooms = new Room[numberOfRooms];
+		for(int i=0; i < numberOfRooms; i++)
+		{
+			if(i % 2 == 0)
+			{
+				rooms[i] = new Room(String.format("ROOM%06d", i), "Standard Room " + i, 40.00 + (i % 50));
+			}
+			else
+			{
+				rooms[i] = new PremiumRoom(String.format("ROOM%06d", i), "Premium Room " + i, 1200.00 + (i % 90), 1, 100.00);
+			}
+			if(i % 3 == 0)
+			{
+				rooms[i].bookRoom(String.format("c%07d", i), 1 + i % 7);
+			}
+		}
+
+		// Check the two renderers give exactly the same screen.
+		PrintStream console = System.out;
+		CountingOutputStream legacy = new CountingOutputStream(true);
+		CountingOutputStream buffered = new CountingOutputStream(true);
+		render(rooms, legacy, false);
+		render(rooms, buffered, true);
+		if(!Arrays.equals(legacy.toByteArray(), buffered.toByteArray()))
+		{
+			console.println("FAILED: the buffered screen differs from the original screen");
+			System.exit(1);
+		}
+
+		console.printf("%d rooms, %d rounds%n", numberOfRooms, rounds);
+		console.printf("%-10s %14s %12s %14s%n", "Renderer", "Bytes/screen", "Writes", "ms/screen");
+		report(console, "printf", rooms, rounds, false);
+		report(console, "buffered", rooms, rounds, true);
+	}
+
+	// Method to time one renderer over a number of rounds, after a warm up round.
+	private static void report(PrintStream console, String name, Room[] rooms, int rounds, boolean buffered)
+	{
+		render(rooms, new CountingOutputStream(false), buffered);
+		CountingOutputStream out = new CountingOutputStream(false);
+		long start = System.nanoTime();
+		for(int i=0; i < rounds; i++)
+		{
+			render(rooms, out, buffered);
+		}
+		double ms = (System.nanoTime() - start) / 1e6 / rounds;
+		console.printf("%-10s %14d %12d %14.2f%n", name, out.getBytes() / rounds, out.getWrites() / rounds, ms);
+	}
+
+	// Method to render the "View all rooms" screen to a stream, set up the way the
+	// JVM sets up the console's System.out.
+	private static void render(Room[] rooms, OutputStream target, boolean buffered)
+	{
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(new BufferedOutputStream(target, 128), true));
+		try
+		{
+			if(buffered)
+			{
+				ScreenManager.clear();
+				ScreenManager.printProgramTitle();
+				ScreenManager.printHeader("Status of all rooms");
+				for(int i=0; i < rooms.length; i++)
+				{
+					rooms[i].printRow(i == 0);
+				}
+				ScreenManager.println();
+				ScreenManager.printFooter();
+				ScreenManager.print("\n  PRESS [ENTER] TO CONTINUE  ");
+				ScreenManager.flush();
+			}
+			else
+			{
+				legacyClear();
+				legacyPrintProgramTitle();
+				legacyPrintHeader("Status of all rooms");
+				for(int i=0; i < rooms.length; i++)
+				{
+					legacyPrintRow(rooms[i], i == 0);
+				}
+				System.out.println();
+				legacyPrintFooter();
+				System.out.println();
+				System.out.printf("  %S  ", "Press [enter] to continue");
+			}
+			System.out.flush();
+		}
+		finally
+		{
+			System.setOut(console);
+		}
+	}
+
+	// The methods below are copies of how ScreenManager and Room used to print.
+	private static void legacyClear()
+	{
+		System.out.print("\u001b[2J");
+		System.out.flush();
+	}
+
+	private static void legacyPrintProgramTitle()
+	{
+		String title = "H O M E    T R A V E L    B O O K I N G    S Y S T E M";
+		int titleLength = title.length() / 2;
+		for(int i=0; i < (60 - titleLength); i++)
+		{
+			System.out.print(" ");
+		}
+		System.out.print("   ");
+		System.out.printf("%S", title);
+		System.out.print("   ");
+		for(int i=0; i < (60 - titleLength); i++)
+		{
+			System.out.print(" ");
+		}
+		System.out.println();
+		System.out.println();
+	}
+
+	private static void legacyPrintHeader(String title)
+	{
+		int titleLength = title.length() / 2;
+		for(int i=0; i < (60 - titleLength); i++)
+		{
+			System.out.print("#");
+		}
+		System.out.print("   ");
+		System.out.printf("%S", title);
+		System.out.print("   ");
+		for(int i=0; i < (60 - titleLength); i++)
+		{
+			System.out.print("#");
+		}
+		System.out.println();
+		System.out.println();
+	}
+
+	private static void legacyPrintFooter()
+	{
+		for(int i=0; i < 126; i++)
+		{
+			System.out.print("#");
+		}
+		System.out.println();
+		System.out.println();
+	}
+
+	private static void legacyPrintRow(Room room, boolean header)
+	{
+		if(header)
+		{
+			System.out.printf("  %S %33S     %9S  %13S  %15S  %10S\n", "Room ID", "Description", "Rate", "Status", "Booked Until", "Customer");
+		}
+		if(room.getStatus() == 'B')
+		{
+			System.out.printf("  %S %30s     $ %(,7.2f  %13s  %15s  %10s\n", room.getId(), room.getDescription(), room.getDailyRate(), room.getReadableStatus(), new SimpleDateFormat("dd/MM/yyyy").format(new Date(room.getBookingEndTimestamp())), room.getCustomerId());
+		}
+		else
+		{
+			System.out.printf("  %S %30s     $ %(,7.2f  %13s  %15s  %10s\n", room.getId(), room.getDescription(), room.getDailyRate(), room.getReadableStatus(), " - ", " - ");
+		}
+	}
+
+	// An output stream standing in for the terminal, counting the bytes and the
+	// number of writes that reach it, optionally keeping a copy of the bytes.
+	private static class CountingOutputStream extends OutputStream
+	{
+		private final ByteArrayOutputStream copy;
+		private long bytes;
+		private long writes;
+
+		public CountingOutputStream(boolean keepCopy)
+		{
+			copy = keepCopy ? new ByteArrayOutputStream() : null;
+		}
+
+		public void write(int b)
+		{
+			bytes++;
+			writes++;
+			if(copy != null)
+			{
+				copy.write(b);
+			}
+		}
+
+		public void write(byte[] b, int offset, int length)
+		{
+			bytes += length;
+			writes++;
+			if(copy != null)
+			{
+				copy.write(b, offset, length);
+			}
+		}
+
+		public long getBytes()
+		{
+			return bytes;
+		}
+
+		public long getWrites()
+		{
+			return writes;
+		}
+
+		public byte[] toByteArray()
+		{
+			return copy.toByteArray();
+		}
+	}
+}
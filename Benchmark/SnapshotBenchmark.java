@@ -0,0 +1,100 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Benchmark/SnapshotBenchmark.java
+// Description:
+// 	This class, SnapshotBenchmark, is a stand-alone program that compares
+// 	saving and loading rooms with Java serialisation (the original rooms.dat
+// 	format) against the RoomSnapshot binary format.
+//
+// 	Usage: java Benchmark.SnapshotBenchmark [number of rooms] [rounds]
+//
+package Benchmark;
+
+import Room.Room;
+import Room.PremiumRoom;
+import Room.RoomSnapshot;
+import java.io.*;
+
+public class SnapshotBenchmark
+{
+
+	// Program starts here:
+	public static void main(String[] args) throws Exception
+	{
+		int numberOfRooms = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		Room[] rooms = createRooms(numberOfRooms);
+		File serialisedFile = File.createTempFile("rooms-serialised", ".dat");
+		File snapshotFile = File.createTempFile("rooms-snapshot", ".dat");
+		serialisedFile.deleteOnExit();
+		snapshotFile.deleteOnExit();
+
+		System.out.printf("%d rooms, best of %d rounds%n", numberOfRooms, rounds);
+		System.out.printf("%-14s %12s %12s %14s%n", "Format", "Save (ms)", "Load (ms)", "File (bytes)");
+
+		long serialisedSave = Long.MAX_VALUE;
+		long serialisedLoad = Long.MAX_VALUE;
+		long snapshotSave = Long.MAX_VALUE;
+		long snapshotLoad = Long.MAX_VALUE;
+		for(int round=0; round < rounds; round++)
+		{
+			long start = System.nanoTime();
+			ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(serialisedFile)));
+			out.writeObject(rooms);
+			out.close();
+			serialisedSave = Math.min(serialisedSave, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(serialisedFile)));
+			check((Room[]) in.readObject(), numberOfRooms);
+			in.close();
+			serialisedLoad = Math.min(serialisedLoad, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			RoomSnapshot.save(rooms, snapshotFile.getPath());
+			snapshotSave = Math.min(snapshotSave, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			check(RoomSnapshot.load(snapshotFile.getPath()), numberOfRooms);
+			snapshotLoad = Math.min(snapshotLoad, System.nanoTime() - start);
+		}
+
+		System.out.printf("%-14s %12d %12d %14d%n", "Serialised", serialisedSave / 1000000, serialisedLoad / 1000000, serialisedFile.length());
+		System.out.printf("%-14s %12d %12d %14d%n", "Snapshot", snapshotSave / 1000000, snapshotLoad / 1000000, snapshotFile.length());
+	}
+
+	// Method to create a mix of rooms and premium rooms, with every third room booked.
+	private static Room[] createRooms(int numberOfRooms)
+	{
+		Room[] rooms = new Room[numberOfRooms];
+		for(int i=0; i < numberOfRooms; i++)
+		{
+			String roomId = String.format("ROOM%06d", i);
+			if(i % 4 == 0)
+			{
+				rooms[i] = new PremiumRoom(roomId, "Premium Room " + i, 90.00 + i % 50, 1 + i % 3, 100.00);
+			}
+			else
+			{
+				rooms[i] = new Room(roomId, "Standard Room " + i, 35.00 + i % 40);
+			}
+			if(i % 3 == 0)
+			{
+				rooms[i].bookRoom(String.format("c%07d", i), 1 + i % 7);
+			}
+		}
+		return rooms;
+	}
+
+	// Method to make sure a load returned every room, so the work cannot be skipped.
+	private static void check(Room[] rooms, int numberOfRooms)
+	{
+		if(rooms.length != numberOfRooms)
+		{
+			throw new IllegalStateException("Expected " + numberOfRooms + " rooms, loaded " + rooms.length);
+		}
+	}
+}
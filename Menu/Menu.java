@@ -10,15 +10,96 @@
 //
 package Menu;
 
-import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import utilities.ScreenManager;
+import utilities.Metrics;
+import utilities.OperationMetrics;
+import utilities.EpochDays;
 import Room.Room;
 import Room.PremiumRoom;
+import Room.BookingRequest;
+import Room.CustomerId;
+import Room.BookingResult;
+import Room.RoomRegistry;
+import Room.InventoryTotals;
+import Room.AuditReport;
+import Room.NightAudit;
+import Room.QuoteEngine;
+import Room.QuoteCache;
+import Room.Quote;
+import Room.Reservation;
+import Room.AvailabilityCalendar;
+import Room.RoomSnapshot;
+import Storage.BookingJournal;
+import Storage.BookingHistory;
+import Storage.ArchivedStay;
 import java.io.*;
 
 public class Menu
 {
 
+	// The registry used to look up rooms by ID, built from the rooms array the
+	// first time it is passed to the menu.
+	private static RoomRegistry registry;
+
+	// The engine used to quote stays in the premium rooms, built from the rooms
+	// the first time a quote is asked for.
+	private static QuoteEngine quoteEngine;
+
+	// The files that room and booking information is saved to.
+	private static final String ROOMS_FILE = "rooms.dat";
+	private static final String JOURNAL_FILE = "rooms.journal";
+
+	// The journal that each booking, checkout and clean is written to as it happens,
+	// opened along with the registry. This is null if the journal could not be opened.
+	private static BookingJournal journal;
+
+	// The archive of completed stays, each written to it at checkout, kept in one
+	// file per month in the history directory. This is null if it could not be
+	// opened.
+	private static final String HISTORY_DIRECTORY = "history";
+	static BookingHistory history;
+
+	// The number of rooms shown on each page when viewing all rooms, which can be
+	// changed with the hometravel.pageSize system property.
+	private static final int PAGE_SIZE = Math.max(1, Integer.getInteger("hometravel.pageSize", 20));
+
+	// The quotes given for single rooms, so that asking for the same quote again is
+	// a lookup. The number of quotes held can be changed with the
+	// hometravel.quoteCacheSize system property.
+	static final QuoteCache QUOTE_CACHE = new QuoteCache(Integer.getInteger("hometravel.quoteCacheSize", 1024));
+
+	// Metrics for the operations the menus carry out (see utilities.Metrics). Time
+	// spent waiting for the user to type is not included.
+	static final OperationMetrics BOOK_METRICS = Metrics.register("Menu: book room");
+	static final OperationMetrics GROUP_BOOK_METRICS = Metrics.register("Menu: group booking");
+	static final OperationMetrics CHECKOUT_METRICS = Metrics.register("Menu: checkout");
+	static final OperationMetrics CLEAN_METRICS = Metrics.register("Menu: clean");
+	static final OperationMetrics LOOKUP_METRICS = Metrics.register("Menu: room lookup");
+	static final OperationMetrics SEARCH_METRICS = Metrics.register("Menu: price search");
+	static final OperationMetrics AVAILABILITY_METRICS = Metrics.register("Menu: free room search");
+	static final OperationMetrics FILTER_METRICS = Metrics.register("Menu: room filter");
+	static final OperationMetrics AUDIT_METRICS = Metrics.register("Menu: night audit");
+	static final OperationMetrics QUOTE_METRICS = Metrics.register("Menu: premium quote");
+	static final OperationMetrics CUSTOMER_METRICS = Metrics.register("Menu: customer lookup");
+	static final OperationMetrics HISTORY_METRICS = Metrics.register("Menu: history search");
+	static final OperationMetrics SAVE_METRICS = Metrics.register("Menu: save");
+	static final OperationMetrics LOAD_METRICS = Metrics.register("Menu: load");
+
+	// Set to false when commands are run from a script, so that warnings do not
+	// wait for the user to press enter.
+	static boolean interactive = true;
+
+	// Group commit settings for the journal, which can be changed with the
+	// hometravel.journal.batchSize and hometravel.journal.maxWaitMicros system
+	// properties. A booking waits at most the max wait for others to share its
+	// force to disk.
+	private static final int JOURNAL_BATCH_SIZE = Integer.getInteger("hometravel.journal.batchSize", BookingJournal.DEFAULT_BATCH_SIZE);
+	private static final long JOURNAL_MAX_WAIT_MICROS = Long.getLong("hometravel.journal.maxWaitMicros", BookingJournal.DEFAULT_MAX_WAIT_MICROS);
+
 	// Overloaded method used to first load room and booking information from file, then
 	// parse an array of Rooms to the runMainMenu() method.
 	public static Room[] runMainMenu() throws IOException, FileNotFoundException, ClassNotFoundException
@@ -35,7 +116,7 @@ public class Menu
 		// These final static variables are used to store the minimum and maximum menu 
 		// selection options.
 		final int MIN_OPTION = 0;
-		final int MAX_OPTION = 5; 
+		final int MAX_OPTION = 16; 
 
 		int response = -1;
 		boolean validResponse = false;
@@ -47,15 +128,14 @@ public class Menu
 
 			// Print the main menu to screen.
 			printMainMenu();
-			System.out.print("Please make your selection: ");
+			ScreenManager.print("Please make your selection: ");
 
 			// Error handeling for invalid responses (non-integers) from users.
 			try
 			{
 
 				// Read the menu selection from keyboard.
-				Scanner console = new Scanner(System.in);
-				response = console.nextInt();
+				response = ScreenManager.readInt();
 				validResponse = true;
 
 			}
@@ -66,6 +146,14 @@ public class Menu
 			{
 				validResponse = false;
 			}
+
+			// If there is no more input (for example, piped input has run out), exit the
+			// system as if 0 had been selected.
+			catch(java.util.NoSuchElementException e)
+			{
+				response = 0;
+				validResponse = true;
+			}
 		}
 		while(response < MIN_OPTION || response > MAX_OPTION || !validResponse);
 
@@ -98,6 +186,61 @@ public class Menu
 				searchRoomsByPrice(rooms);
 				break;
 
+			// 6. View Operational Metrics
+			case 6:
+				viewMetrics();
+				break;
+
+			// 7. Reserve a Room for Future Dates
+			case 7:
+				rooms = reserveRoom(rooms);
+				break;
+
+			// 8. Cancel a Reservation
+			case 8:
+				rooms = cancelReservation(rooms);
+				break;
+
+			// 9. Search for Rooms Free Between Two Dates
+			case 9:
+				searchAvailableRooms(rooms);
+				break;
+
+			// 10. Filter Rooms by Status, Type and Price
+			case 10:
+				filterRooms(rooms);
+				break;
+
+			// 11. View the Management Dashboard
+			case 11:
+				viewDashboard(rooms);
+				break;
+
+			// 12. Run the End of Day Audit
+			case 12:
+				runNightAudit(rooms);
+				break;
+
+			// 13. Quote a Stay in Every Premium Room
+			case 13:
+				quotePremiumRooms(rooms);
+				break;
+
+			// 14. Quote a Stay in One Room
+			case 14:
+				quoteRoom(rooms);
+				break;
+
+			// 15. Find the Rooms Booked by a Customer
+			case 15:
+				findBookingsByCustomer(rooms);
+				break;
+
+			// 16. View the Booking History
+			case 16:
+				viewBookingHistory(rooms);
+				break;
+
 			// 0. Exit the System
 			case 0:
 
@@ -106,12 +249,16 @@ public class Menu
 				ScreenManager.printNotice("Printing status of all rooms");
 				for(int i=0; i < rooms.length; i++)
 				{
-					System.out.println(rooms[i].toString());
+					ScreenManager.println(rooms[i].toString());
 				}
 
 				// Save all Room objects in the rooms array to the rooms.dat file.
 				ScreenManager.printNotice("Saving room information to file");
 				saveRooms(rooms);
+
+				// Print the operational metrics gathered while the program was running.
+				ScreenManager.printNotice("Operational metrics");
+				printMetrics();
 				ScreenManager.printNotice("Goodbye!");
 
 				// Exit the program.
@@ -135,7 +282,18 @@ public class Menu
 		ScreenManager.printMenuItem(3, "Mark room as cleaned");
 		ScreenManager.printMenuItem(4, "View all rooms");
 		ScreenManager.printMenuItem(5, "Search for a room by price range");
-		System.out.println();
+		ScreenManager.printMenuItem(6, "View operational metrics");
+		ScreenManager.printMenuItem(7, "Reserve a room for future dates");
+		ScreenManager.printMenuItem(8, "Cancel a reservation");
+		ScreenManager.printMenuItem(9, "Search for free rooms by date and price");
+		ScreenManager.printMenuItem(10, "Filter rooms by status, type and price");
+		ScreenManager.printMenuItem(11, "View management dashboard");
+		ScreenManager.printMenuItem(12, "Run end of day audit");
+		ScreenManager.printMenuItem(13, "Quote a stay in premium rooms");
+		ScreenManager.printMenuItem(14, "Quote a stay in one room");
+		ScreenManager.printMenuItem(15, "Find bookings by customer");
+		ScreenManager.printMenuItem(16, "View booking history");
+		ScreenManager.println();
 		ScreenManager.printMenuItem(0, "Exit system");
 		ScreenManager.printFooter();
 	}
@@ -150,167 +308,149 @@ public class Menu
 		// Call the roomSelection method, which will return the array index of a
 		// room selected by the user.
 		int roomArrayIndex = roomSelection(rooms, 1);
+		Room room = getRegistry(rooms).get(roomArrayIndex);
 
 		// Determine if the room is currently available for booking.
-		if(rooms[roomArrayIndex].roomAvailable())
+		if(room.roomAvailable())
 		{
 
-			boolean booked = false;
+			boolean booked;
+			ScreenManager.println();
+			boolean validCustomer = false;
+			String customerId = new String();
 
-			// Loop while a booking has not been successful (initial case).
-			while(!booked)
+			// Loop while an invalid customer ID has been provided (initial case).
+			while(!validCustomer)
 			{
-				System.out.println();
-				boolean validCustomer = false;
-				String customerId = new String();
-
-				// Loop while an invalid customer ID has been provided (initial case).
-				while(!validCustomer)
+				
+				// Read customer ID from keyboard.
+				ScreenManager.printPrompt(2, "Enter customer ID");
+				customerId = ScreenManager.readToken();
+
+				// Convert the inputted customer ID to lower case.
+				customerId = customerId.toLowerCase();
+				ScreenManager.println();
+
+				// Check the entered customer ID is valid.
+				// This ensures it starts with a lower case 'c' followed by 7 digits.
+				if(CustomerId.isValid(customerId))
 				{
-					
-					// Read customer ID from keyboard.
-					ScreenManager.printPrompt(2, "Enter customer ID");
-					Scanner console = new Scanner(System.in);
-					customerId = console.next();
-
-					// Convert the inputted customer ID to lower case.
-					customerId = customerId.toLowerCase();
-					System.out.println();
-
-					// Check the entered customer ID using the following regular expression.
-					// This ensures it starts with a lower case 'c' followed by 7 digits.
-					if(customerId.matches("c[0-9]{7}"))
-					{
 
-						// Exit the loop if the customer ID is valid.
-						validCustomer = true;
-					}
-					else
-					{
-						ScreenManager.printWarning("That is not a valid customer ID, please try again");
-					}
+					// Exit the loop if the customer ID is valid.
+					validCustomer = true;
 				}
-
-				boolean validResponse = false;
-				int numberOfNights = 0;
-
-				// Do-while loop, until a valid number of nights has been provided.
-				do
+				else
 				{
+					ScreenManager.printWarning("That is not a valid customer ID, please try again");
+				}
+			}
 
-					// Error handeling for invalid number of nights (non-integer values).
-					try
-					{
+			// Read the number of nights, which must be between 1 and the longest stay
+			// the calendar can hold.
+			int numberOfNights = readNights(3);
+			boolean validResponse;
 
-						// Read the number of nights from the keyboard.
-						ScreenManager.printPrompt(3, "Number of nights required");
-						Scanner console = new Scanner(System.in);
-						numberOfNights = console.nextInt();
-						validResponse = true;
+			// The time the booking was made, for the metrics.
+			long start;
 
-						// The number of nights cannot be less than 1.
-						if(numberOfNights < 1)
-						{
-							ScreenManager.printWarning("That is not a valid number of nights, please try again");
-							validResponse = false;
-						}
-					}
+			// Voucher and discount handeling for the PremiumRoom class.
+			if(room instanceof PremiumRoom)
+			{
 
-					// Catch any invalid (non-integer) inputs from the keyboard to force the
-					// loop to re-iterate.
-					catch(java.util.InputMismatchException e)
-					{
-						ScreenManager.printWarning("That is not a valid number of nights, please try again");
-					}
+				// Prompt the user for a valid voucher, loops until user enters 'y' or 'n' case
+				// insensitive.
+				String voucher;
+				do
+				{
+
+					// Read response from keyboard.
+					ScreenManager.println();
+					ScreenManager.printPrompt(4, "Does the customer have a valid voucher? [y/n]");
+					voucher = ScreenManager.readToken();
 				}
-				while(!validResponse);
+				while(!voucher.toLowerCase().equals("y") && !voucher.toLowerCase().equals("n"));
 
-				// Voucher and discount handeling for the PremiumRoom class.
-				if(rooms[roomArrayIndex] instanceof PremiumRoom)
+				// If the customer has a valid voucher, read the amount.
+				if(voucher.toLowerCase().equals("y"))
 				{
 
-					// Prompt the user for a valid voucher, loops until user enters 'y' or 'n' case
-					// insensitive.
-					String voucher;
+					// Loop until the user enters a valid voucher amount (double).
+					validResponse = false;
+					double voucherAmount = 0.00;
 					do
 					{
 
-						// Read response from keyboard.
-						System.out.println();
-						ScreenManager.printPrompt(4, "Does the customer have a valid voucher? [y/n]");
-						Scanner console = new Scanner(System.in);
-						voucher = console.next();
-					}
-					while(!voucher.toLowerCase().equals("y") && !voucher.toLowerCase().equals("n"));
-
-					// If the customer has a valid voucher, read the amount.
-					if(voucher.toLowerCase().equals("y"))
-					{
-
-						// Loop until the user enters a valid voucher amount (double).
-						validResponse = false;
-						double voucherAmount = 0.00;
-						do
+						// Error handeling for invalid voucher amounts (non-double values).
+						try
 						{
 
-							// Error handeling for invalid voucher amounts (non-double values).
-							try
-							{
-
-								// Read voucher amount from keyboard.
-								System.out.println();
-								ScreenManager.printPrompt(5, "Enter voucher amount");
-								Scanner console = new Scanner(System.in);
-								voucherAmount = console.nextDouble();
-								validResponse = true;
-							}
-
-							// Catch any non-valid voucher amounts (non-doubles) and force the loop
-							// to re-iterate.
-							catch(java.util.InputMismatchException e)
-							{
-								ScreenManager.printWarning("That is not a valid voucher amount, please try again");
-							}
+							// Read voucher amount from keyboard.
+							ScreenManager.println();
+							ScreenManager.printPrompt(5, "Enter voucher amount");
+							voucherAmount = ScreenManager.readDouble();
+							validResponse = true;
 						}
-						while(!validResponse);
 
-						// Book the room - which has been casted to a PremiumRoom object to ensure the correct
-						// bookRoom method is called.
-						booked = ((PremiumRoom)rooms[roomArrayIndex]).bookRoom(customerId, numberOfNights, voucherAmount);
+						// Catch any non-valid voucher amounts (non-doubles) and force the loop
+						// to re-iterate.
+						catch(java.util.InputMismatchException e)
+						{
+							ScreenManager.printWarning("That is not a valid voucher amount, please try again");
+						}
 					}
+					while(!validResponse);
 
-					// The customer does not have a voucher.
-					else
-					{
-
-						// Book the room - which has been casted to a PremiumRoom object to ensure the correct
-						// bookRoom method is called.
-						booked = ((PremiumRoom)rooms[roomArrayIndex]).bookRoom(customerId, numberOfNights);
-					}
+					// Book the room - which has been casted to a PremiumRoom object to ensure the correct
+					// bookRoom method is called.
+					start = OperationMetrics.start();
+					booked = ((PremiumRoom)room).bookRoom(customerId, numberOfNights, voucherAmount);
 				}
 
-				// Handle non-premium room bookings.
+				// The customer does not have a voucher.
 				else
 				{
-					booked = rooms[roomArrayIndex].bookRoom(customerId, numberOfNights);
+
+					// Book the room - which has been casted to a PremiumRoom object to ensure the correct
+					// bookRoom method is called.
+					start = OperationMetrics.start();
+					booked = ((PremiumRoom)room).bookRoom(customerId, numberOfNights);
 				}
+			}
+
+			// Handle non-premium room bookings.
+			else
+			{
+				start = OperationMetrics.start();
+				booked = room.bookRoom(customerId, numberOfNights);
+			}
 
-				// Print the room information if the room was successfully booked.
-				if(booked)
+			// Print the room information if the room was successfully booked.
+			if(booked)
+			{
+				recordChange(BookingJournal.BOOK, room);
+				BOOK_METRICS.success(start);
+				room.print();
+				ScreenManager.printNotice("Room has been booked successfully");
+				ScreenManager.printFooter();
+				ScreenManager.pause();
+			}
+
+			// Warn the user that the room could not be booked, saying why, and return to
+			// the main menu. The details entered are valid, so either another desk has
+			// taken the room, or some of the nights are reserved by another customer.
+			else
+			{
+				BOOK_METRICS.failure(start);
+				if(!room.roomAvailable())
 				{
-					rooms[roomArrayIndex].print();
-					ScreenManager.printNotice("Room has been booked successfully");
-					ScreenManager.printFooter();
-					ScreenManager.pause();
+					ScreenManager.printWarning("Cannot book this room, it is no longer available");
 				}
-
-				// Warn the user than the room could not be booked, loop will re-iterate.
 				else
 				{
-					ScreenManager.printWarning("Cannot book this room, please the details and try again");
-					ScreenManager.printFooter();
-					ScreenManager.pause();
+					ScreenManager.printWarning("Cannot book this room, some of those nights are reserved by another customer");
 				}
+				ScreenManager.printFooter();
+				ScreenManager.pause();
 			}
 		}
 
@@ -334,16 +474,21 @@ public class Menu
 
 		// Select the array index of the room to be checked out.
 		int roomArrayIndex = roomSelection(rooms, 1);
+		Room room = getRegistry(rooms).get(roomArrayIndex);
 
 		// Attempt to check out the room, and prompt the user of the outcome.
-		if(rooms[roomArrayIndex].checkout()){
-			rooms[roomArrayIndex].print();
+		long start = OperationMetrics.start();
+		if(room.checkout()){
+			recordChange(BookingJournal.CHECKOUT, room);
+			CHECKOUT_METRICS.success(start);
+			room.print();
 			ScreenManager.printNotice("Room has been checked out successfully");
 			ScreenManager.printFooter();
 			ScreenManager.pause();
 		}
 		else
 		{
+			CHECKOUT_METRICS.failure(start);
 			ScreenManager.printWarning("This room is not currently booked");
 			ScreenManager.printFooter();
 			ScreenManager.pause();
@@ -353,6 +498,165 @@ public class Menu
 		return rooms;
 	}
 
+	// Method for handling the console interface when reserving a room for future
+	// dates.
+	public static Room[] reserveRoom(Room[] rooms)
+	{
+		ScreenManager.clear();
+		ScreenManager.printProgramTitle();
+		ScreenManager.printHeader("Reserve a room");
+
+		// Select the room, and show its details and existing reservations.
+		int roomArrayIndex = roomSelection(rooms, 1);
+		Room room = getRegistry(rooms).get(roomArrayIndex);
+		room.print();
+		ScreenManager.println();
+
+		String customerId = readCustomerId(2);
+
+		// Read the first night, which cannot be in the past.
+		long firstNight;
+		do
+		{
+			ScreenManager.printPrompt(3, "Enter first night (dd/mm/yyyy)");
+			firstNight = EpochDays.parseDay(ScreenManager.readToken());
+			ScreenManager.println();
+			if(firstNight == EpochDays.NO_DAY)
+			{
+				ScreenManager.printWarning("That is not a valid date, please try again");
+			}
+			else if(firstNight < EpochDays.today())
+			{
+				ScreenManager.printWarning("Reservations cannot start in the past, please try again");
+				firstNight = EpochDays.NO_DAY;
+			}
+		}
+		while(firstNight == EpochDays.NO_DAY);
+
+		int nights = readNights(4);
+
+		// Attempt to reserve the room, and prompt the user of the outcome.
+		Reservation reservation = room.reserve(customerId, firstNight, nights);
+		if(reservation != null)
+		{
+			recordReservation(BookingJournal.RESERVE, room, reservation);
+			ScreenManager.printNotice("Room reserved from " + EpochDays.formatDay(reservation.getFirstNight()) + " to " + EpochDays.formatDay(reservation.getDepartureDay()));
+		}
+		else
+		{
+			ScreenManager.printWarning("This room is not free for all of those nights");
+		}
+		ScreenManager.printFooter();
+		ScreenManager.pause();
+
+		return rooms;
+	}
+
+	// Method for handling the console interface when cancelling a reservation.
+	public static Room[] cancelReservation(Room[] rooms)
+	{
+		ScreenManager.clear();
+		ScreenManager.printProgramTitle();
+		ScreenManager.printHeader("Cancel a reservation");
+
+		int roomArrayIndex = roomSelection(rooms, 1);
+		Room room = getRegistry(rooms).get(roomArrayIndex);
+		List<Reservation> reservations = room.getReservations();
+		if(reservations.isEmpty())
+		{
+			ScreenManager.printWarning("This room has no reservations");
+			ScreenManager.printFooter();
+			ScreenManager.pause();
+			return rooms;
+		}
+
+		// List the room's reservations, numbered from 1.
+		ScreenManager.println();
+		for(int i=0; i < reservations.size(); i++)
+		{
+			Reservation reservation = reservations.get(i);
+			ScreenManager.printf("  %d.  %s  %s to %s (%d night(s))\n", i + 1, reservation.getCustomerId(), EpochDays.formatDay(reservation.getFirstNight()), EpochDays.formatDay(reservation.getDepartureDay()), reservation.getNights());
+		}
+		ScreenManager.println();
+
+		// Read the number of the reservation to cancel.
+		int selection = 0;
+		do
+		{
+			try
+			{
+				ScreenManager.printPrompt(2, "Enter the reservation to cancel");
+				selection = ScreenManager.readInt();
+				ScreenManager.println();
+			}
+			catch(java.util.InputMismatchException e)
+			{
+				selection = 0;
+			}
+			if(selection < 1 || selection > reservations.size())
+			{
+				ScreenManager.printWarning("That is not one of the reservations listed, please try again");
+			}
+		}
+		while(selection < 1 || selection > reservations.size());
+
+		// Attempt to cancel the reservation, and prompt the user of the outcome.
+		Reservation reservation = reservations.get(selection - 1);
+		if(room.cancelReservation(reservation.getCustomerId(), reservation.getFirstNight()) != null)
+		{
+			recordReservation(BookingJournal.UNRESERVE, room, reservation);
+			ScreenManager.printNotice("Reservation has been cancelled");
+		}
+		else
+		{
+			ScreenManager.printWarning("This reservation has already been cancelled");
+		}
+		ScreenManager.printFooter();
+		ScreenManager.pause();
+
+		return rooms;
+	}
+
+	// Method to read a valid customer ID from the keyboard, in lower case.
+	private static String readCustomerId(int promptNumber)
+	{
+		while(true)
+		{
+			ScreenManager.printPrompt(promptNumber, "Enter customer ID");
+			String customerId = ScreenManager.readToken().toLowerCase();
+			ScreenManager.println();
+			if(CustomerId.isValid(customerId))
+			{
+				return customerId;
+			}
+			ScreenManager.printWarning("That is not a valid customer ID, please try again");
+		}
+	}
+
+	// Method to read a valid number of nights from the keyboard.
+	private static int readNights(int promptNumber)
+	{
+		while(true)
+		{
+			try
+			{
+				ScreenManager.printPrompt(promptNumber, "Number of nights required");
+				int nights = ScreenManager.readInt();
+				ScreenManager.println();
+				if(nights >= 1 && nights <= AvailabilityCalendar.MAX_NIGHTS)
+				{
+					return nights;
+				}
+			}
+
+			// Non-integer values fall through to the warning below.
+			catch(java.util.InputMismatchException e)
+			{
+			}
+			ScreenManager.printWarning("That is not a valid number of nights, please try again");
+		}
+	}
+
 	// Method for handling the console interface when marking a room as cleaned.
 	public static Room[] cleanRoom(Room[] rooms)
 	{
@@ -362,17 +666,22 @@ public class Menu
 
 		// Select the array index of the room to be marked as cleaned.
 		int roomArrayIndex = roomSelection(rooms, 1);
+		Room room = getRegistry(rooms).get(roomArrayIndex);
 
 		// Attempt to mark the room as cleaned, and prompt the user of the outcome.
-		if(rooms[roomArrayIndex].cleanRoom())
+		long start = OperationMetrics.start();
+		if(room.cleanRoom())
 		{
-			rooms[roomArrayIndex].print();
+			recordChange(BookingJournal.CLEAN, room);
+			CLEAN_METRICS.success(start);
+			room.print();
 			ScreenManager.printNotice("Room has been marked as clean");
 			ScreenManager.printFooter();
 			ScreenManager.pause();
 		}
 		else
 		{
+			CLEAN_METRICS.failure(start);
 			ScreenManager.printWarning("This room is not currently marked as un-clean");
 			ScreenManager.printFooter();
 			ScreenManager.pause();
@@ -382,6 +691,163 @@ public class Menu
 		return rooms;
 	}
 
+	// Method to book a group of rooms without using the console, for example for
+	// a tour operator. Every request is validated first, in parallel, and then the
+	// valid requests are booked in order. In all-or-nothing mode no room is booked
+	// unless every request can be, so rooms already booked for the group are
+	// released again if a later booking fails. Otherwise each request is booked if
+	// it can be. Returns one result per request, in the same order as the requests.
+	public static List<BookingResult> bookRooms(Room[] rooms, List<BookingRequest> requests, boolean allOrNothing)
+	{
+		long start = OperationMetrics.start();
+		List<BookingResult> results = bookGroup(rooms, requests, allOrNothing);
+
+		// The group counts as a success in the metrics only if every room was booked.
+		boolean allBooked = true;
+		for(int i=0; i < results.size(); i++)
+		{
+			allBooked &= results.get(i).isBooked();
+		}
+		if(allBooked)
+		{
+			GROUP_BOOK_METRICS.success(start);
+		}
+		else
+		{
+			GROUP_BOOK_METRICS.failure(start);
+		}
+		return results;
+	}
+
+	// Method to carry out a group booking for bookRooms().
+	private static List<BookingResult> bookGroup(Room[] rooms, List<BookingRequest> requests, boolean allOrNothing)
+	{
+		final RoomRegistry roomRegistry = getRegistry(rooms);
+
+		// Validate every request in parallel, a null problem means the request is valid.
+		List<String> problems = requests.parallelStream().map(request -> validateBooking(roomRegistry, request)).collect(Collectors.toList());
+
+		// A room can only be booked once within a group.
+		boolean[] requested = new boolean[roomRegistry.size()];
+		for(int i=0; i < requests.size(); i++)
+		{
+			if(problems.get(i) == null)
+			{
+				int slot = roomRegistry.indexOf(requests.get(i).getRoomId());
+				if(requested[slot])
+				{
+					problems.set(i, "Room is requested more than once in this group");
+				}
+				requested[slot] = true;
+			}
+		}
+
+		BookingResult[] results = new BookingResult[requests.size()];
+		boolean allValid = true;
+		for(int i=0; i < requests.size(); i++)
+		{
+			if(problems.get(i) != null)
+			{
+				results[i] = new BookingResult(requests.get(i), false, problems.get(i));
+				allValid = false;
+			}
+		}
+		if(allOrNothing && !allValid)
+		{
+			return notBooked(requests, results, "Not booked, another request in the group is not valid");
+		}
+
+		// Book each valid request in order.
+		List<Room> bookedRooms = new ArrayList<Room>();
+		List<Integer> bookedRequests = new ArrayList<Integer>();
+		for(int i=0; i < requests.size(); i++)
+		{
+			if(results[i] != null)
+			{
+				continue;
+			}
+			BookingRequest request = requests.get(i);
+			Room room = roomRegistry.find(request.getRoomId());
+			boolean booked;
+			if(room instanceof PremiumRoom)
+			{
+				booked = ((PremiumRoom)room).bookRoom(request.getCustomerId(), request.getNightsRequired(), request.getVoucherAmount());
+			}
+			else
+			{
+				booked = room.bookRoom(request.getCustomerId(), request.getNightsRequired());
+			}
+
+			if(booked)
+			{
+				bookedRooms.add(room);
+				bookedRequests.add(i);
+				results[i] = new BookingResult(request, true, "Booked");
+			}
+			else
+			{
+				results[i] = new BookingResult(request, false, room.roomAvailable() ? "Room is reserved for some of those nights" : "Room is not available");
+
+				// Release the rooms already booked for the group.
+				if(allOrNothing)
+				{
+					for(int j=0; j < bookedRooms.size(); j++)
+					{
+						bookedRooms.get(j).cancelBooking();
+						int index = bookedRequests.get(j);
+						results[index] = new BookingResult(requests.get(index), false, "Cancelled, another booking in the group failed");
+					}
+					return notBooked(requests, results, "Not booked, another booking in the group failed");
+				}
+			}
+		}
+
+		recordChanges(BookingJournal.BOOK, bookedRooms);
+		return Arrays.asList(results);
+	}
+
+	// Method to check a group booking request, returning a description of the
+	// problem, or null if the request is valid.
+	private static String validateBooking(RoomRegistry roomRegistry, BookingRequest request)
+	{
+		Room room = request.getRoomId() == null ? null : roomRegistry.find(request.getRoomId());
+		if(room == null)
+		{
+			return "Room not found";
+		}
+		if(request.getCustomerId() == null || !CustomerId.isValid(request.getCustomerId()))
+		{
+			return "That is not a valid customer ID";
+		}
+		if(request.getNightsRequired() < 1 || request.getNightsRequired() > AvailabilityCalendar.MAX_NIGHTS)
+		{
+			return "That is not a valid number of nights";
+		}
+		if(request.getVoucherAmount() < 0)
+		{
+			return "That is not a valid voucher amount";
+		}
+		if(request.getVoucherAmount() > 0 && !(room instanceof PremiumRoom))
+		{
+			return "Vouchers can only be used for premium rooms";
+		}
+		return null;
+	}
+
+	// Method to fill in the results of a group booking that has been abandoned,
+	// for every request without a result yet.
+	private static List<BookingResult> notBooked(List<BookingRequest> requests, BookingResult[] results, String message)
+	{
+		for(int i=0; i < results.length; i++)
+		{
+			if(results[i] == null)
+			{
+				results[i] = new BookingResult(requests.get(i), false, message);
+			}
+		}
+		return Arrays.asList(results);
+	}
+
 	// Method to handle the console interface to search for a room.
 	public static void searchRoomsByPrice(Room[] rooms)
 	{
@@ -412,12 +878,11 @@ public class Menu
 
 				// Prompt user for a price bracket and read from keyboard.
 				ScreenManager.printPrompt(1, "Enter minimum price range");
-				Scanner console = new Scanner(System.in);
-				minPrice = console.nextDouble();
-				System.out.println();
+				minPrice = ScreenManager.readDouble();
+				ScreenManager.println();
 				ScreenManager.printPrompt(2, "Enter maximum price range");
-				maxPrice = console.nextDouble();
-				System.out.println();
+				maxPrice = ScreenManager.readDouble();
+				ScreenManager.println();
 
 				// Ensure the brackets are both above 0.
 				if(minPrice > 0 && maxPrice > 0)
@@ -438,27 +903,27 @@ public class Menu
 		}
 		while(!validResponse);
 
-		// Loop through all rooms in the rooms array.
-		for(int i=0; i < rooms.length; i++)
+		// Find the rooms within the entered price bracket using the registry's price
+		// index, and loop through them in order of price.
+		RoomRegistry roomRegistry = getRegistry(rooms);
+		long start = OperationMetrics.start();
+		int[] matches = roomRegistry.searchByPrice(minPrice, maxPrice);
+		SEARCH_METRICS.success(start);
+		for(int i=0; i < matches.length; i++)
 		{
-
-			// If this room matchs the entered price bracket.
-			if(rooms[i].getDailyRate() >= minPrice && rooms[i].getDailyRate() <= maxPrice)
+			results++;
+			if(first)
 			{
-				results++;
-				if(first)
-				{
 
-					// Print the room details as a row (including table headers).
-					rooms[i].printRow(true);
-					first = false;
-				}
-				else
-				{
+				// Print the room details as a row (including table headers).
+				roomRegistry.get(matches[i]).printRow(true);
+				first = false;
+			}
+			else
+			{
 
-					// Print the room details as a row (without table headers).
-					rooms[i].printRow();
-				}
+				// Print the room details as a row (without table headers).
+				roomRegistry.get(matches[i]).printRow();
 			}
 		}
 
@@ -478,44 +943,610 @@ public class Menu
 
 	}
 
-	// Method to view all room informatuon in a table format.
-	public static void viewRooms(Room[] rooms)
+	// Method to show the counts and latencies of every operation since the program
+	// started.
+	public static void viewMetrics()
 	{
-
-		// Variable used to determine the first row of the table, so headers can be printed.
-		boolean first = true;
-
 		ScreenManager.clear();
 		ScreenManager.printProgramTitle();
-		ScreenManager.printHeader("Status of all rooms");
-
-		// Loop through all rooms in the rooms array.
-		for(int i=0; i < rooms.length; i++)
-		{
-			if(first)
-			{
-
-				// Print the first row, with table headings.
-				rooms[i].printRow(true);
-				first = false;
-			}
-			else
-			{
-
-				// Print a row, without table headings.
-				rooms[i].printRow();
-			}
-		}
-		System.out.println();
+		ScreenManager.printHeader("Operational metrics");
+		printMetrics();
 		ScreenManager.printFooter();
 		ScreenManager.pause();
 	}
 
-	// Method called by other Menu class methods to allow a user to select a room.
-	// Returns the array index of the matching room.
-	public static int roomSelection(Room[] rooms, int promptNumber)
+	// Method to print the metrics table, along with the journal's commit times when
+	// it is open.
+	private static void printMetrics()
 	{
-
+		Metrics.print();
+		if(journal != null)
+		{
+			ScreenManager.println("  Journal commits: " + journal.getBatchesWritten() + " batches written, " + journal.getCommitLatencies());
+		}
+		ScreenManager.println("  Quote cache: " + QUOTE_CACHE);
+	}
+
+	// Method to show the management dashboard: how many rooms have each status,
+	// what the booked rooms earn, and what has been billed since the program
+	// started. The figures are the registry's running totals, so no rooms are read.
+	public static void viewDashboard(Room[] rooms)
+	{
+		ScreenManager.clear();
+		ScreenManager.printProgramTitle();
+		ScreenManager.printHeader("Management dashboard");
+
+		RoomRegistry roomRegistry = getRegistry(rooms);
+		InventoryTotals totals = roomRegistry.getTotals();
+		int numberOfRooms = roomRegistry.size();
+		long booked = totals.getCount('B');
+		double occupancy = numberOfRooms == 0 ? 0.0 : booked * 100.0 / numberOfRooms;
+
+		ScreenManager.printf("%-28s %,12d%n", "Total rooms:", numberOfRooms);
+		ScreenManager.printf("%-28s %,12d%n", "Available:", totals.getCount('A'));
+		ScreenManager.printf("%-28s %,12d%n", "Booked:", booked);
+		ScreenManager.printf("%-28s %,12d%n", "Un-cleaned:", totals.getCount('U'));
+		ScreenManager.printf("%-28s %11.1f%%%n", "Occupancy:", occupancy);
+		ScreenManager.println();
+		ScreenManager.printf("%-28s $ %,10.2f%n", "Tonight's room revenue:", totals.getNightlyRevenue());
+		ScreenManager.printf("%-28s $ %,10.2f%n", "Current bookings total:", totals.getBookedRevenue());
+		ScreenManager.println();
+		ScreenManager.printf("%-28s %,12d%n", "Checkouts this session:", totals.getCheckouts());
+		ScreenManager.printf("%-28s $ %,10.2f%n", "Billed this session:", totals.getBilledRevenue());
+		ScreenManager.printf("%-28s $ %,10.2f%n", "Discounts this session:", totals.getDiscounts());
+		ScreenManager.printFooter();
+		ScreenManager.pause();
+	}
+
+	// Method to run the end of day audit over every room and show the report: the
+	// rooms and charges by status and type of room, occupancy by rate band, and
+	// any rooms whose details do not add up.
+	public static void runNightAudit(Room[] rooms)
+	{
+		ScreenManager.clear();
+		ScreenManager.printProgramTitle();
+		ScreenManager.printHeader("End of day audit");
+
+		long start = OperationMetrics.start();
+		AuditReport report = NightAudit.run(rooms, NightAudit.DEFAULT_BAND_WIDTH);
+		AUDIT_METRICS.success(start);
+
+		// Rooms and charges by status and type of room.
+		ScreenManager.printf("  %-16s %12s %12s %16s%n", "STATUS", "STANDARD", "PREMIUM", "CHARGES");
+		char[] statuses = {'A', 'B', 'U'};
+		String[] statusNames = {"Available", "Booked", "Un-cleaned"};
+		for(int i=0; i < statuses.length; i++)
+		{
+			ScreenManager.printf("  %-16s %,12d %,12d   $ %,12.2f%n", statusNames[i], report.getCount(AuditReport.STANDARD, statuses[i]),
+				report.getCount(AuditReport.PREMIUM, statuses[i]), report.getCharges(statuses[i]));
+		}
+		ScreenManager.printf("  %-16s %,12d%n", "Total rooms", report.getRooms());
+		ScreenManager.printf("  %-16s $ %,10.2f%n", "Discounts given", report.getDiscounts());
+		ScreenManager.printf("  %-16s $ %,10.2f%n", "Vouchers held", report.getVouchers());
+		ScreenManager.println();
+
+		// Occupancy and nightly revenue by rate band, leaving out empty bands.
+		ScreenManager.printf("  %-22s %12s %12s %10s %16s%n", "RATE BAND", "ROOMS", "BOOKED", "OCCUPANCY", "NIGHTLY REVENUE");
+		for(int i=0; i < AuditReport.BANDS; i++)
+		{
+			long bandRooms = report.getBandRooms(i);
+			if(bandRooms > 0)
+			{
+				ScreenManager.printf("  %-22s %,12d %,12d %9.1f%%   $ %,12.2f%n", report.getBandName(i), bandRooms, report.getBandBooked(i),
+					report.getBandBooked(i) * 100.0 / bandRooms, report.getBandNightlyRevenue(i));
+			}
+		}
+		ScreenManager.println();
+
+		// Anomalies, by kind and then by room.
+		if(report.getAnomalyCount() == 0)
+		{
+			ScreenManager.printNotice("No anomalies found");
+		}
+		else
+		{
+			for(int i=0; i < AuditReport.ANOMALY_KINDS; i++)
+			{
+				if(report.getAnomalyCount(i) > 0)
+				{
+					ScreenManager.printf("  %-56s %,10d%n", AuditReport.describe(i), report.getAnomalyCount(i));
+				}
+			}
+			ScreenManager.println();
+			for(AuditReport.Anomaly anomaly : report.getAnomalies())
+			{
+				ScreenManager.println("  " + anomaly);
+			}
+			if(report.getAnomalyCount() > report.getAnomalies().size())
+			{
+				ScreenManager.println("  ... and " + (report.getAnomalyCount() - report.getAnomalies().size()) + " more");
+			}
+			ScreenManager.printWarning(report.getAnomalyCount() + " anomalies found");
+		}
+		ScreenManager.printNotice(String.format("Audited %,d rooms in %.1f ms", report.getRooms(), report.getElapsedNanos() / 1e6));
+		ScreenManager.printFooter();
+		ScreenManager.pause();
+	}
+
+	// Method to handle the console interface to find the rooms a customer currently
+	// has booked, using the registry's customer index.
+	public static void findBookingsByCustomer(Room[] rooms)
+	{
+		ScreenManager.clear();
+		ScreenManager.printProgramTitle();
+		ScreenManager.printHeader("Find bookings by customer");
+
+		String customerId = readCustomerId(1);
+		RoomRegistry roomRegistry = getRegistry(rooms);
+		long start = OperationMetrics.start();
+		int[] matches = roomRegistry.findByCustomer(customerId);
+		CUSTOMER_METRICS.success(start);
+		for(int i=0; i < matches.length; i++)
+		{
+			roomRegistry.get(matches[i]).printRow(i == 0);
+		}
+
+		if(matches.length == 0)
+		{
+			ScreenManager.printNotice("Customer " + customerId + " has no rooms booked");
+		}
+		else
+		{
+			ScreenManager.printNotice("Customer " + customerId + " has " + matches.length + " room(s) booked");
+		}
+		ScreenManager.printFooter();
+		ScreenManager.pause();
+	}
+
+	// Method to handle the console interface to list the stays checked out between
+	// two dates, in one room or every room, from the booking history. Only the
+	// months between the two dates are read.
+	public static void viewBookingHistory(Room[] rooms)
+	{
+		ScreenManager.clear();
+		ScreenManager.printProgramTitle();
+		ScreenManager.printHeader("View booking history");
+
+		getRegistry(rooms);
+		ScreenManager.printPrompt(1, "Enter room ID, or * for every room");
+		String roomId = ScreenManager.readToken().toUpperCase();
+		ScreenManager.println();
+		long firstDay = readDay(2, "Enter first checkout date (dd/mm/yyyy)", EpochDays.NO_DAY);
+		long lastDay = readDay(3, "Enter last checkout date (dd/mm/yyyy)", firstDay);
+
+		if(history == null)
+		{
+			ScreenManager.printWarning("The booking history could not be opened");
+			ScreenManager.printFooter();
+			ScreenManager.pause();
+			return;
+		}
+
+		// Error handeling for file operation.
+		long start = OperationMetrics.start();
+		try
+		{
+			List<ArchivedStay> stays = roomId.equals("*") ? history.findCheckedOut(firstDay, lastDay) : history.findByRoom(roomId, firstDay, lastDay);
+			HISTORY_METRICS.success(start);
+			if(!stays.isEmpty())
+			{
+				ScreenManager.printf("  %-12s %-10s %-12s %-12s %-12s %12s %12s%n", "ROOM ID", "CUSTOMER", "ARRIVED", "BOOKED UNTIL", "CHECKED OUT", "CHARGE", "DISCOUNT");
+			}
+			for(int i=0; i < stays.size(); i++)
+			{
+				ArchivedStay stay = stays.get(i);
+				ScreenManager.printf("  %-12s %-10s %-12s %-12s %-12s $ %,10.2f $ %,10.2f%n", stay.getRoomId(),
+					stay.getCustomerId() == null ? " - " : stay.getCustomerId(), EpochDays.format(stay.getBookingStartTimestamp()),
+					EpochDays.format(stay.getBookingEndTimestamp()), EpochDays.format(stay.getCheckoutTimestamp()), stay.getCharge(), stay.getDiscount());
+			}
+			ScreenManager.printNotice("Found " + stays.size() + " stay(s) checked out from " + EpochDays.formatDay(firstDay) + " to "
+				+ EpochDays.formatDay(lastDay) + ", searching " + history.getPartitionsSearched() + " of " + history.getPartitions() + " month(s)");
+		}
+		catch(IOException e)
+		{
+			HISTORY_METRICS.failure(start);
+			ScreenManager.printWarning("Could not read the booking history - IO problem");
+		}
+		ScreenManager.printFooter();
+		ScreenManager.pause();
+	}
+
+	// Method to read a date, which cannot be before the earliest day given (NO_DAY
+	// for any day).
+	private static long readDay(int promptNumber, String prompt, long earliestDay)
+	{
+		long day;
+		do
+		{
+			ScreenManager.printPrompt(promptNumber, prompt);
+			day = EpochDays.parseDay(ScreenManager.readToken());
+			ScreenManager.println();
+			if(day == EpochDays.NO_DAY)
+			{
+				ScreenManager.printWarning("That is not a valid date, please try again");
+			}
+			else if(day < earliestDay)
+			{
+				ScreenManager.printWarning("That date is before " + EpochDays.formatDay(earliestDay) + ", please try again");
+				day = EpochDays.NO_DAY;
+			}
+		}
+		while(day == EpochDays.NO_DAY);
+		return day;
+	}
+
+	// Method to handle the console interface to quote a stay of a number of nights,
+	// with an optional voucher, in a single room. Quotes are kept in the quote
+	// cache, so asking for the same one again during a call is a lookup.
+	public static void quoteRoom(Room[] rooms)
+	{
+		ScreenManager.clear();
+		ScreenManager.printProgramTitle();
+		ScreenManager.printHeader("Quote a room");
+
+		Room room = getRegistry(rooms).get(roomSelection(rooms, 1));
+		int nights = readNights(2);
+		double voucherAmount = room instanceof PremiumRoom ? readVoucher(3) : 0.00;
+
+		long start = OperationMetrics.start();
+		Quote quote = QUOTE_CACHE.quote(room, nights, voucherAmount);
+		QUOTE_METRICS.success(start);
+
+		ScreenManager.printf("  %-28s %s%n", "Room:", room.getId() + " - " + room.getDescription());
+		ScreenManager.printf("  %-28s $ %,10.2f%n", "Charge for " + nights + " night(s):", quote.getCharge());
+		ScreenManager.printf("  %-28s $ %,10.2f%n", "Discount:", quote.getDiscount());
+		ScreenManager.printf("  %-28s $ %,10.2f%n", "Price:", quote.getPrice());
+		ScreenManager.println();
+		ScreenManager.println("  Quote cache: " + QUOTE_CACHE);
+		ScreenManager.printFooter();
+		ScreenManager.pause();
+	}
+
+	// Method to read a voucher amount, where 0 means there is no voucher.
+	private static double readVoucher(int promptNumber)
+	{
+		while(true)
+		{
+			try
+			{
+				ScreenManager.printPrompt(promptNumber, "Voucher amount (0 for none)");
+				double voucherAmount = ScreenManager.readDouble();
+				ScreenManager.println();
+				if(voucherAmount >= 0)
+				{
+					return voucherAmount;
+				}
+			}
+
+			// Non-numeric values fall through to the warning below.
+			catch(java.util.InputMismatchException e)
+			{
+			}
+			ScreenManager.printWarning("That is not a valid voucher amount, please try again");
+		}
+	}
+
+	// Method to handle the console interface to quote a stay of a number of nights,
+	// with an optional voucher, in every premium room at once.
+	public static void quotePremiumRooms(Room[] rooms)
+	{
+		ScreenManager.clear();
+		ScreenManager.printProgramTitle();
+		ScreenManager.printHeader("Quote premium rooms");
+
+		int nights = readNights(1);
+		double voucherAmount = readVoucher(2);
+
+		// Quote every premium room in one pass over the engine's arrays.
+		QuoteEngine engine = getQuoteEngine(rooms);
+		double[] discounts = new double[engine.size()];
+		double[] prices = new double[engine.size()];
+		long start = OperationMetrics.start();
+		engine.quote(nights, voucherAmount, discounts, prices);
+		QUOTE_METRICS.success(start);
+
+		if(engine.size() == 0)
+		{
+			ScreenManager.printNotice("There are no premium rooms");
+		}
+		else
+		{
+			ScreenManager.printf("  %-12s %-34s %10s %12s %12s %12s%n", "ROOM ID", "DESCRIPTION", "RATE", "CHARGE", "DISCOUNT", "PRICE");
+			for(int i=0; i < engine.size(); i++)
+			{
+				PremiumRoom room = engine.getRoom(i);
+				ScreenManager.printf("  %-12s %-34s $ %,8.2f $ %,10.2f $ %,10.2f $ %,10.2f%n", room.getId(), room.getDescription(),
+					room.getDailyRate(), prices[i] + discounts[i], discounts[i], prices[i]);
+			}
+			ScreenManager.printNotice("Quoted " + engine.size() + " premium room(s) for " + nights + " night(s)");
+		}
+		ScreenManager.printFooter();
+		ScreenManager.pause();
+	}
+
+	// Method to handle the console interface to search for rooms that are free for
+	// a range of nights, within a price range.
+	public static void searchAvailableRooms(Room[] rooms)
+	{
+		ScreenManager.clear();
+		ScreenManager.printProgramTitle();
+		ScreenManager.printHeader("Search for free rooms");
+
+		// Read the first night, which cannot be in the past.
+		long firstNight;
+		do
+		{
+			ScreenManager.printPrompt(1, "Enter first night (dd/mm/yyyy)");
+			firstNight = EpochDays.parseDay(ScreenManager.readToken());
+			ScreenManager.println();
+			if(firstNight == EpochDays.NO_DAY)
+			{
+				ScreenManager.printWarning("That is not a valid date, please try again");
+			}
+			else if(firstNight < EpochDays.today())
+			{
+				ScreenManager.printWarning("That night has already passed, please try again");
+				firstNight = EpochDays.NO_DAY;
+			}
+		}
+		while(firstNight == EpochDays.NO_DAY);
+
+		int nights = readNights(2);
+
+		// Read the price bracket, both of which must be above 0.
+		double minPrice = 0.00;
+		double maxPrice = 0.00;
+		boolean validResponse = false;
+		do
+		{
+			try
+			{
+				ScreenManager.printPrompt(3, "Enter minimum price range");
+				minPrice = ScreenManager.readDouble();
+				ScreenManager.println();
+				ScreenManager.printPrompt(4, "Enter maximum price range");
+				maxPrice = ScreenManager.readDouble();
+				ScreenManager.println();
+				validResponse = minPrice > 0 && maxPrice > 0;
+			}
+			catch(java.util.InputMismatchException e)
+			{
+				validResponse = false;
+			}
+			if(!validResponse)
+			{
+				ScreenManager.printWarning("That is not a valid price range");
+			}
+		}
+		while(!validResponse);
+
+		// Find the free rooms using the registry's availability index, cheapest first.
+		RoomRegistry roomRegistry = getRegistry(rooms);
+		long start = OperationMetrics.start();
+		int[] matches = roomRegistry.searchAvailable(firstNight, nights, minPrice, maxPrice);
+		AVAILABILITY_METRICS.success(start);
+		for(int i=0; i < matches.length; i++)
+		{
+			roomRegistry.get(matches[i]).printRow(i == 0);
+		}
+
+		if(matches.length == 0)
+		{
+			ScreenManager.printNotice("No rooms are free for those nights in that price range");
+		}
+		else
+		{
+			ScreenManager.printNotice("Total of " + matches.length + " room(s) free from " + EpochDays.formatDay(firstNight) + " to " + EpochDays.formatDay(firstNight + nights));
+		}
+		ScreenManager.printFooter();
+		ScreenManager.pause();
+
+	}
+
+	// Method to handle the console interface to list the rooms with given statuses,
+	// of a given type, within a price range.
+	public static void filterRooms(Room[] rooms)
+	{
+		ScreenManager.clear();
+		ScreenManager.printProgramTitle();
+		ScreenManager.printHeader("Filter rooms");
+
+		// Read the statuses to show, as any of A, B and U, or * for all of them.
+		String statuses;
+		while(true)
+		{
+			ScreenManager.printPrompt(1, "Statuses to show (any of A, B, U, or * for all)");
+			statuses = ScreenManager.readToken().toUpperCase();
+			ScreenManager.println();
+			if(statuses.equals("*"))
+			{
+				statuses = null;
+				break;
+			}
+			if(statuses.matches("[ABU]+"))
+			{
+				break;
+			}
+			ScreenManager.printWarning("That is not a valid list of statuses, please try again");
+		}
+
+		// Read the type of room to show.
+		int roomClasses = 0;
+		while(roomClasses == 0)
+		{
+			ScreenManager.printPrompt(2, "Room type (S = standard, P = premium, * = all)");
+			String type = ScreenManager.readToken().toUpperCase();
+			ScreenManager.println();
+			if(type.equals("S"))
+			{
+				roomClasses = RoomRegistry.STANDARD_ROOMS;
+			}
+			else if(type.equals("P"))
+			{
+				roomClasses = RoomRegistry.PREMIUM_ROOMS;
+			}
+			else if(type.equals("*"))
+			{
+				roomClasses = RoomRegistry.ALL_ROOMS;
+			}
+			else
+			{
+				ScreenManager.printWarning("That is not a valid room type, please try again");
+			}
+		}
+
+		// Read the price bracket, where a maximum of 0 means there is no maximum.
+		double minPrice = 0.00;
+		double maxPrice = 0.00;
+		boolean validResponse = false;
+		do
+		{
+			try
+			{
+				ScreenManager.printPrompt(3, "Enter minimum price (0 for any)");
+				minPrice = ScreenManager.readDouble();
+				ScreenManager.println();
+				ScreenManager.printPrompt(4, "Enter maximum price (0 for any)");
+				maxPrice = ScreenManager.readDouble();
+				ScreenManager.println();
+				if(maxPrice == 0)
+				{
+					maxPrice = Double.MAX_VALUE;
+				}
+				validResponse = minPrice >= 0 && maxPrice >= minPrice;
+			}
+			catch(java.util.InputMismatchException e)
+			{
+				validResponse = false;
+			}
+			if(!validResponse)
+			{
+				ScreenManager.printWarning("That is not a valid price range");
+			}
+		}
+		while(!validResponse);
+
+		// Find the rooms using the registry's status and class bitmaps, in slot order.
+		RoomRegistry roomRegistry = getRegistry(rooms);
+		long start = OperationMetrics.start();
+		int[] matches = roomRegistry.filter(statuses, roomClasses, minPrice, maxPrice);
+		FILTER_METRICS.success(start);
+		for(int i=0; i < matches.length; i++)
+		{
+			roomRegistry.get(matches[i]).printRow(i == 0);
+		}
+
+		if(matches.length == 0)
+		{
+			ScreenManager.printNotice("No rooms match those details");
+		}
+		else
+		{
+			ScreenManager.printNotice("Total of " + matches.length + " room(s) found");
+		}
+		ScreenManager.printFooter();
+		ScreenManager.pause();
+
+	}
+
+	// Method to view all room informatuon in a table format, one page at a time.
+	// Only the rows on the current page are rendered, read from the registry
+	// starting at a cursor, so the first page appears just as quickly however
+	// many rooms there are. The user can move between pages or jump to a room.
+	public static void viewRooms(Room[] rooms)
+	{
+		RoomRegistry roomRegistry = getRegistry(rooms);
+		int numberOfRooms = roomRegistry.size();
+
+		// The registry slot of the first room on the page.
+		int cursor = 0;
+
+		// Loop until the user goes back to the main menu.
+		boolean viewing = true;
+		String warning = null;
+		while(viewing)
+		{
+			int last = Math.min(cursor + PAGE_SIZE, numberOfRooms);
+
+			ScreenManager.clear();
+			ScreenManager.printProgramTitle();
+			ScreenManager.printHeader("Status of all rooms");
+
+			// Print the rooms on this page, with table headings on the first row.
+			for(int slot = cursor; slot < last; slot++)
+			{
+				roomRegistry.get(slot).printRow(slot == cursor);
+			}
+			ScreenManager.println();
+			ScreenManager.printf("  Rooms %d to %d of %d (page %d of %d)\n", Math.min(cursor + 1, numberOfRooms), last, numberOfRooms, cursor / PAGE_SIZE + 1, Math.max(1, (numberOfRooms + PAGE_SIZE - 1) / PAGE_SIZE));
+			if(warning != null)
+			{
+				ScreenManager.printWarning(warning);
+				warning = null;
+			}
+			else
+			{
+				ScreenManager.println();
+			}
+			ScreenManager.printFooter();
+
+			// Read the next page command from keyboard.
+			ScreenManager.printPrompt(1, "[enter/n] next page, [p] previous, [f] first, [l] last, room ID to jump to, [q] main menu");
+			String command = ScreenManager.readLine().trim().toUpperCase();
+
+			// Next page, stopping at the last page.
+			if(command.isEmpty() || command.equals("N"))
+			{
+				if(cursor + PAGE_SIZE < numberOfRooms)
+				{
+					cursor += PAGE_SIZE;
+				}
+			}
+
+			// Previous page.
+			else if(command.equals("P"))
+			{
+				cursor = Math.max(0, cursor - PAGE_SIZE);
+			}
+
+			// First and last pages.
+			else if(command.equals("F"))
+			{
+				cursor = 0;
+			}
+			else if(command.equals("L"))
+			{
+				cursor = Math.max(0, numberOfRooms - 1) / PAGE_SIZE * PAGE_SIZE;
+			}
+
+			// Back to the main menu.
+			else if(command.equals("Q"))
+			{
+				viewing = false;
+			}
+
+			// Otherwise jump to the page holding the entered room ID, using the
+			// registry's hash index.
+			else
+			{
+				int slot = roomRegistry.indexOf(command);
+				if(slot == -1)
+				{
+					warning = "Room not found";
+				}
+				else
+				{
+					cursor = slot / PAGE_SIZE * PAGE_SIZE;
+				}
+			}
+		}
+	}
+
+	// Method called by other Menu class methods to allow a user to select a room.
+	// Returns the array index of the matching room.
+	public static int roomSelection(Room[] rooms, int promptNumber)
+	{
+
 		// Variable used to store the associated array index.
 		int roomArrayIndex = -1;
 
@@ -528,8 +1559,7 @@ public class Menu
 
 			// Prompt for room ID, and read it from the keyboard.
 			ScreenManager.printPrompt(promptNumber, "Enter room ID (or ? to show all rooms)");
-			Scanner console = new Scanner(System.in);
-			roomId = console.next();
+			roomId = ScreenManager.readToken();
 
 			// Convert the input to upper case, so the input is not case sensitive.
 			roomId = roomId.toUpperCase();
@@ -539,25 +1569,26 @@ public class Menu
 			{
 				for(int i=0; i < rooms.length; i++)
 				{
-					System.out.println();
-					System.out.printf("  %S %30s %15s", rooms[i].getId(), rooms[i].getDescription(), rooms[i].getReadableStatus());
+					ScreenManager.println();
+					ScreenManager.printf("  %S %30s %15s", rooms[i].getId(), rooms[i].getDescription(), rooms[i].getReadableStatus());
 				}
-				System.out.println();
-				System.out.println();
+				ScreenManager.println();
+				ScreenManager.println();
 			}
 
-			// Now to check that the entered room actually exists.
-			boolean found = false;
-			for(int i=0; i < rooms.length; i++)
+			// Now to check that the entered room actually exists, using the registry's
+			// hash index rather than searching every room.
+			RoomRegistry roomRegistry = getRegistry(rooms);
+			long start = OperationMetrics.start();
+			roomArrayIndex = roomRegistry.indexOf(roomId);
+			boolean found = roomArrayIndex != -1;
+			if(found)
 			{
-				if(rooms[i].getId().equals(roomId))
-				{
-
-					// Set the array index to return to the method that called this.
-					roomArrayIndex = i;
-					found = true;
-					break;
-				}
+				LOOKUP_METRICS.success(start);
+			}
+			else if(!roomId.equals("?"))
+			{
+				LOOKUP_METRICS.failure(start);
 			}
 
 			// If the room ID does not exist, re-iterate the loop.
@@ -579,32 +1610,205 @@ public class Menu
 
 	}
 
+	// Method to fetch the registry for the rooms array, building it the first time
+	// the array is seen. Building the registry also opens the booking journal, which
+	// replays any changes that were not saved before the program last stopped.
+	public static RoomRegistry getRegistry(Room[] rooms)
+	{
+		if(registry == null || !registry.isBackedBy(rooms))
+		{
+			registry = new RoomRegistry(rooms);
+			quoteEngine = null;
+			QUOTE_CACHE.clear();
+			openJournal();
+			if(history == null)
+			{
+				openHistory();
+			}
+		}
+		return registry;
+	}
+
+	// Method to fetch the quote engine for the rooms array, building it the first
+	// time a quote is asked for.
+	static QuoteEngine getQuoteEngine(Room[] rooms)
+	{
+		getRegistry(rooms);
+		if(quoteEngine == null)
+		{
+			quoteEngine = new QuoteEngine(rooms);
+		}
+		return quoteEngine;
+	}
+
+	// Method to open the booking journal for the current registry.
+	private static void openJournal()
+	{
+
+		// Error handeling for file operation.
+		try
+		{
+			if(journal != null)
+			{
+				journal.close();
+			}
+			journal = BookingJournal.open(JOURNAL_FILE, ROOMS_FILE, registry, JOURNAL_BATCH_SIZE, JOURNAL_MAX_WAIT_MICROS);
+		}
+
+		// Carry on without a journal, changes will only be saved on exit.
+		catch(IOException e)
+		{
+			journal = null;
+			ScreenManager.printWarning("Could not open the booking journal - changes will only be saved on exit");
+			if(interactive)
+			{
+				ScreenManager.pause();
+			}
+		}
+	}
+
+	// Method to open the booking history, which is kept for the life of the program.
+	private static void openHistory()
+	{
+
+		// Error handeling for file operation.
+		try
+		{
+			history = BookingHistory.open(HISTORY_DIRECTORY);
+		}
+
+		// Carry on without a history, stays will not be archived.
+		catch(IOException e)
+		{
+			history = null;
+			ScreenManager.printWarning("Could not open the booking history - stays will not be archived");
+			if(interactive)
+			{
+				ScreenManager.pause();
+			}
+		}
+	}
+
+	// Method to record a change to a room in the booking journal. A checkout also
+	// archives the stay to the booking history, before the room can be booked again.
+	static void recordChange(byte operation, Room room)
+	{
+		if(journal != null)
+		{
+
+			// Error handeling for file operation.
+			try
+			{
+				journal.append(operation, room);
+			}
+			catch(IOException e)
+			{
+				ScreenManager.printWarning("Could not write to the booking journal - IO problem");
+			}
+		}
+		if(operation == BookingJournal.CHECKOUT && history != null)
+		{
+
+			// Error handeling for file operation.
+			try
+			{
+				history.archive(room);
+			}
+			catch(IOException e)
+			{
+				ScreenManager.printWarning("Could not archive the stay to the booking history - IO problem");
+			}
+		}
+	}
+
+	// Method to record a reservation being made (RESERVE) or cancelled (UNRESERVE)
+	// in the booking journal.
+	static void recordReservation(byte operation, Room room, Reservation reservation)
+	{
+		if(journal != null)
+		{
+
+			// Error handeling for file operation.
+			try
+			{
+				journal.appendReservation(operation, room, reservation);
+			}
+			catch(IOException e)
+			{
+				ScreenManager.printWarning("Could not write to the booking journal - IO problem");
+			}
+		}
+	}
+
+	// Method to record the same change to several rooms in the booking journal.
+	private static void recordChanges(byte operation, List<Room> changedRooms)
+	{
+		if(journal != null)
+		{
+
+			// Error handeling for file operation.
+			try
+			{
+				journal.appendAll(operation, changedRooms);
+			}
+			catch(IOException e)
+			{
+				ScreenManager.printWarning("Could not write to the booking journal - IO problem");
+			}
+		}
+	}
+
 	// Method to room and booking information to file.
 	public static void saveRooms(Room[] rooms)
 	{
 
 		// Error handeling for file operation.
+		long start = OperationMetrics.start();
 		try
 		{
 
-			// Output serialised objects to file, and close the file.
-			ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream("rooms.dat"));
-			out.writeObject(rooms);
-			out.close();
+			// Output the rooms to a binary snapshot file. When the journal is open for
+			// these rooms it saves the snapshot itself, then empties the journal. The
+			// registry is checked rather than fetched, so saving never rebuilds it.
+			if(journal != null && registry != null && registry.isBackedBy(rooms))
+			{
+				journal.checkpoint();
+			}
+			else
+			{
+				RoomSnapshot.save(rooms, ROOMS_FILE);
+			}
+			SAVE_METRICS.success(start);
 		}
 
 		// Catch for file not found errors.
 		catch(FileNotFoundException e)
 		{
+			SAVE_METRICS.failure(start);
 			ScreenManager.printWarning("Could not save data - file not found");
 		}
 
 		// Catch for IO errors.
 		catch(IOException e)
 		{
+			SAVE_METRICS.failure(start);
 			ScreenManager.printWarning("Could not save data - IO problem");
 		}
 
+		// Save the booking history's index, so it does not need to be rebuilt when the
+		// program next starts. The archived stays themselves are already on disk.
+		if(history != null)
+		{
+			try
+			{
+				history.checkpoint();
+			}
+			catch(IOException e)
+			{
+				ScreenManager.printWarning("Could not save the booking history index - IO problem");
+			}
+		}
+
 	}
 
 
@@ -612,21 +1816,40 @@ public class Menu
 	public static Room[] loadRooms() throws FileNotFoundException, IOException, ClassNotFoundException
 	{
 
-		// Loan the rooms array from a serialised file.
-		ObjectInputStream in = new ObjectInputStream(new FileInputStream("rooms.dat"));
-		Room[] rooms = (Room[]) in.readObject();
-		in.close();
+		Room[] rooms = null;
+		long start = OperationMetrics.start();
+		try
+		{
+
+			// Load the rooms array from a snapshot file.
+			if(RoomSnapshot.isSnapshot(ROOMS_FILE))
+			{
+				rooms = RoomSnapshot.load(ROOMS_FILE);
+			}
+
+			// Files saved by older versions of the program hold a serialised rooms array,
+			// these are read as before and converted to a snapshot on the next save.
+			else
+			{
+				ObjectInputStream in = new ObjectInputStream(new FileInputStream(ROOMS_FILE));
+				rooms = (Room[]) in.readObject();
+				in.close();
+			}
+			return rooms;
+		}
 
-		// Loop through each room, and correct the booking start and end times.
-		// See the Room source file for more information.
-		for(int i=0; i < rooms.length; i++)
+		// Count the load in the metrics however it ends.
+		finally
 		{
-			if(!rooms[i].roomAvailable())
+			if(rooms != null)
+			{
+				LOAD_METRICS.success(start);
+			}
+			else
 			{
-				rooms[i].setCorrectDates();
+				LOAD_METRICS.failure(start);
 			}
 		}
-		return rooms;
 
 	}
 }
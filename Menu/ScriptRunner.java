@@ -0,0 +1,681 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Menu/ScriptRunner.java
+// Description:
+// 	This class, ScriptRunner, is designed to be statically called to run
+// 	commands read from a script (a file or standard input), one per line,
+// 	without the console menus. Output is tab separated, one line per result,
+// 	so that it can be read by other programs.
+//
+// 	Commands (case insensitive, blank lines and lines starting with # are
+// 	ignored, dates are entered as 2017-12-25 or 25/12/2017):
+// 		book <room ID> <customer ID> <nights> [voucher amount]
+// 		checkout <room ID>
+// 		clean <room ID>
+// 		search <minimum price> <maximum price>
+// 		available <first night> <nights> <minimum price> <maximum price>
+// 		filter <statuses, such as AU, or *> <standard, premium or all> [<minimum price> <maximum price>]
+// 		view [room ID]
+// 		reserve <room ID> <customer ID> <first night> <nights>
+// 		unreserve <room ID> <customer ID> <first night>
+// 		reservations <room ID>
+// 		save
+// 		metrics
+// 		dashboard
+// 		audit [rate band width]
+// 		quote <nights> [voucher amount]
+// 		price <room ID> <nights> [voucher amount]
+// 		customer <customer ID>
+// 		history <room ID or *> <first checkout date> <last checkout date>
+//
+// 	Output:
+// 		OK	<command>	<room ID or count>	[details]
+// 		METRIC	<operation>	<ok>	<failed>	<retries>	<mean ns>	<p50 ns>	<p99 ns>	<max ns>
+// 		ROOM	<room ID>	<status>	<daily rate>	<customer ID>	<booked until>	<charge>
+// 		RESERVATION	<room ID>	<customer ID>	<first night>	<nights>
+// 		DASHBOARD	<rooms>	<available>	<booked>	<un-cleaned>	<tonight's revenue>	<booked revenue>	<checkouts>	<billed>	<discounts>
+// 		AUDIT	status	<status>	<standard rooms>	<premium rooms>	<charges>
+// 		AUDIT	band	<lowest rate>	<rooms>	<booked>	<nightly revenue>
+// 		AUDIT	premium	<discounts given>	<vouchers held>
+// 		ANOMALY	<room ID>	<description>
+// 		QUOTE	<room ID>	<daily rate>	<charge>	<discount>	<price>
+// 		PRICE	<room ID>	<nights>	<charge>	<discount>	<price>
+// 		STAY	<room ID>	<customer ID>	<arrived>	<booked until>	<checked out>	<charge>	<discount>
+// 		CACHE	quotes	<held>	<capacity>	<hits>	<misses>	<stale>	<evictions>
+// 		ERR	<line number>	<command>	<message>
+//
+package Menu;
+
+import Room.Room;
+import Room.RoomRegistry;
+import Room.InventoryTotals;
+import Room.AuditReport;
+import Room.NightAudit;
+import Room.QuoteEngine;
+import Room.QuoteCache;
+import Room.Quote;
+import Room.CustomerId;
+import Room.BookingRequest;
+import Room.BookingResult;
+import Room.Reservation;
+import Room.AvailabilityCalendar;
+import Storage.BookingJournal;
+import Storage.ArchivedStay;
+import utilities.EpochDays;
+import utilities.LatencyHistogram;
+import utilities.Metrics;
+import utilities.OperationMetrics;
+import java.io.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+public class ScriptRunner
+{
+
+	// Method to run every command read from a script against the rooms, returning
+	// the number of commands that failed.
+	public static int run(Room[] rooms, BufferedReader in, PrintStream out) throws IOException
+	{
+		Menu.interactive = false;
+		RoomRegistry registry = Menu.getRegistry(rooms);
+
+		int failures = 0;
+		int lineNumber = 0;
+		String line;
+		while((line = in.readLine()) != null)
+		{
+			lineNumber++;
+			line = line.trim();
+			if(line.isEmpty() || line.startsWith("#"))
+			{
+				continue;
+			}
+
+			String[] words = line.split("\\s+");
+			String command = words[0].toLowerCase();
+			String error = runCommand(rooms, registry, command, words, out);
+			if(error != null)
+			{
+				out.printf("ERR\t%d\t%s\t%s%n", lineNumber, command, error);
+				failures++;
+			}
+		}
+		out.flush();
+		return failures;
+	}
+
+	// Method to run a single command, returning a description of the problem if it
+	// failed, or null if it succeeded.
+	private static String runCommand(Room[] rooms, RoomRegistry registry, String command, String[] words, PrintStream out)
+	{
+
+		// Error handeling for non-numeric nights, prices and voucher amounts.
+		try
+		{
+			switch(command)
+			{
+				case "book":
+					return book(rooms, words, out);
+
+				case "checkout":
+					return checkout(registry, words, out);
+
+				case "clean":
+					return clean(registry, words, out);
+
+				case "search":
+					return search(registry, words, out);
+
+				case "available":
+					return available(registry, words, out);
+
+				case "filter":
+					return filter(registry, words, out);
+
+				case "view":
+					return view(registry, words, out);
+
+				case "reserve":
+					return reserve(registry, words, out);
+
+				case "unreserve":
+					return unreserve(registry, words, out);
+
+				case "reservations":
+					return reservations(registry, words, out);
+
+				case "save":
+					if(words.length != 1)
+					{
+						return "Usage: save";
+					}
+					Menu.saveRooms(rooms);
+					out.printf("OK\tsave\t%d%n", registry.size());
+					return null;
+
+				case "metrics":
+					return metrics(words, out);
+
+				case "dashboard":
+					return dashboard(registry, words, out);
+
+				case "audit":
+					return audit(rooms, words, out);
+
+				case "quote":
+					return quote(rooms, words, out);
+
+				case "price":
+					return price(registry, words, out);
+
+				case "customer":
+					return customer(registry, words, out);
+
+				case "history":
+					return history(words, out);
+
+				default:
+					return "Unknown command";
+			}
+		}
+		catch(NumberFormatException e)
+		{
+			return "Not a valid number: " + e.getMessage();
+		}
+	}
+
+	// book <room ID> <customer ID> <nights> [voucher amount]
+	private static String book(Room[] rooms, String[] words, PrintStream out)
+	{
+		if(words.length != 4 && words.length != 5)
+		{
+			return "Usage: book <room ID> <customer ID> <nights> [voucher amount]";
+		}
+		double voucherAmount = words.length == 5 ? Double.parseDouble(words[4]) : 0.00;
+		BookingRequest request = new BookingRequest(words[1], words[2], Integer.parseInt(words[3]), voucherAmount);
+
+		// Book through the group booking method, which validates and journals it.
+		BookingResult result = Menu.bookRooms(rooms, Collections.singletonList(request), true).get(0);
+		if(!result.isBooked())
+		{
+			return result.getMessage();
+		}
+		out.printf(Locale.ROOT, "OK\tbook\t%s\t%s\t%d%n", request.getRoomId(), request.getCustomerId(), request.getNightsRequired());
+		return null;
+	}
+
+	// dashboard
+	private static String dashboard(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 1)
+		{
+			return "Usage: dashboard";
+		}
+		InventoryTotals totals = registry.getTotals();
+		out.printf(Locale.ROOT, "DASHBOARD\t%d\t%d\t%d\t%d\t%.2f\t%.2f\t%d\t%.2f\t%.2f%n", registry.size(),
+			totals.getCount('A'), totals.getCount('B'), totals.getCount('U'), totals.getNightlyRevenue(),
+			totals.getBookedRevenue(), totals.getCheckouts(), totals.getBilledRevenue(), totals.getDiscounts());
+		out.printf("OK\tdashboard\t%d%n", registry.size());
+		return null;
+	}
+
+	// audit [rate band width]
+	private static String audit(Room[] rooms, String[] words, PrintStream out)
+	{
+		if(words.length > 2)
+		{
+			return "Usage: audit [rate band width]";
+		}
+		double bandWidth = words.length == 2 ? Double.parseDouble(words[1]) : NightAudit.DEFAULT_BAND_WIDTH;
+		if(!(bandWidth > 0))
+		{
+			return "Rate band width must be above 0";
+		}
+		long start = OperationMetrics.start();
+		AuditReport report = NightAudit.run(rooms, bandWidth);
+		Menu.AUDIT_METRICS.success(start);
+
+		char[] statuses = {'A', 'B', 'U'};
+		for(int i=0; i < statuses.length; i++)
+		{
+			out.printf(Locale.ROOT, "AUDIT\tstatus\t%c\t%d\t%d\t%.2f%n", statuses[i], report.getCount(AuditReport.STANDARD, statuses[i]),
+				report.getCount(AuditReport.PREMIUM, statuses[i]), report.getCharges(statuses[i]));
+		}
+		for(int i=0; i < AuditReport.BANDS; i++)
+		{
+			if(report.getBandRooms(i) > 0)
+			{
+				out.printf(Locale.ROOT, "AUDIT\tband\t%.2f\t%d\t%d\t%.2f%n", i * bandWidth, report.getBandRooms(i), report.getBandBooked(i),
+					report.getBandNightlyRevenue(i));
+			}
+		}
+		out.printf(Locale.ROOT, "AUDIT\tpremium\t%.2f\t%.2f%n", report.getDiscounts(), report.getVouchers());
+		for(AuditReport.Anomaly anomaly : report.getAnomalies())
+		{
+			out.printf("ANOMALY\t%s\t%s%n", anomaly.getRoomId(), AuditReport.describe(anomaly.getKind()));
+		}
+		out.printf("OK\taudit\t%d\t%d%n", report.getRooms(), report.getAnomalyCount());
+		return null;
+	}
+
+	// quote <nights> [voucher amount]
+	private static String quote(Room[] rooms, String[] words, PrintStream out)
+	{
+		if(words.length != 2 && words.length != 3)
+		{
+			return "Usage: quote <nights> [voucher amount]";
+		}
+		int nights = Integer.parseInt(words[1]);
+		double voucherAmount = words.length == 3 ? Double.parseDouble(words[2]) : 0.00;
+		if(nights < 1 || nights > AvailabilityCalendar.MAX_NIGHTS)
+		{
+			return "Not a valid number of nights";
+		}
+		if(voucherAmount < 0)
+		{
+			return "Voucher amount cannot be negative";
+		}
+
+		QuoteEngine engine = Menu.getQuoteEngine(rooms);
+		double[] discounts = new double[engine.size()];
+		double[] prices = new double[engine.size()];
+		long start = OperationMetrics.start();
+		engine.quote(nights, voucherAmount, discounts, prices);
+		Menu.QUOTE_METRICS.success(start);
+		for(int i=0; i < engine.size(); i++)
+		{
+			Room room = engine.getRoom(i);
+			out.printf(Locale.ROOT, "QUOTE\t%s\t%.2f\t%.2f\t%.2f\t%.2f%n", room.getId(), room.getDailyRate(), prices[i] + discounts[i],
+				discounts[i], prices[i]);
+		}
+		out.printf("OK\tquote\t%d%n", engine.size());
+		return null;
+	}
+
+	// price <room ID> <nights> [voucher amount]
+	private static String price(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 3 && words.length != 4)
+		{
+			return "Usage: price <room ID> <nights> [voucher amount]";
+		}
+		Room room = registry.find(words[1].toUpperCase());
+		if(room == null)
+		{
+			return "Room not found";
+		}
+		int nights = Integer.parseInt(words[2]);
+		double voucherAmount = words.length == 4 ? Double.parseDouble(words[3]) : 0.00;
+		if(nights < 1 || nights > AvailabilityCalendar.MAX_NIGHTS)
+		{
+			return "Not a valid number of nights";
+		}
+		if(voucherAmount < 0)
+		{
+			return "Voucher amount cannot be negative";
+		}
+
+		long start = OperationMetrics.start();
+		Quote quote = Menu.QUOTE_CACHE.quote(room, nights, voucherAmount);
+		Menu.QUOTE_METRICS.success(start);
+		out.printf(Locale.ROOT, "PRICE\t%s\t%d\t%.2f\t%.2f\t%.2f%n", room.getId(), nights, quote.getCharge(), quote.getDiscount(), quote.getPrice());
+		out.printf("OK\tprice\t%s%n", room.getId());
+		return null;
+	}
+
+	// customer <customer ID>
+	private static String customer(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 2)
+		{
+			return "Usage: customer <customer ID>";
+		}
+		String customerId = words[1].toLowerCase();
+		if(!CustomerId.isValid(customerId))
+		{
+			return "Not a valid customer ID";
+		}
+		long start = OperationMetrics.start();
+		int[] matches = registry.findByCustomer(customerId);
+		Menu.CUSTOMER_METRICS.success(start);
+		for(int i=0; i < matches.length; i++)
+		{
+			printRoom(registry.get(matches[i]), out);
+		}
+		out.printf("OK\tcustomer\t%d%n", matches.length);
+		return null;
+	}
+
+	// history <room ID or *> <first checkout date> <last checkout date>
+	private static String history(String[] words, PrintStream out)
+	{
+		if(words.length != 4)
+		{
+			return "Usage: history <room ID or *> <first checkout date> <last checkout date>";
+		}
+		long firstDay = EpochDays.parseDay(words[2]);
+		long lastDay = EpochDays.parseDay(words[3]);
+		if(firstDay == EpochDays.NO_DAY || lastDay == EpochDays.NO_DAY)
+		{
+			return "Not a valid date";
+		}
+		if(lastDay < firstDay)
+		{
+			return "The last date is before the first";
+		}
+		if(Menu.history == null)
+		{
+			return "The booking history could not be opened";
+		}
+
+		// Error handeling for file operation.
+		long start = OperationMetrics.start();
+		List<ArchivedStay> stays;
+		try
+		{
+			String roomId = words[1].toUpperCase();
+			stays = roomId.equals("*") ? Menu.history.findCheckedOut(firstDay, lastDay) : Menu.history.findByRoom(roomId, firstDay, lastDay);
+		}
+		catch(IOException e)
+		{
+			Menu.HISTORY_METRICS.failure(start);
+			return "Could not read the booking history: " + e.getMessage();
+		}
+		Menu.HISTORY_METRICS.success(start);
+		for(int i=0; i < stays.size(); i++)
+		{
+			ArchivedStay stay = stays.get(i);
+			out.printf(Locale.ROOT, "STAY\t%s\t%s\t%s\t%s\t%s\t%.2f\t%.2f%n", stay.getRoomId(), stay.getCustomerId() == null ? "-" : stay.getCustomerId(),
+				EpochDays.formatIso(stay.getBookingStartTimestamp()), EpochDays.formatIso(stay.getBookingEndTimestamp()),
+				EpochDays.formatIso(stay.getCheckoutTimestamp()), stay.getCharge(), stay.getDiscount());
+		}
+		out.printf("OK\thistory\t%d%n", stays.size());
+		return null;
+	}
+
+	// checkout <room ID>
+	private static String checkout(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 2)
+		{
+			return "Usage: checkout <room ID>";
+		}
+		Room room = registry.find(words[1].toUpperCase());
+		if(room == null)
+		{
+			return "Room not found";
+		}
+		long start = OperationMetrics.start();
+		if(!room.checkout())
+		{
+			Menu.CHECKOUT_METRICS.failure(start);
+			return "This room is not currently booked";
+		}
+		Menu.recordChange(BookingJournal.CHECKOUT, room);
+		Menu.CHECKOUT_METRICS.success(start);
+		out.printf(Locale.ROOT, "OK\tcheckout\t%s\t%.2f%n", room.getId(), room.getCharge());
+		return null;
+	}
+
+	// clean <room ID>
+	private static String clean(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 2)
+		{
+			return "Usage: clean <room ID>";
+		}
+		Room room = registry.find(words[1].toUpperCase());
+		if(room == null)
+		{
+			return "Room not found";
+		}
+		long start = OperationMetrics.start();
+		if(!room.cleanRoom())
+		{
+			Menu.CLEAN_METRICS.failure(start);
+			return "This room is not currently marked as un-clean";
+		}
+		Menu.recordChange(BookingJournal.CLEAN, room);
+		Menu.CLEAN_METRICS.success(start);
+		out.printf("OK\tclean\t%s%n", room.getId());
+		return null;
+	}
+
+	// search <minimum price> <maximum price>
+	private static String search(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 3)
+		{
+			return "Usage: search <minimum price> <maximum price>";
+		}
+		double minPrice = Double.parseDouble(words[1]);
+		double maxPrice = Double.parseDouble(words[2]);
+		long start = OperationMetrics.start();
+		int[] matches = registry.searchByPrice(minPrice, maxPrice);
+		Menu.SEARCH_METRICS.success(start);
+		for(int i=0; i < matches.length; i++)
+		{
+			printRoom(registry.get(matches[i]), out);
+		}
+		out.printf("OK\tsearch\t%d%n", matches.length);
+		return null;
+	}
+
+	// available <first night> <nights> <minimum price> <maximum price>
+	private static String available(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 5)
+		{
+			return "Usage: available <first night> <nights> <minimum price> <maximum price>";
+		}
+		long firstNight = EpochDays.parseDay(words[1]);
+		if(firstNight == EpochDays.NO_DAY)
+		{
+			return "Not a valid date: " + words[1];
+		}
+		if(firstNight < EpochDays.today())
+		{
+			return "That night has already passed";
+		}
+		int nights = Integer.parseInt(words[2]);
+		if(nights < 1 || nights > AvailabilityCalendar.MAX_NIGHTS)
+		{
+			return "That is not a valid number of nights";
+		}
+		double minPrice = Double.parseDouble(words[3]);
+		double maxPrice = Double.parseDouble(words[4]);
+		long start = OperationMetrics.start();
+		int[] matches = registry.searchAvailable(firstNight, nights, minPrice, maxPrice);
+		Menu.AVAILABILITY_METRICS.success(start);
+		for(int i=0; i < matches.length; i++)
+		{
+			printRoom(registry.get(matches[i]), out);
+		}
+		out.printf("OK\tavailable\t%d%n", matches.length);
+		return null;
+	}
+
+	// filter <statuses, such as AU, or *> <standard, premium or all> [<minimum price> <maximum price>]
+	private static String filter(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 3 && words.length != 5)
+		{
+			return "Usage: filter <statuses, such as AU, or *> <standard, premium or all> [<minimum price> <maximum price>]";
+		}
+		String statuses = words[1].toUpperCase();
+		if(statuses.equals("*"))
+		{
+			statuses = null;
+		}
+		else if(!statuses.matches("[ABU]+"))
+		{
+			return "Not a valid list of statuses: " + words[1];
+		}
+		int roomClasses;
+		switch(words[2].toLowerCase())
+		{
+			case "standard":
+				roomClasses = RoomRegistry.STANDARD_ROOMS;
+				break;
+			case "premium":
+				roomClasses = RoomRegistry.PREMIUM_ROOMS;
+				break;
+			case "all":
+				roomClasses = RoomRegistry.ALL_ROOMS;
+				break;
+			default:
+				return "Not a valid room type: " + words[2];
+		}
+		double minPrice = words.length == 5 ? Double.parseDouble(words[3]) : 0.00;
+		double maxPrice = words.length == 5 ? Double.parseDouble(words[4]) : Double.MAX_VALUE;
+		long start = OperationMetrics.start();
+		int[] matches = registry.filter(statuses, roomClasses, minPrice, maxPrice);
+		Menu.FILTER_METRICS.success(start);
+		for(int i=0; i < matches.length; i++)
+		{
+			printRoom(registry.get(matches[i]), out);
+		}
+		out.printf("OK\tfilter\t%d%n", matches.length);
+		return null;
+	}
+
+	// view [room ID]
+	private static String view(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length == 1)
+		{
+			for(int i=0; i < registry.size(); i++)
+			{
+				printRoom(registry.get(i), out);
+			}
+			out.printf("OK\tview\t%d%n", registry.size());
+			return null;
+		}
+		if(words.length != 2)
+		{
+			return "Usage: view [room ID]";
+		}
+		Room room = registry.find(words[1].toUpperCase());
+		if(room == null)
+		{
+			return "Room not found";
+		}
+		printRoom(room, out);
+		out.printf("OK\tview\t1%n");
+		return null;
+	}
+
+	// reserve <room ID> <customer ID> <first night> <nights>
+	private static String reserve(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 5)
+		{
+			return "Usage: reserve <room ID> <customer ID> <first night> <nights>";
+		}
+		Room room = registry.find(words[1].toUpperCase());
+		if(room == null)
+		{
+			return "Room not found";
+		}
+		long firstNight = EpochDays.parseDay(words[3]);
+		if(firstNight == EpochDays.NO_DAY)
+		{
+			return "Not a valid date: " + words[3];
+		}
+		Reservation reservation = room.reserve(words[2].toLowerCase(), firstNight, Integer.parseInt(words[4]));
+		if(reservation == null)
+		{
+			return "The room cannot be reserved for those nights";
+		}
+		Menu.recordReservation(BookingJournal.RESERVE, room, reservation);
+		out.printf("OK\treserve\t%s\t%s\t%s\t%d%n", room.getId(), reservation.getCustomerId(), EpochDays.formatIsoDay(reservation.getFirstNight()), reservation.getNights());
+		return null;
+	}
+
+	// unreserve <room ID> <customer ID> <first night>
+	private static String unreserve(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 4)
+		{
+			return "Usage: unreserve <room ID> <customer ID> <first night>";
+		}
+		Room room = registry.find(words[1].toUpperCase());
+		if(room == null)
+		{
+			return "Room not found";
+		}
+		long firstNight = EpochDays.parseDay(words[3]);
+		if(firstNight == EpochDays.NO_DAY)
+		{
+			return "Not a valid date: " + words[3];
+		}
+		Reservation reservation = room.cancelReservation(words[2].toLowerCase(), firstNight);
+		if(reservation == null)
+		{
+			return "Reservation not found";
+		}
+		Menu.recordReservation(BookingJournal.UNRESERVE, room, reservation);
+		out.printf("OK\tunreserve\t%s\t%s\t%s\t%d%n", room.getId(), reservation.getCustomerId(), EpochDays.formatIsoDay(reservation.getFirstNight()), reservation.getNights());
+		return null;
+	}
+
+	// reservations <room ID>
+	private static String reservations(RoomRegistry registry, String[] words, PrintStream out)
+	{
+		if(words.length != 2)
+		{
+			return "Usage: reservations <room ID>";
+		}
+		Room room = registry.find(words[1].toUpperCase());
+		if(room == null)
+		{
+			return "Room not found";
+		}
+		List<Reservation> reservations = room.getReservations();
+		for(Reservation reservation : reservations)
+		{
+			out.printf("RESERVATION\t%s\t%s\t%s\t%d%n", room.getId(), reservation.getCustomerId(), EpochDays.formatIsoDay(reservation.getFirstNight()), reservation.getNights());
+		}
+		out.printf("OK\treservations\t%d%n", reservations.size());
+		return null;
+	}
+
+	// metrics
+	private static String metrics(String[] words, PrintStream out)
+	{
+		if(words.length != 1)
+		{
+			return "Usage: metrics";
+		}
+		int count = 0;
+		for(OperationMetrics metrics : Metrics.getOperations())
+		{
+			LatencyHistogram latencies = metrics.getLatencies();
+			out.printf("METRIC\t%s\t%d\t%d\t%d\t%d\t%d\t%d\t%d%n", metrics.getName(), metrics.getSuccesses(), metrics.getFailures(), metrics.getRetries(),
+				latencies.getMean(), latencies.getPercentile(50), latencies.getPercentile(99), latencies.getMax());
+			count++;
+		}
+		QuoteCache cache = Menu.QUOTE_CACHE;
+		out.printf("CACHE\tquotes\t%d\t%d\t%d\t%d\t%d\t%d%n", cache.size(), cache.getCapacity(), cache.getHits(), cache.getMisses(),
+			cache.getStale(), cache.getEvictions());
+		out.printf("OK\tmetrics\t%d%n", count);
+		return null;
+	}
+
+	// Method to print a room as a tab separated ROOM line. Customer and booking
+	// details are "-" when the room is available.
+	private static void printRoom(Room room, PrintStream out)
+	{
+		if(room.roomAvailable())
+		{
+			out.printf(Locale.ROOT, "ROOM\t%s\t%c\t%.2f\t-\t-\t%.2f%n", room.getId(), room.getStatus(), room.getDailyRate(), room.getCharge());
+		}
+		else
+		{
+			out.printf(Locale.ROOT, "ROOM\t%s\t%c\t%.2f\t%s\t%tF\t%.2f%n", room.getId(), room.getStatus(), room.getDailyRate(), room.getCustomerId(), room.getBookingEndTimestamp(), room.getCharge());
+		}
+	}
+}
@@ -0,0 +1,351 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/AuditReport.java
+// Description:
+// 	This class, AuditReport, holds the results of a night audit (see
+// 	NightAudit) over some or all of the rooms: the number of rooms and their
+// 	charges by status and class of room, occupancy and revenue by band of
+// 	daily rate, and the rooms whose details do not add up. Each part of the
+// 	audit fills in its own report, and the reports are then merged, so the
+// 	parts never share anything while they run.
+//
+// 	Money is kept as whole cents, so merging the reports in any grouping
+// 	gives exactly the same totals.
+//
+package Room;
+
+import utilities.EpochDays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class AuditReport
+{
+
+	// The classes of room, by number.
+	public static final int STANDARD = 0;
+	public static final int PREMIUM = 1;
+	private static final int CLASSES = 2;
+
+	// The statuses counted, by number, as they appear in STATUSES.
+	private static final String STATUSES = "ABU";
+
+	// The kinds of anomaly found, by number.
+	public static final int OVERSTAY = 0;
+	public static final int NO_CUSTOMER = 1;
+	public static final int BAD_DATES = 2;
+	public static final int CHARGE_MISMATCH = 3;
+	public static final int NEGATIVE_CHARGE = 4;
+	public static final int UNKNOWN_STATUS = 5;
+	public static final int ANOMALY_KINDS = 6;
+
+	// The descriptions of each kind of anomaly.
+	private static final String[] ANOMALY_DESCRIPTIONS = {
+		"Booked past its end date",
+		"Booked without a customer",
+		"Booking ends before it starts, or starts in the future",
+		"Charge does not match the nights booked",
+		"Charge is negative",
+		"Status is not recognised"
+	};
+
+	// The most anomalies listed by room, the rest are only counted.
+	public static final int MAX_LISTED = 100;
+
+	// The number of rate bands. The last band holds every rate above the others.
+	public static final int BANDS = 10;
+
+	// Class wide variables.
+	private final double bandWidth;
+	private long rooms;
+	private final long[][] counts = new long[CLASSES][STATUSES.length()];
+	private final long[][] chargeCents = new long[CLASSES][STATUSES.length()];
+	private long discountCents;
+	private long voucherCents;
+	private final long[] bandRooms = new long[BANDS];
+	private final long[] bandBooked = new long[BANDS];
+	private final long[] bandRateCents = new long[BANDS];
+	private final long[] anomalyCounts = new long[ANOMALY_KINDS];
+	private final List<Anomaly> anomalies = new ArrayList<Anomaly>();
+	private long auditedAt;
+	private long elapsedNanos;
+
+	// Constructor, creates an empty report with rate bands of the given width.
+	AuditReport(double bandWidth)
+	{
+		this.bandWidth = bandWidth;
+	}
+
+	// Method to add a room's details, read together, to the report. The premium
+	// amounts are ignored for standard rooms.
+	void add(Room room, char status, int customerNumber, double dailyRate, double charge, long bookingStart, long bookingEnd,
+		double discountAmount, double voucherAmount, long now)
+	{
+		rooms++;
+		int roomClass = room instanceof PremiumRoom ? PREMIUM : STANDARD;
+		int statusNumber = STATUSES.indexOf(status);
+		if(statusNumber == -1)
+		{
+			flag(room, UNKNOWN_STATUS);
+			return;
+		}
+		counts[roomClass][statusNumber]++;
+		chargeCents[roomClass][statusNumber] += cents(charge);
+
+		int band = (int) Math.min(BANDS - 1, Math.max(0, dailyRate / bandWidth));
+		bandRooms[band]++;
+
+		// A premium room's discount is known from checkout until it is cleaned, and
+		// its voucher while it is booked.
+		if(roomClass == PREMIUM && status == 'U')
+		{
+			discountCents += cents(discountAmount);
+		}
+		if(roomClass == PREMIUM && status == 'B')
+		{
+			voucherCents += cents(voucherAmount);
+		}
+
+		if(charge < 0)
+		{
+			flag(room, NEGATIVE_CHARGE);
+		}
+		if(status != 'B')
+		{
+			return;
+		}
+
+		// Only a booked room is expected to have a customer and dates, and a charge
+		// for the nights booked.
+		bandBooked[band]++;
+		bandRateCents[band] += cents(dailyRate);
+		if(customerNumber == CustomerId.NONE)
+		{
+			flag(room, NO_CUSTOMER);
+		}
+		if(bookingEnd <= bookingStart || bookingStart > now)
+		{
+			flag(room, BAD_DATES);
+		}
+		else
+		{
+			if(now >= bookingEnd)
+			{
+				flag(room, OVERSTAY);
+			}
+			int nights = EpochDays.daysBetween(bookingStart, bookingEnd);
+			if(cents(charge) != cents(nights * dailyRate))
+			{
+				flag(room, CHARGE_MISMATCH);
+			}
+		}
+	}
+
+	// Method to add another report's results to this one. The other report must
+	// cover rooms after the ones in this report, so anomalies stay in room order.
+	void merge(AuditReport other)
+	{
+		rooms += other.rooms;
+		for(int i=0; i < CLASSES; i++)
+		{
+			for(int j=0; j < STATUSES.length(); j++)
+			{
+				counts[i][j] += other.counts[i][j];
+				chargeCents[i][j] += other.chargeCents[i][j];
+			}
+		}
+		discountCents += other.discountCents;
+		voucherCents += other.voucherCents;
+		for(int i=0; i < BANDS; i++)
+		{
+			bandRooms[i] += other.bandRooms[i];
+			bandBooked[i] += other.bandBooked[i];
+			bandRateCents[i] += other.bandRateCents[i];
+		}
+		for(int i=0; i < ANOMALY_KINDS; i++)
+		{
+			anomalyCounts[i] += other.anomalyCounts[i];
+		}
+		for(int i=0; i < other.anomalies.size() && anomalies.size() < MAX_LISTED; i++)
+		{
+			anomalies.add(other.anomalies.get(i));
+		}
+	}
+
+	// Method to record when the audit was taken and how long it took.
+	void finish(long auditedAt, long elapsedNanos)
+	{
+		this.auditedAt = auditedAt;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	// Accessor method for the number of rooms audited.
+	public long getRooms()
+	{
+		return rooms;
+	}
+
+	// Accessor method for the number of rooms of a class with a status.
+	public long getCount(int roomClass, char status)
+	{
+		int statusNumber = STATUSES.indexOf(status);
+		return statusNumber == -1 ? 0 : counts[roomClass][statusNumber];
+	}
+
+	// Accessor method for the number of rooms of both classes with a status.
+	public long getCount(char status)
+	{
+		return getCount(STANDARD, status) + getCount(PREMIUM, status);
+	}
+
+	// Accessor method for the total charge of the rooms of a class with a status.
+	public double getCharges(int roomClass, char status)
+	{
+		int statusNumber = STATUSES.indexOf(status);
+		return statusNumber == -1 ? 0.0 : chargeCents[roomClass][statusNumber] / 100.0;
+	}
+
+	// Accessor method for the total charge of the rooms of both classes with a
+	// status.
+	public double getCharges(char status)
+	{
+		return getCharges(STANDARD, status) + getCharges(PREMIUM, status);
+	}
+
+	// Accessor method for the discounts given to premium rooms checked out and not
+	// yet cleaned.
+	public double getDiscounts()
+	{
+		return discountCents / 100.0;
+	}
+
+	// Accessor method for the vouchers held against premium room bookings.
+	public double getVouchers()
+	{
+		return voucherCents / 100.0;
+	}
+
+	// Accessor method for the width of each rate band.
+	public double getBandWidth()
+	{
+		return bandWidth;
+	}
+
+	// Accessor method for the name of a rate band, such as "$50 - $99.99".
+	public String getBandName(int band)
+	{
+		if(band == BANDS - 1)
+		{
+			return String.format("$%,.0f and over", band * bandWidth);
+		}
+		return String.format("$%,.0f - $%,.2f", band * bandWidth, (band + 1) * bandWidth - 0.01);
+	}
+
+	// Accessor method for the number of rooms in a rate band.
+	public long getBandRooms(int band)
+	{
+		return bandRooms[band];
+	}
+
+	// Accessor method for the number of booked rooms in a rate band.
+	public long getBandBooked(int band)
+	{
+		return bandBooked[band];
+	}
+
+	// Accessor method for what the booked rooms in a rate band earn per night.
+	public double getBandNightlyRevenue(int band)
+	{
+		return bandRateCents[band] / 100.0;
+	}
+
+	// Accessor method for the number of anomalies of a kind.
+	public long getAnomalyCount(int kind)
+	{
+		return anomalyCounts[kind];
+	}
+
+	// Accessor method for the number of anomalies of every kind.
+	public long getAnomalyCount()
+	{
+		long total = 0;
+		for(int i=0; i < ANOMALY_KINDS; i++)
+		{
+			total += anomalyCounts[i];
+		}
+		return total;
+	}
+
+	// Accessor method for the first MAX_LISTED anomalies, in room order.
+	public List<Anomaly> getAnomalies()
+	{
+		return Collections.unmodifiableList(anomalies);
+	}
+
+	// Accessor method for the time the audit was taken, in milliseconds.
+	public long getAuditedAt()
+	{
+		return auditedAt;
+	}
+
+	// Accessor method for the time the audit took, in nanoseconds.
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+
+	// Method to describe a kind of anomaly.
+	public static String describe(int kind)
+	{
+		return ANOMALY_DESCRIPTIONS[kind];
+	}
+
+	// Method to count an anomaly, and list it if there is room.
+	private void flag(Room room, int kind)
+	{
+		anomalyCounts[kind]++;
+		if(anomalies.size() < MAX_LISTED)
+		{
+			anomalies.add(new Anomaly(room.getId(), kind));
+		}
+	}
+
+	// Method to convert an amount of money to whole cents.
+	private static long cents(double amount)
+	{
+		return Math.round(amount * 100.0);
+	}
+
+	// A room whose details do not add up, and how.
+	public static final class Anomaly
+	{
+		private final String roomId;
+		private final int kind;
+
+		private Anomaly(String roomId, int kind)
+		{
+			this.roomId = roomId;
+			this.kind = kind;
+		}
+
+		// Accessor method for the room's ID.
+		public String getRoomId()
+		{
+			return roomId;
+		}
+
+		// Accessor method for the kind of anomaly.
+		public int getKind()
+		{
+			return kind;
+		}
+
+		// Method to return the anomaly as text.
+		public String toString()
+		{
+			return roomId + ": " + describe(kind);
+		}
+	}
+}
@@ -0,0 +1,403 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/AvailabilityCalendar.java
+// Description:
+// 	This class, AvailabilityCalendar, records which nights a room is taken,
+// 	either by the current stay or by reservations for future dates. Each
+// 	night is one bit in an array of longs, indexed by epoch day (see
+// 	EpochDays), so a stay of up to 64 nights touches at most two words and
+// 	checking, taking or freeing a range of nights is a few masks and ANDs.
+//
+// 	The array only covers the nights in use. It starts at a multiple of 64
+// 	days, grows when a range falls outside it, and drops the words for nights
+// 	that have passed when trimBefore() is called. Reservations are also kept
+// 	as a list, in order of their first night, so they can be shown and
+// 	cancelled. Every method is synchronized on the calendar, which belongs
+// 	to a single room, so desks working on different rooms never wait.
+// 	Whenever nights are taken or freed the room is told, so that it can pass
+// 	the change on to its registry's availability index.
+//
+package Room;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class AvailabilityCalendar
+{
+
+	// The longest stay or reservation that can be taken, about ten years.
+	public static final int MAX_NIGHTS = 3660;
+
+	// Returned by claimStay() when the stay took over no reservation.
+	static final Reservation NO_RESERVATION = new Reservation(CustomerId.NONE, 0, 0);
+
+	// An array with no words, shared by every empty calendar.
+	private static final long[] NO_WORDS = new long[0];
+
+	// Class wide variables.
+	private final Room room;
+	private long[] words = NO_WORDS;
+	private long firstDay;
+	private final List<Reservation> reservations = new ArrayList<Reservation>();
+
+	// Constructor, creates an empty calendar for a room.
+	AvailabilityCalendar(Room room)
+	{
+		this.room = room;
+	}
+
+	// Method to determine if every night in a range is free.
+	public synchronized boolean isFree(long firstNight, int nights)
+	{
+		long start = firstNight - firstDay;
+		long end = start + nights;
+
+		// Nights outside the array are free, so only the words inside it are checked.
+		int first = (int) Math.max(0, start >> 6);
+		int last = (int) Math.min(words.length - 1, (end - 1) >> 6);
+		for(int i = first; i <= last; i++)
+		{
+			if((words[i] & mask(i, start, end)) != 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Method to determine if a night is taken.
+	public boolean isTaken(long night)
+	{
+		return !isFree(night, 1);
+	}
+
+	// Method to reserve a range of nights for a customer, returning the
+	// reservation, or null if any of the nights are already taken.
+	synchronized Reservation reserve(int customerNumber, long firstNight, int nights)
+	{
+		if(!isFree(firstNight, nights))
+		{
+			return null;
+		}
+		Reservation reservation = new Reservation(customerNumber, firstNight, nights);
+		set(firstNight, nights, true);
+		add(reservation);
+		return reservation;
+	}
+
+	// Method to cancel a customer's reservation starting on the given night,
+	// freeing its nights. Returns the reservation, or null if there is none.
+	synchronized Reservation cancel(int customerNumber, long firstNight)
+	{
+		int index = find(customerNumber, firstNight);
+		if(index == -1)
+		{
+			return null;
+		}
+		Reservation reservation = reservations.remove(index);
+		set(reservation.getFirstNight(), reservation.getNights(), false);
+		return reservation;
+	}
+
+	// Method to take a range of nights for a stay starting now. A reservation the
+	// customer holds starting on the same night is taken over by the stay, so the
+	// stay may be longer or shorter than it. Returns the reservation taken over
+	// (or NO_RESERVATION, if there was none), or null if any night is taken by
+	// someone else, in which case nothing changes.
+	synchronized Reservation claimStay(int customerNumber, long firstNight, int nights)
+	{
+		int index = find(customerNumber, firstNight);
+		if(index == -1)
+		{
+			if(!isFree(firstNight, nights))
+			{
+				return null;
+			}
+			set(firstNight, nights, true);
+			return NO_RESERVATION;
+		}
+
+		// Check the stay's nights as if the reservation were not there. The bits are
+		// changed without telling the room, so the availability index never sees the
+		// reservation's nights as free while this is worked out.
+		Reservation reservation = reservations.get(index);
+		int reserved = reservation.getNights();
+		setBits(firstNight, reserved, false);
+		if(!isFree(firstNight, nights))
+		{
+			setBits(firstNight, reserved, true);
+			return null;
+		}
+		reservations.remove(index);
+		setBits(firstNight, nights, true);
+
+		// Both start on the same night, so only the nights at the end differ.
+		if(reserved > nights)
+		{
+			room.nightsChanged(firstNight + nights, reserved - nights, false);
+		}
+		else if(nights > reserved)
+		{
+			room.nightsChanged(firstNight + reserved, nights - reserved, true);
+		}
+		return reservation;
+	}
+
+	// Method to free the nights of a stay that has ended or been cancelled.
+	synchronized void releaseStay(long firstNight, int nights)
+	{
+		set(firstNight, nights, false);
+	}
+
+	// Method to free the nights of a cancelled stay, giving back the reservation
+	// it took over in claimStay(), if any. Nights past the end of the stay were
+	// freed when it took over the reservation, so any that have been taken by
+	// someone else since are left out of the reservation given back.
+	synchronized void cancelStay(long firstNight, int nights, Reservation takenOver)
+	{
+		if(takenOver == null)
+		{
+			set(firstNight, nights, false);
+			return;
+		}
+
+		// Both start on the same night, so the stay's own nights can always be given
+		// back, and only the nights at the end differ.
+		int reserved = takenOver.getNights();
+		int kept = Math.min(reserved, nights);
+		setBits(firstNight, nights, false);
+		while(kept < reserved && isFree(firstNight + kept, 1))
+		{
+			kept++;
+		}
+		setBits(firstNight, kept, true);
+		add(kept == reserved ? takenOver : new Reservation(takenOver.getCustomerNumber(), firstNight, kept));
+		if(nights > kept)
+		{
+			room.nightsChanged(firstNight + kept, nights - kept, false);
+		}
+		else if(kept > nights)
+		{
+			room.nightsChanged(firstNight + nights, kept - nights, true);
+		}
+	}
+
+	// Method to mark the nights of a stay restored from file, without checking
+	// them first. As in claimStay(), a reservation the customer holds starting on
+	// the same night was taken over by the stay, so it is dropped. This matters
+	// when a booking is replayed from the journal over a snapshot saved before it,
+	// which still holds the reservation.
+	synchronized void restoreStay(int customerNumber, long firstNight, int nights)
+	{
+		int index = find(customerNumber, firstNight);
+		if(index != -1)
+		{
+			Reservation reservation = reservations.remove(index);
+			set(reservation.getFirstNight(), reservation.getNights(), false);
+		}
+		set(firstNight, nights, true);
+	}
+
+	// Method to restore a reservation read from file, without checking its nights.
+	// A reservation already there for the same customer and first night is
+	// replaced, so a journal entry replayed over a snapshot that already holds it
+	// does not add it twice.
+	synchronized void restoreReservation(int customerNumber, long firstNight, int nights)
+	{
+		int index = find(customerNumber, firstNight);
+		if(index != -1)
+		{
+			Reservation reservation = reservations.remove(index);
+			set(reservation.getFirstNight(), reservation.getNights(), false);
+		}
+		set(firstNight, nights, true);
+		add(new Reservation(customerNumber, firstNight, nights));
+	}
+
+	// Method to forget every night before the given day, along with reservations
+	// that ended before it (customers who never arrived). Words are only dropped
+	// once all of their nights have passed.
+	synchronized void trimBefore(long day)
+	{
+		while(!reservations.isEmpty() && reservations.get(0).getDepartureDay() <= day)
+		{
+			Reservation reservation = reservations.remove(0);
+			set(reservation.getFirstNight(), reservation.getNights(), false);
+		}
+		int passedWords = (int) Math.min(words.length, Math.max(0, (day - firstDay) >> 6));
+		if(passedWords > 0)
+		{
+			words = passedWords == words.length ? NO_WORDS : Arrays.copyOfRange(words, passedWords, words.length);
+			firstDay += (long) passedWords << 6;
+		}
+	}
+
+	// Accessor method for the reservations, in order of their first night.
+	public synchronized List<Reservation> getReservations()
+	{
+		return new ArrayList<Reservation>(reservations);
+	}
+
+	// Method to pass every run of taken nights to an availability index, for the
+	// room in the given slot.
+	synchronized void copyTo(AvailabilityIndex index, int slot)
+	{
+		int i = 0;
+		long limit = (long) words.length << 6;
+		while(i < limit)
+		{
+
+			// Skip whole words of free nights, then find the end of the run.
+			if(words[i >> 6] == 0)
+			{
+				i = (i | 63) + 1;
+				continue;
+			}
+			if((words[i >> 6] & (1L << i)) == 0)
+			{
+				i++;
+				continue;
+			}
+			int start = i;
+			while(i < limit && (words[i >> 6] & (1L << i)) != 0)
+			{
+				i++;
+			}
+			index.update(slot, firstDay + start, i - start, true);
+		}
+	}
+
+	// Method to determine if the calendar holds no reservations and no taken
+	// nights.
+	public synchronized boolean isEmpty()
+	{
+		if(!reservations.isEmpty())
+		{
+			return false;
+		}
+		for(int i=0; i < words.length; i++)
+		{
+			if(words[i] != 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Method to set or clear the bits for a range of nights, and tell the room.
+	private void set(long firstNight, int nights, boolean taken)
+	{
+		if(nights < 1)
+		{
+			return;
+		}
+		setBits(firstNight, nights, taken);
+		room.nightsChanged(firstNight, nights, taken);
+	}
+
+	// Method to set or clear the bits for a range of nights, growing the array if
+	// nights being set fall outside it.
+	private void setBits(long firstNight, int nights, boolean taken)
+	{
+		if(nights < 1)
+		{
+			return;
+		}
+		if(taken)
+		{
+			cover(firstNight, firstNight + nights - 1);
+		}
+		long start = firstNight - firstDay;
+		long end = start + nights;
+		int first = (int) Math.max(0, start >> 6);
+		int last = (int) Math.min(words.length - 1, (end - 1) >> 6);
+		for(int i = first; i <= last; i++)
+		{
+			if(taken)
+			{
+				words[i] |= mask(i, start, end);
+			}
+			else
+			{
+				words[i] &= ~mask(i, start, end);
+			}
+		}
+	}
+
+	// Method to make sure the array covers the nights from first to last.
+	private void cover(long first, long last)
+	{
+		if(words.length == 0)
+		{
+			firstDay = Math.floorDiv(first, 64L) << 6;
+			words = new long[(int) ((last - firstDay) >> 6) + 1];
+			return;
+		}
+
+		// Grow at the front, moving the existing words along.
+		if(first < firstDay)
+		{
+			long newFirstDay = Math.floorDiv(first, 64L) << 6;
+			int shift = (int) ((firstDay - newFirstDay) >> 6);
+			long[] grown = new long[words.length + shift];
+			System.arraycopy(words, 0, grown, shift, words.length);
+			words = grown;
+			firstDay = newFirstDay;
+		}
+
+		// Grow at the back, at least doubling so that reservations made one after
+		// another do not copy the array every time.
+		int needed = (int) ((last - firstDay) >> 6) + 1;
+		if(needed > words.length)
+		{
+			words = Arrays.copyOf(words, Math.max(needed, words.length * 2));
+		}
+	}
+
+	// Method to find the bits of a word that fall in a range of nights, given as
+	// offsets from the first day of the array (end is exclusive).
+	private static long mask(int word, long start, long end)
+	{
+		long wordStart = (long) word << 6;
+		long mask = -1L;
+		if(start > wordStart)
+		{
+			mask &= -1L << (start - wordStart);
+		}
+		if(end < wordStart + 64)
+		{
+			mask &= -1L >>> (wordStart + 64 - end);
+		}
+		return mask;
+	}
+
+	// Method to find a customer's reservation starting on the given night,
+	// returning its index or -1.
+	private int find(int customerNumber, long firstNight)
+	{
+		for(int i=0; i < reservations.size(); i++)
+		{
+			Reservation reservation = reservations.get(i);
+			if(reservation.getFirstNight() == firstNight && reservation.getCustomerNumber() == customerNumber)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Method to add a reservation to the list, keeping it in order of first night.
+	private void add(Reservation reservation)
+	{
+		int index = reservations.size();
+		while(index > 0 && reservations.get(index - 1).getFirstNight() > reservation.getFirstNight())
+		{
+			index--;
+		}
+		reservations.add(index, reservation);
+	}
+}
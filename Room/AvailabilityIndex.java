@@ -0,0 +1,218 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/AvailabilityIndex.java
+// Description:
+// 	This class, AvailabilityIndex, records which rooms in a registry are
+// 	taken on each night, so that the rooms free for a range of nights can be
+// 	found without reading every room's calendar. Each night has a bitmap
+// 	with one bit per registry slot, split into segments of SEGMENT_ROOMS
+// 	rooms. A segment is only allocated once one of its rooms is taken that
+// 	night, and is dropped again when they are all free, so nights far in the
+// 	future (or a property with few bookings) cost almost nothing.
+//
+// 	A search first finds the rooms in the price range using the price
+// 	index, then ORs the bitmaps of just the segments those rooms fall in
+// 	over the nights asked for, so each room is checked with a single bit
+// 	test. Its cost depends on the number of rooms in the price range and
+// 	the segments they share, not on the size of the property.
+//
+// 	The index is kept up to date by the rooms' calendars, through the
+// 	registry, whenever nights are taken or freed.
+//
+package Room;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+class AvailabilityIndex
+{
+
+	// The number of rooms covered by each segment of a night's bitmap, which must
+	// be a multiple of 64.
+	static final int SEGMENT_ROOMS = 4096;
+	private static final int SEGMENT_SHIFT = 12;
+	private static final int SEGMENT_WORDS = SEGMENT_ROOMS / 64;
+
+	// The nights with at least one room taken, keyed by epoch day.
+	private final Map<Long, Night> nights = new HashMap<Long, Night>();
+
+	// Method to fill the index from the calendars of every room currently in the
+	// registry. The registry must already pass changes on to this index, so that
+	// changes made while it is being filled are not lost.
+	void build(RoomRegistry registry)
+	{
+		for(int i=0; i < registry.size(); i++)
+		{
+			registry.get(i).copyNightsTo(this, i);
+		}
+	}
+
+	// Method to mark a room's slot as taken or free for a range of nights.
+	synchronized void update(int slot, long firstNight, int nights, boolean taken)
+	{
+		int segment = slot >>> SEGMENT_SHIFT;
+		int word = (slot >>> 6) & (SEGMENT_WORDS - 1);
+		long bit = 1L << slot;
+		for(long day = firstNight; day < firstNight + nights; day++)
+		{
+			Night night = this.nights.get(day);
+			if(night == null)
+			{
+				if(!taken)
+				{
+					continue;
+				}
+				night = new Night();
+				this.nights.put(day, night);
+			}
+			if(night.set(segment, word, bit, taken) && night.isEmpty())
+			{
+				this.nights.remove(day);
+			}
+		}
+	}
+
+	// Method to filter the given slots (such as a price range from the price
+	// index) down to those free for every night in a range, keeping their order.
+	synchronized int[] free(int[] slots, long firstNight, int nights)
+	{
+
+		// The nights in the range that have any rooms taken. The rest are free for
+		// every room, so they need not be looked at again.
+		Night[] taken = new Night[nights];
+		int count = 0;
+		for(int i=0; i < nights; i++)
+		{
+			Night night = this.nights.get(firstNight + i);
+			if(night != null)
+			{
+				taken[count++] = night;
+			}
+		}
+
+		// The rooms taken on any of the nights, by segment, worked out the first time
+		// a room in the segment is checked.
+		long[][] occupied = new long[0][];
+		int[] result = new int[slots.length];
+		int found = 0;
+		for(int i=0; i < slots.length; i++)
+		{
+			int slot = slots[i];
+			int segment = slot >>> SEGMENT_SHIFT;
+			if(segment >= occupied.length)
+			{
+				long[][] grown = new long[segment + 1][];
+				System.arraycopy(occupied, 0, grown, 0, occupied.length);
+				occupied = grown;
+			}
+			long[] words = occupied[segment];
+			if(words == null)
+			{
+				words = union(taken, count, segment);
+				occupied[segment] = words;
+			}
+			if((words[(slot >>> 6) & (SEGMENT_WORDS - 1)] & (1L << slot)) == 0)
+			{
+				result[found++] = slot;
+			}
+		}
+		int[] free = new int[found];
+		System.arraycopy(result, 0, free, 0, found);
+		return free;
+	}
+
+	// Method to forget every night before the given day.
+	synchronized void trimBefore(long day)
+	{
+		nights.keySet().removeIf(night -> night < day);
+	}
+
+	// Method to OR together one segment of the bitmaps of several nights.
+	private static long[] union(Night[] taken, int count, int segment)
+	{
+		long[] words = new long[SEGMENT_WORDS];
+		for(int i=0; i < count; i++)
+		{
+			long[] bitmap = taken[i].segment(segment);
+			if(bitmap != null)
+			{
+				for(int j=0; j < SEGMENT_WORDS; j++)
+				{
+					words[j] |= bitmap[j];
+				}
+			}
+		}
+		return words;
+	}
+
+	// The rooms taken on one night, as a bitmap split into segments, with a count
+	// of the rooms taken in each so that empty segments can be dropped.
+	private static final class Night
+	{
+		private long[][] segments = new long[0][];
+		private int[] counts = new int[0];
+		private int taken;
+
+		// Method to set or clear a room's bit, returning true if it changed.
+		private boolean set(int segment, int word, long bit, boolean value)
+		{
+			if(segment >= segments.length)
+			{
+				if(!value)
+				{
+					return false;
+				}
+				long[][] grown = new long[segment + 1][];
+				System.arraycopy(segments, 0, grown, 0, segments.length);
+				segments = grown;
+				counts = Arrays.copyOf(counts, segment + 1);
+			}
+			long[] words = segments[segment];
+			if(words == null)
+			{
+				if(!value)
+				{
+					return false;
+				}
+				words = new long[SEGMENT_WORDS];
+				segments[segment] = words;
+			}
+			if(((words[word] & bit) != 0) == value)
+			{
+				return false;
+			}
+			if(value)
+			{
+				words[word] |= bit;
+				counts[segment]++;
+				taken++;
+			}
+			else
+			{
+				words[word] &= ~bit;
+				taken--;
+				if(--counts[segment] == 0)
+				{
+					segments[segment] = null;
+				}
+			}
+			return true;
+		}
+
+		// Accessor method for a segment's bitmap, or null if none of its rooms are
+		// taken.
+		private long[] segment(int segment)
+		{
+			return segment < segments.length ? segments[segment] : null;
+		}
+
+		// Method to determine if no rooms are taken.
+		private boolean isEmpty()
+		{
+			return taken == 0;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/BookingRequest.java
+// Description:
+// 	This class, BookingRequest, holds the details of one room booking that
+// 	is part of a group booking (see Menu.bookRooms).
+//
+package Room;
+
+public class BookingRequest
+{
+
+	// Class wide variables.
+	private final String roomId;
+	private final String customerId;
+	private final int nightsRequired;
+	private final double voucherAmount;
+
+	// Constructor, for a booking without a voucher.
+	public BookingRequest(String roomId, String customerId, int nightsRequired)
+	{
+		this(roomId, customerId, nightsRequired, 0.00);
+	}
+
+	// Constructor, for a booking with a voucher (premium rooms only). Room IDs and
+	// customer IDs are not case sensitive, the same as when entered at the menu.
+	public BookingRequest(String roomId, String customerId, int nightsRequired, double voucherAmount)
+	{
+		this.roomId = roomId == null ? null : roomId.toUpperCase();
+		this.customerId = customerId == null ? null : customerId.toLowerCase();
+		this.nightsRequired = nightsRequired;
+		this.voucherAmount = voucherAmount;
+	}
+
+	// Accessor method for room ID.
+	public String getRoomId()
+	{
+		return roomId;
+	}
+
+	// Accessor method for customer ID.
+	public String getCustomerId()
+	{
+		return customerId;
+	}
+
+	// Accessor method for the number of nights required.
+	public int getNightsRequired()
+	{
+		return nightsRequired;
+	}
+
+	// Accessor method for voucher amount.
+	public double getVoucherAmount()
+	{
+		return voucherAmount;
+	}
+
+	// Convert the request to a ":" delimitered string.
+	public String toString()
+	{
+		return roomId + ":" + customerId + ":" + nightsRequired + ":" + voucherAmount;
+	}
+}
@@ -0,0 +1,51 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/BookingResult.java
+// Description:
+// 	This class, BookingResult, records the outcome of one BookingRequest
+// 	within a group booking, with a message explaining any failure.
+//
+package Room;
+
+public class BookingResult
+{
+
+	// Class wide variables.
+	private final BookingRequest request;
+	private final boolean booked;
+	private final String message;
+
+	// Constructor.
+	public BookingResult(BookingRequest request, boolean booked, String message)
+	{
+		this.request = request;
+		this.booked = booked;
+		this.message = message;
+	}
+
+	// Accessor method for the request this is the result of.
+	public BookingRequest getRequest()
+	{
+		return request;
+	}
+
+	// Method to determine if the room was booked.
+	public boolean isBooked()
+	{
+		return booked;
+	}
+
+	// Accessor method for the message describing the outcome.
+	public String getMessage()
+	{
+		return message;
+	}
+
+	// Convert the result to a ":" delimitered string.
+	public String toString()
+	{
+		return request + ":" + (booked ? "booked" : "failed") + ":" + message;
+	}
+}
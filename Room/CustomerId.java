@@ -0,0 +1,89 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/CustomerId.java
+// Description:
+// 	This class, CustomerId, is designed to be statically called to convert
+// 	customer IDs between their text form - a lower case 'c' followed by 7
+// 	digits, such as c0001234 - and the number formed by their digits, which
+// 	is how rooms store them. Parsing and validating do not allocate or use
+// 	regular expressions. Text is only created when an ID is displayed.
+//
+package Room;
+
+public final class CustomerId
+{
+
+	// The number used when there is no customer, such as for an available room.
+	public static final int NONE = -1;
+
+	// The length of a customer ID in text form.
+	public static final int LENGTH = 8;
+
+	// This class is not meant to be instantiated.
+	private CustomerId()
+	{
+	}
+
+	// Method to convert a customer ID to its number, returning NONE if it is null
+	// or not a valid customer ID.
+	public static int parse(CharSequence customerId)
+	{
+		if(customerId == null || customerId.length() != LENGTH || customerId.charAt(0) != 'c')
+		{
+			return NONE;
+		}
+		int number = 0;
+		for(int i=1; i < LENGTH; i++)
+		{
+			int digit = customerId.charAt(i) - '0';
+			if(digit < 0 || digit > 9)
+			{
+				return NONE;
+			}
+			number = number * 10 + digit;
+		}
+		return number;
+	}
+
+	// Method to determine if a customer ID is valid.
+	public static boolean isValid(CharSequence customerId)
+	{
+		return parse(customerId) != NONE;
+	}
+
+	// Method to convert a customer number back to a customer ID, returning null for
+	// NONE.
+	public static String toString(int number)
+	{
+		if(number == NONE)
+		{
+			return null;
+		}
+		char[] text = new char[LENGTH];
+		fill(text, number);
+		return new String(text);
+	}
+
+	// Method to append a customer ID to a string builder, without creating a string.
+	public static void appendTo(StringBuilder builder, int number)
+	{
+		builder.append('c');
+		for(int divisor = 1000000; divisor > 0; divisor /= 10)
+		{
+			builder.append((char) ('0' + number / divisor % 10));
+		}
+	}
+
+	// Method to write the characters of a customer ID into an array.
+	private static void fill(char[] text, int number)
+	{
+		text[0] = 'c';
+		for(int i = LENGTH - 1; i > 0; i--)
+		{
+			text[i] = (char) ('0' + number % 10);
+			number /= 10;
+		}
+	}
+}
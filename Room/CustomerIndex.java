@@ -0,0 +1,87 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/CustomerIndex.java
+// Description:
+// 	This class, CustomerIndex, records which rooms each customer currently
+// 	has booked, by registry slot, so that a customer's bookings can be found
+// 	without reading every room. Customers are keyed by their number (see
+// 	CustomerId), and each holds a small array of slots.
+//
+// 	The arrays are never changed once they are in the map. Adding or
+// 	removing a room replaces the customer's array inside the map's
+// 	compute(), which only locks that customer's entry, so desks booking for
+// 	different customers do not wait for each other and lookups never lock.
+//
+package Room;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+class CustomerIndex
+{
+
+	// An array with no slots, returned for customers with no bookings.
+	private static final int[] NO_SLOTS = new int[0];
+
+	// The slots booked by each customer.
+	private final ConcurrentHashMap<Integer, int[]> slots = new ConcurrentHashMap<Integer, int[]>();
+
+	// Method to record that a customer has booked the room in a slot. Bookings
+	// without a customer are not recorded.
+	void add(int customerNumber, final int slot)
+	{
+		if(customerNumber == CustomerId.NONE)
+		{
+			return;
+		}
+		slots.compute(customerNumber, (customer, current) ->
+		{
+			if(current == null)
+			{
+				return new int[] {slot};
+			}
+			int[] grown = Arrays.copyOf(current, current.length + 1);
+			grown[current.length] = slot;
+			return grown;
+		});
+	}
+
+	// Method to record that a customer no longer has the room in a slot booked.
+	void remove(int customerNumber, final int slot)
+	{
+		slots.computeIfPresent(customerNumber, (customer, current) ->
+		{
+			for(int i=0; i < current.length; i++)
+			{
+				if(current[i] == slot)
+				{
+					if(current.length == 1)
+					{
+						return null;
+					}
+					int[] shrunk = new int[current.length - 1];
+					System.arraycopy(current, 0, shrunk, 0, i);
+					System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+					return shrunk;
+				}
+			}
+			return current;
+		});
+	}
+
+	// Method to find the slots of the rooms a customer has booked, in the order
+	// they were booked.
+	int[] find(int customerNumber)
+	{
+		int[] found = slots.get(customerNumber);
+		return found == null ? NO_SLOTS : found.clone();
+	}
+
+	// Method to count the customers with at least one room booked.
+	int customers()
+	{
+		return slots.size();
+	}
+}
@@ -0,0 +1,156 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/InventoryTotals.java
+// Description:
+// 	This class, InventoryTotals, keeps running totals for the rooms in a
+// 	registry - the number of rooms with each status, what the rooms booked
+// 	tonight earn per night, the charges of the current bookings, and the
+// 	charges billed and discounts granted at checkout. The registry updates
+// 	them as each booking, checkout or clean is finished, so reading them
+// 	costs the same however many rooms there are.
+//
+// 	Money is kept as whole cents in LongAdders, so bookings made and
+// 	checked out from several desks at once are added without a lock and the
+// 	totals do not drift as amounts are added and taken away again.
+//
+package Room;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class InventoryTotals
+{
+
+	// Class wide variables.
+	private final LongAdder available = new LongAdder();
+	private final LongAdder booked = new LongAdder();
+	private final LongAdder unclean = new LongAdder();
+	private final LongAdder nightlyRateCents = new LongAdder();
+	private final LongAdder bookedChargeCents = new LongAdder();
+	private final LongAdder checkouts = new LongAdder();
+	private final LongAdder billedCents = new LongAdder();
+	private final LongAdder discountCents = new LongAdder();
+
+	// Method to count a room added to the registry.
+	void add(Room room)
+	{
+		count(room.getStatus(), 1);
+		if(room.getStatus() == 'B')
+		{
+			nightlyRateCents.add(cents(room.getDailyRate()));
+			bookedChargeCents.add(cents(room.getCharge()));
+		}
+	}
+
+	// Method to update the totals for a room whose booking details have changed,
+	// given its status and charge beforehand. Checkouts are only counted as billed
+	// when they happened now, not when they were restored from file.
+	void bookingChanged(Room room, char oldStatus, double oldCharge, boolean restored)
+	{
+		char newStatus = room.getStatus();
+		count(oldStatus, -1);
+		count(newStatus, 1);
+		if(oldStatus == 'B')
+		{
+			nightlyRateCents.add(-cents(room.getDailyRate()));
+			bookedChargeCents.add(-cents(oldCharge));
+		}
+		if(newStatus == 'B')
+		{
+			nightlyRateCents.add(cents(room.getDailyRate()));
+			bookedChargeCents.add(cents(room.getCharge()));
+		}
+		if(oldStatus == 'B' && newStatus == 'U' && !restored)
+		{
+			checkouts.increment();
+			billedCents.add(cents(room.getCharge()));
+			if(room instanceof PremiumRoom)
+			{
+				discountCents.add(cents(((PremiumRoom) room).getDiscountAmount()));
+			}
+		}
+	}
+
+	// Method to update the nightly rate total for a booked room whose rate has
+	// changed. Rates are only changed while the room is not part way through a
+	// booking or checkout, such as when rooms are loaded.
+	void rateChanged(Room room, double oldRate)
+	{
+		if(room.getStatus() == 'B')
+		{
+			nightlyRateCents.add(cents(room.getDailyRate()) - cents(oldRate));
+		}
+	}
+
+	// Accessor method for the number of rooms with a status.
+	public long getCount(char status)
+	{
+		switch(status)
+		{
+			case 'A':
+				return available.sum();
+			case 'B':
+				return booked.sum();
+			case 'U':
+				return unclean.sum();
+			default:
+				return 0;
+		}
+	}
+
+	// Accessor method for the total of the daily rates of the booked rooms, which
+	// is what they earn tonight.
+	public double getNightlyRevenue()
+	{
+		return nightlyRateCents.sum() / 100.0;
+	}
+
+	// Accessor method for the total of the charges of the current bookings.
+	public double getBookedRevenue()
+	{
+		return bookedChargeCents.sum() / 100.0;
+	}
+
+	// Accessor method for the number of checkouts since the program started.
+	public long getCheckouts()
+	{
+		return checkouts.sum();
+	}
+
+	// Accessor method for the total charged at checkout since the program started.
+	public double getBilledRevenue()
+	{
+		return billedCents.sum() / 100.0;
+	}
+
+	// Accessor method for the total of the discounts given at checkout since the
+	// program started.
+	public double getDiscounts()
+	{
+		return discountCents.sum() / 100.0;
+	}
+
+	// Method to add to the count for a status.
+	private void count(char status, int amount)
+	{
+		switch(status)
+		{
+			case 'A':
+				available.add(amount);
+				break;
+			case 'B':
+				booked.add(amount);
+				break;
+			case 'U':
+				unclean.add(amount);
+				break;
+		}
+	}
+
+	// Method to convert an amount of money to whole cents.
+	private static long cents(double amount)
+	{
+		return Math.round(amount * 100.0);
+	}
+}
@@ -0,0 +1,133 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/NightAudit.java
+// Description:
+// 	This class, NightAudit, is designed to be statically called to run the
+// 	end of day audit over every room, producing an AuditReport. The rooms
+// 	are split in half, and in half again, as fork-join tasks until each part
+// 	holds LEAF_ROOMS rooms or fewer. Each part is audited into its own report
+// 	and the reports are merged as the tasks finish, so the audit runs on
+// 	every core without the parts ever waiting on each other, and idle cores
+// 	steal the parts that have not been started yet.
+//
+// 	The desks can keep booking and checking out while the audit runs. Each
+// 	room's details are read once it is not part way through a change, and
+// 	read again if it changed while they were being read, so a room is never
+// 	audited with half of a booking's details.
+//
+package Room;
+
+import utilities.Clock;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public final class NightAudit
+{
+
+	// The most rooms audited by one task without splitting it.
+	private static final int LEAF_ROOMS = 4096;
+
+	// The width of the rate bands used when none is given.
+	public static final double DEFAULT_BAND_WIDTH = 50.00;
+
+	// This class is not meant to be instantiated.
+	private NightAudit()
+	{
+	}
+
+	// Method to audit every room using the common fork-join pool.
+	public static AuditReport run(Room[] rooms, double bandWidth)
+	{
+		return run(rooms, bandWidth, ForkJoinPool.commonPool());
+	}
+
+	// Method to audit every room using the given fork-join pool.
+	public static AuditReport run(Room[] rooms, double bandWidth, ForkJoinPool pool)
+	{
+		long now = Clock.now();
+		long start = System.nanoTime();
+		AuditReport report = pool.invoke(new AuditTask(rooms, 0, rooms.length, bandWidth, now));
+		report.finish(now, System.nanoTime() - start);
+		return report;
+	}
+
+	// Method to audit a run of rooms into a report.
+	private static AuditReport audit(Room[] rooms, int from, int to, double bandWidth, long now)
+	{
+		AuditReport report = new AuditReport(bandWidth);
+		for(int i = from; i < to; i++)
+		{
+			Room room = rooms[i];
+			PremiumRoom premiumRoom = room instanceof PremiumRoom ? (PremiumRoom) room : null;
+			char status;
+			int customerNumber;
+			double dailyRate;
+			double charge;
+			long bookingStart;
+			long bookingEnd;
+			double discountAmount;
+			double voucherAmount;
+
+			// Read the details again if the room changed while they were read.
+			long stateWord;
+			do
+			{
+				stateWord = room.stableState();
+				status = room.getStatus();
+				customerNumber = room.getCustomerNumber();
+				dailyRate = room.getDailyRate();
+				charge = room.getCharge();
+				bookingStart = room.getBookingStartTimestamp();
+				bookingEnd = room.getBookingEndTimestamp();
+				discountAmount = premiumRoom == null ? 0.0 : premiumRoom.getDiscountAmount();
+				voucherAmount = premiumRoom == null ? 0.0 : premiumRoom.getVoucherAmount();
+			}
+			while(!room.unchangedSince(stateWord));
+
+			report.add(room, status, customerNumber, dailyRate, charge, bookingStart, bookingEnd, discountAmount, voucherAmount, now);
+		}
+		return report;
+	}
+
+	// A run of rooms to audit, split in half until it is small enough to audit
+	// directly.
+	private static final class AuditTask extends RecursiveTask<AuditReport>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Room[] rooms;
+		private final int from;
+		private final int to;
+		private final double bandWidth;
+		private final long now;
+
+		private AuditTask(Room[] rooms, int from, int to, double bandWidth, long now)
+		{
+			this.rooms = rooms;
+			this.from = from;
+			this.to = to;
+			this.bandWidth = bandWidth;
+			this.now = now;
+		}
+
+		protected AuditReport compute()
+		{
+			if(to - from <= LEAF_ROOMS)
+			{
+				return audit(rooms, from, to, bandWidth, now);
+			}
+
+			// Hand the first half to another core if one is free, and audit the second
+			// half here. The first half's rooms come first, so it is merged into.
+			int middle = (from + to) >>> 1;
+			AuditTask first = new AuditTask(rooms, from, middle, bandWidth, now);
+			first.fork();
+			AuditReport second = new AuditTask(rooms, middle, to, bandWidth, now).compute();
+			AuditReport report = first.join();
+			report.merge(second);
+			return report;
+		}
+	}
+}
@@ -19,6 +19,9 @@ import java.io.*;
 public class PremiumRoom extends Room implements Serializable
 {
 
+	// Serialisation version used by existing rooms.dat files.
+	private static final long serialVersionUID = -6207901340323843617L;
+
 	// This is the % discount given to a customer, based on the charge of
 	// their current booking, to be used on their next booking.
 	private static final double DISCOUNT_PCENT = 0.25;
@@ -42,9 +45,13 @@ public class PremiumRoom extends Room implements Serializable
 	// Overridden method to book rooms, allowing for vouchers to be stored when booking.
 	public boolean bookRoom(String customerId, int nightsRequired, double voucherAmount)
 	{
-		if(super.bookRoom(customerId, nightsRequired))
+
+		// The voucher is stored before the booking is finished, so another desk can
+		// never see this booking without its voucher.
+		if(startBooking(customerId, nightsRequired))
 		{
 			this.voucherAmount = voucherAmount;
+			finishTransition();
 			return true;
 		}
 		else
@@ -71,7 +78,7 @@ public class PremiumRoom extends Room implements Serializable
 	// Overridden method to checkout of a room, allowing for discounts and vouchers.
 	public boolean checkout()
 	{
-		if(super.checkout())
+		if(startCheckout())
 		{
 
 			// Process any discounts on the current booking.
@@ -82,6 +89,7 @@ public class PremiumRoom extends Room implements Serializable
 
 			// Set the discount amount for the next booking.
 			nextBookingDiscountVoucher = getCharge() * DISCOUNT_PCENT;
+			finishTransition();
 			return true;
 		}
 		else
@@ -91,6 +99,13 @@ public class PremiumRoom extends Room implements Serializable
 
 	}
 
+	// Overridden method to clear a cancelled booking, including its voucher.
+	protected void clearBooking()
+	{
+		voucherAmount = 0.00;
+		super.clearBooking();
+	}
+
 	// Overridden method to print room and booking information, along with any
 	// discount / voucher information.
 	public void print()
@@ -101,35 +116,35 @@ public class PremiumRoom extends Room implements Serializable
 		// in an attempt to make it readable to the user.
 		if(getStatus() == 'B')
 		{
-			System.out.println();
+			ScreenManager.println();
 			ScreenManager.printHeader("Premium room discount details");
 			ScreenManager.printNotice("Customer is entitled to the greater of the following promotional discounts");
-			System.out.println();
-			System.out.printf("%S %1s $ %(,7.2f %26s\n", "Discount Rate: ", "", discountRate, "One-off Discount");
-			System.out.println();
+			ScreenManager.println();
+			ScreenManager.printf("%S %1s $ %(,7.2f %26s\n", "Discount Rate: ", "", discountRate, "One-off Discount");
+			ScreenManager.println();
 			ScreenManager.printDivider("or");
-			System.out.println();
-			System.out.printf("%S %11d %25s\n", "Free-Night(s): ", freeNights, "Per Reservation");
-			System.out.println();
+			ScreenManager.println();
+			ScreenManager.printf("%S %11d %25s\n", "Free-Night(s): ", freeNights, "Per Reservation");
+			ScreenManager.println();
 			ScreenManager.printDivider("or");
-			System.out.println();
-			System.out.printf("%S %7s $ %(,7.2f %30s\n", "Voucher: ", "", voucherAmount, "Provided by Customer");
-			System.out.println();
+			ScreenManager.println();
+			ScreenManager.printf("%S %7s $ %(,7.2f %30s\n", "Voucher: ", "", voucherAmount, "Provided by Customer");
+			ScreenManager.println();
 		}
 
 		// If the room is now set to un-clean (i.e. it was just checked out), print a promotional
 		// off to be redeemed on next booking.
 		else if(getStatus() == 'U')
 		{
-			System.out.printf("%S %4s $ %(,7.2f (%s)", "Discount: ", "", discountAmount, "Applied to Charge Above");
+			ScreenManager.printf("%S %4s $ %(,7.2f (%s)", "Discount: ", "", discountAmount, "Applied to Charge Above");
 			if(nextBookingDiscountVoucher > 0)
 			{
-				System.out.println();
-				System.out.println();
+				ScreenManager.println();
+				ScreenManager.println();
 				ScreenManager.printDivider("Promotional offer");
-				System.out.println();
-				System.out.printf("  Receive a $ %(,7.2f reduction on your next booking.\n", nextBookingDiscountVoucher);
-				System.out.println("  Simply present this receipt to claim your discount.");
+				ScreenManager.println();
+				ScreenManager.printf("  Receive a $ %(,7.2f reduction on your next booking.\n", nextBookingDiscountVoucher);
+				ScreenManager.println("  Simply present this receipt to claim your discount.");
 			}
 		}
 
@@ -143,22 +158,91 @@ public class PremiumRoom extends Room implements Serializable
 		return stringVersion;
 	}
 
+	// Accessor method for free nights.
+	public int getFreeNights()
+	{
+		return freeNights;
+	}
+
+	// Mutator method for free nights.
+	public void setFreeNights(int freeNights)
+	{
+		this.freeNights = freeNights;
+		pricingChanged();
+	}
+
+	// Accessor method for discount rate.
+	public double getDiscountRate()
+	{
+		return discountRate;
+	}
+
+	// Mutator method for discount rate.
+	public void setDiscountRate(double discountRate)
+	{
+		this.discountRate = discountRate;
+		pricingChanged();
+	}
+
+	// Accessor method for the voucher offered on the customer's next booking.
+	public double getNextBookingDiscountVoucher()
+	{
+		return nextBookingDiscountVoucher;
+	}
+
+	// Accessor method for the voucher provided with the current booking.
+	public double getVoucherAmount()
+	{
+		return voucherAmount;
+	}
+
+	// Accessor method for the discount applied at checkout.
+	public double getDiscountAmount()
+	{
+		return discountAmount;
+	}
+
+	// Method to restore the voucher and discount details of a room read from a
+	// snapshot file.
+	void restoreDiscounts(double nextBookingDiscountVoucher, double voucherAmount, double discountAmount)
+	{
+		this.nextBookingDiscountVoucher = nextBookingDiscountVoucher;
+		this.voucherAmount = voucherAmount;
+		this.discountAmount = discountAmount;
+	}
+
 	// Method to process any discounts for this object.
 	// Works by selecting the discount that provides the best value to the customer, not exactely
 	// business logic, but why not.
 	public double processDiscounts()
+	{
+		return discount(getNumberOfDays(), getCharge(), getDailyRate(), freeNights, discountRate, voucherAmount);
+	}
+
+	// Overridden method to work out what a stay would cost, including the discount
+	// that would be given at checkout.
+	public Quote quote(int nights, double voucherAmount)
+	{
+		double dailyRate = getDailyRate();
+		double charge = checkoutCharge(nights, dailyRate);
+		return new Quote(charge, discount(nights, charge, dailyRate, freeNights, discountRate, voucherAmount));
+	}
+
+	// Method to work out the discount for a stay from its details, using the same
+	// rules as processDiscounts(), which calls it. QuoteEngine calls it for many
+	// rooms at once, so the two can never disagree.
+	static double discount(int numberOfDays, double charge, double dailyRate, int freeNights, double discountRate, double voucherAmount)
 	{
 		double discountTotal = 0;
-		int numberOfDays = getNumberOfDays();
 		if(numberOfDays >= freeNights)
 		{
-			discountTotal = getDailyRate() * freeNights;
+			discountTotal = dailyRate * freeNights;
 		}
-		if(getCharge() >= discountRate)
+		if(charge >= discountRate)
 		{
-			if(discountTotal < (getCharge() - discountRate))
+			if(discountTotal < (charge - discountRate))
 			{
-				discountTotal = getCharge() - discountRate;
+				discountTotal = charge - discountRate;
 			}
 		}
 		if(voucherAmount >= discountTotal)
@@ -167,9 +251,9 @@ public class PremiumRoom extends Room implements Serializable
 		}
 
 		// Don't let the discount exceed the total charge.
-		if(discountTotal > getCharge())
+		if(discountTotal > charge)
 		{
-			discountTotal = getCharge();
+			discountTotal = charge;
 		}
 
 		return discountTotal;
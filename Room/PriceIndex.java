@@ -0,0 +1,190 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/PriceIndex.java
+// Description:
+// 	This class, PriceIndex, keeps the daily rate of every room in a registry
+// 	as a sorted array, with a parallel array of registry slots, so that a
+// 	price range can be found with two binary searches. Rooms with the same
+// 	rate are kept in slot order.
+//
+package Room;
+
+class PriceIndex
+{
+
+	// Class wide variables.
+	private double[] rates;
+	private int[] slots;
+	private int size;
+
+	// Constructor, builds the index from every room currently in the registry.
+	PriceIndex(RoomRegistry registry)
+	{
+		size = registry.size();
+		rates = new double[Math.max(16, size)];
+		slots = new int[rates.length];
+		for(int i=0; i < size; i++)
+		{
+			rates[i] = registry.get(i).getDailyRate();
+			slots[i] = i;
+		}
+		sort();
+	}
+
+	// Method to add a room's slot at the given rate.
+	void insert(double rate, int slot)
+	{
+		if(size == rates.length)
+		{
+			double[] grownRates = new double[size * 2];
+			int[] grownSlots = new int[size * 2];
+			System.arraycopy(rates, 0, grownRates, 0, size);
+			System.arraycopy(slots, 0, grownSlots, 0, size);
+			rates = grownRates;
+			slots = grownSlots;
+		}
+
+		// Shift the larger entries up by one to make space.
+		int position = position(rate, slot);
+		System.arraycopy(rates, position, rates, position + 1, size - position);
+		System.arraycopy(slots, position, slots, position + 1, size - position);
+		rates[position] = rate;
+		slots[position] = slot;
+		size++;
+	}
+
+	// Method to remove a room's slot, which must have been inserted at the given rate.
+	void remove(double rate, int slot)
+	{
+		int position = position(rate, slot);
+		if(position == size || rates[position] != rate || slots[position] != slot)
+		{
+			throw new IllegalStateException("Slot " + slot + " is not indexed at rate " + rate);
+		}
+		System.arraycopy(rates, position + 1, rates, position, size - position - 1);
+		System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+		size--;
+	}
+
+	// Method to find the slots of all rooms with a rate between min and max
+	// inclusive, ordered by rate.
+	int[] range(double minRate, double maxRate)
+	{
+		int from = lowerBound(minRate);
+		int to = upperBound(maxRate);
+		if(to <= from)
+		{
+			return new int[0];
+		}
+		int[] result = new int[to - from];
+		System.arraycopy(slots, from, result, 0, result.length);
+		return result;
+	}
+
+	// Method to find the first position with a rate of at least the given rate.
+	private int lowerBound(double rate)
+	{
+		int low = 0;
+		int high = size;
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if(rates[middle] < rate)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	// Method to find the first position with a rate greater than the given rate.
+	private int upperBound(double rate)
+	{
+		int low = 0;
+		int high = size;
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if(rates[middle] <= rate)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	// Method to find the position of a (rate, slot) pair, or where it would be
+	// inserted if it is not present.
+	private int position(double rate, int slot)
+	{
+		int low = 0;
+		int high = size;
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if(rates[middle] < rate || (rates[middle] == rate && slots[middle] < slot))
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	// Method to sort the entries by rate, using a bottom-up merge sort so rooms
+	// with equal rates keep their slot order.
+	private void sort()
+	{
+		double[] rateBuffer = new double[size];
+		int[] slotBuffer = new int[size];
+		for(int width = 1; width < size; width *= 2)
+		{
+			for(int low = 0; low < size - width; low += width * 2)
+			{
+				int middle = low + width;
+				int high = Math.min(low + width * 2, size);
+				int left = low;
+				int right = middle;
+				int out = low;
+				while(left < middle && right < high)
+				{
+					if(rates[right] < rates[left])
+					{
+						rateBuffer[out] = rates[right];
+						slotBuffer[out++] = slots[right++];
+					}
+					else
+					{
+						rateBuffer[out] = rates[left];
+						slotBuffer[out++] = slots[left++];
+					}
+				}
+				while(left < middle)
+				{
+					rateBuffer[out] = rates[left];
+					slotBuffer[out++] = slots[left++];
+				}
+				while(right < high)
+				{
+					rateBuffer[out] = rates[right];
+					slotBuffer[out++] = slots[right++];
+				}
+				System.arraycopy(rateBuffer, low, rates, low, high - low);
+				System.arraycopy(slotBuffer, low, slots, low, high - low);
+			}
+		}
+	}
+}
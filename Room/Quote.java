@@ -0,0 +1,50 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/Quote.java
+// Description:
+// 	This class, Quote, records what a stay in a room would cost - the charge
+// 	for the nights, the discount that would be given at checkout, and the
+// 	price after it - worked out with the same rules as checkout.
+//
+package Room;
+
+public final class Quote
+{
+
+	// Class wide variables.
+	private final double charge;
+	private final double discount;
+
+	// Constructor.
+	Quote(double charge, double discount)
+	{
+		this.charge = charge;
+		this.discount = discount;
+	}
+
+	// Accessor method for the charge for the nights, before any discount.
+	public double getCharge()
+	{
+		return charge;
+	}
+
+	// Accessor method for the discount.
+	public double getDiscount()
+	{
+		return discount;
+	}
+
+	// Accessor method for the price, after the discount.
+	public double getPrice()
+	{
+		return charge - discount;
+	}
+
+	// Method to return the quote as text.
+	public String toString()
+	{
+		return String.format("$%,.2f - $%,.2f = $%,.2f", charge, discount, getPrice());
+	}
+}
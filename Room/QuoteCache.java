@@ -0,0 +1,222 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/QuoteCache.java
+// Description:
+// 	This class, QuoteCache, remembers the quotes given for stays, keyed by
+// 	room ID, number of nights and voucher amount, so that the front desk
+// 	asking for the same quote again during a call gets it from a lookup
+// 	rather than working it out again.
+//
+// 	The cache holds at most a fixed number of quotes. When it is full the
+// 	quote to drop is chosen by the CLOCK algorithm: the quotes sit in a
+// 	ring, each with a bit set whenever it is used, and a hand moves round
+// 	the ring clearing the bits until it finds a quote not used since it
+// 	last passed. That is close to dropping the least recently used quote,
+// 	without reordering a list on every lookup.
+//
+// 	Each quote remembers the room's pricing version (see
+// 	Room.getPricingVersion()) when it was worked out. Changing the room's
+// 	daily rate, free nights or discount rate changes the version, so the
+// 	old quote is recognised as stale and worked out again the next time it
+// 	is asked for. Hits, misses, stale quotes and evictions are counted.
+//
+package Room;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class QuoteCache
+{
+
+	// Class wide variables.
+	private final int capacity;
+	private final Map<Key, Entry> entries;
+	private final Entry[] ring;
+	private int size;
+	private int hand;
+	private long hits;
+	private long misses;
+	private long stale;
+	private long evictions;
+
+	// Constructor, creates an empty cache holding at most the given number of
+	// quotes.
+	public QuoteCache(int capacity)
+	{
+		this.capacity = Math.max(1, capacity);
+		entries = new HashMap<Key, Entry>(this.capacity * 2);
+		ring = new Entry[this.capacity];
+	}
+
+	// Method to quote a stay of a number of nights with a voucher in a room, from
+	// the cache if the room's pricing has not changed since it was last quoted.
+	public synchronized Quote quote(Room room, int nights, double voucherAmount)
+	{
+
+		// The version is read before the quote is worked out, so a change made while
+		// it is worked out leaves the quote stale rather than wrongly fresh.
+		int version = room.getPricingVersion();
+		Key key = new Key(room.getId(), nights, Math.round(voucherAmount * 100.0));
+		voucherAmount = key.voucherCents / 100.0;
+		Entry entry = entries.get(key);
+		if(entry != null)
+		{
+			if(entry.room == room && entry.version == version)
+			{
+				hits++;
+				entry.used = true;
+				return entry.quote;
+			}
+
+			// The room's pricing has changed (or it was loaded again), so the quote is
+			// worked out again in the same place in the ring.
+			stale++;
+			misses++;
+			entry.room = room;
+			entry.version = version;
+			entry.quote = room.quote(nights, voucherAmount);
+			entry.used = true;
+			return entry.quote;
+		}
+
+		misses++;
+		entry = new Entry(key, room, version, room.quote(nights, voucherAmount));
+		if(size < capacity)
+		{
+			ring[size++] = entry;
+		}
+		else
+		{
+			ring[evict()] = entry;
+		}
+		entries.put(key, entry);
+		return entry.quote;
+	}
+
+	// Method to forget every quote, such as after rooms have been loaded again. The
+	// counts are kept.
+	public synchronized void clear()
+	{
+		entries.clear();
+		for(int i=0; i < size; i++)
+		{
+			ring[i] = null;
+		}
+		size = 0;
+		hand = 0;
+	}
+
+	// Accessor method for the number of quotes that can be held.
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	// Accessor method for the number of quotes held.
+	public synchronized int size()
+	{
+		return size;
+	}
+
+	// Accessor method for the number of quotes found in the cache.
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	// Accessor method for the number of quotes that had to be worked out, including
+	// stale ones.
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	// Accessor method for the number of quotes found in the cache but worked out
+	// again because the room's pricing had changed.
+	public synchronized long getStale()
+	{
+		return stale;
+	}
+
+	// Accessor method for the number of quotes dropped to make room for others.
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+
+	// Method to return the counts as text.
+	public synchronized String toString()
+	{
+		long lookups = hits + misses;
+		return String.format("%d/%d held, %d hits, %d misses (%d stale), %d evictions, %.1f%% hit rate", size, capacity, hits, misses,
+			stale, evictions, lookups == 0 ? 0.0 : hits * 100.0 / lookups);
+	}
+
+	// Method to move the hand round the ring to a quote not used since the hand
+	// last passed it, drop that quote, and return its place in the ring.
+	private int evict()
+	{
+		while(ring[hand].used)
+		{
+			ring[hand].used = false;
+			hand = (hand + 1) % capacity;
+		}
+		int victim = hand;
+		entries.remove(ring[victim].key);
+		evictions++;
+		hand = (hand + 1) % capacity;
+		return victim;
+	}
+
+	// The details a quote is for. The voucher amount is held in whole cents, so
+	// amounts that print the same are the same key.
+	private static final class Key
+	{
+		private final String roomId;
+		private final int nights;
+		private final long voucherCents;
+
+		private Key(String roomId, int nights, long voucherCents)
+		{
+			this.roomId = roomId;
+			this.nights = nights;
+			this.voucherCents = voucherCents;
+		}
+
+		public boolean equals(Object other)
+		{
+			if(!(other instanceof Key))
+			{
+				return false;
+			}
+			Key key = (Key) other;
+			return nights == key.nights && voucherCents == key.voucherCents && roomId.equals(key.roomId);
+		}
+
+		public int hashCode()
+		{
+			return (roomId.hashCode() * 31 + nights) * 31 + Long.hashCode(voucherCents);
+		}
+	}
+
+	// A quote held in the cache, with the room and pricing version it was worked
+	// out for, and whether it has been used since the hand last passed it.
+	private static final class Entry
+	{
+		private final Key key;
+		private Room room;
+		private int version;
+		private Quote quote;
+		private boolean used;
+
+		private Entry(Key key, Room room, int version, Quote quote)
+		{
+			this.key = key;
+			this.room = room;
+			this.version = version;
+			this.quote = quote;
+		}
+	}
+}
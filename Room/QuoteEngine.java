@@ -0,0 +1,99 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/QuoteEngine.java
+// Description:
+// 	This class, QuoteEngine, quotes the price of a stay in every premium
+// 	room at once, for sales staff. It copies the details the discount rules
+// 	use - daily rate, free nights and discount rate - into primitive arrays,
+// 	one entry per room, and then works out each room's charge and discount
+// 	in one loop over the arrays, with the same rules as checkout (see
+// 	Room.checkoutCharge() and PremiumRoom.discount()). Nothing is allocated
+// 	and no room is touched while quoting, so quoting many thousands of rooms
+// 	costs little more than reading the arrays.
+//
+// 	The arrays are a copy, taken when the engine is created. An engine
+// 	should be created again if rooms are added or their rates change.
+//
+package Room;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class QuoteEngine
+{
+
+	// Class wide variables.
+	private final PremiumRoom[] rooms;
+	private final double[] dailyRates;
+	private final int[] freeNights;
+	private final double[] discountRates;
+
+	// Constructor, copies the details of the premium rooms in the given array, in
+	// the same order. Standard rooms are left out.
+	public QuoteEngine(Room[] rooms)
+	{
+		List<PremiumRoom> premiumRooms = new ArrayList<PremiumRoom>();
+		for(int i=0; i < rooms.length; i++)
+		{
+			if(rooms[i] instanceof PremiumRoom)
+			{
+				premiumRooms.add((PremiumRoom) rooms[i]);
+			}
+		}
+		this.rooms = premiumRooms.toArray(new PremiumRoom[premiumRooms.size()]);
+		dailyRates = new double[this.rooms.length];
+		freeNights = new int[this.rooms.length];
+		discountRates = new double[this.rooms.length];
+		for(int i=0; i < this.rooms.length; i++)
+		{
+			dailyRates[i] = this.rooms[i].getDailyRate();
+			freeNights[i] = this.rooms[i].getFreeNights();
+			discountRates[i] = this.rooms[i].getDiscountRate();
+		}
+	}
+
+	// Accessor method for the number of rooms quoted.
+	public int size()
+	{
+		return rooms.length;
+	}
+
+	// Accessor method for the room at a position in the quotes.
+	public PremiumRoom getRoom(int index)
+	{
+		return rooms[index];
+	}
+
+	// Method to quote a stay of a number of nights with a voucher in every room,
+	// filling in each room's discount and the price after it. Both arrays must
+	// hold at least size() entries.
+	public void quote(int nights, double voucherAmount, double[] discounts, double[] prices)
+	{
+		quote(dailyRates, freeNights, discountRates, 0, rooms.length, nights, voucherAmount, discounts, prices);
+	}
+
+	// Method to quote a stay for the rooms at positions from (inclusive) to
+	// (exclusive), filling in the same entries of discounts and prices.
+	public void quote(int from, int to, int nights, double voucherAmount, double[] discounts, double[] prices)
+	{
+		quote(dailyRates, freeNights, discountRates, from, to, nights, voucherAmount, discounts, prices);
+	}
+
+	// Method to quote a stay of a number of nights with a voucher for the rooms
+	// described by the entries from (inclusive) to (exclusive) of the given
+	// arrays, filling in the same entries of discounts and prices. A stay of no
+	// nights is charged as one night, as at checkout.
+	public static void quote(double[] dailyRates, int[] freeNights, double[] discountRates, int from, int to, int nights,
+		double voucherAmount, double[] discounts, double[] prices)
+	{
+		for(int i = from; i < to; i++)
+		{
+			double charge = Room.checkoutCharge(nights, dailyRates[i]);
+			double discount = PremiumRoom.discount(nights, charge, dailyRates[i], freeNights[i], discountRates[i], voucherAmount);
+			discounts[i] = discount;
+			prices[i] = charge - discount;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/Reservation.java
+// Description:
+// 	This class, Reservation, records a booking made in advance - the
+// 	customer, the first night they will stay, and the number of nights.
+// 	Nights are held as epoch days (see EpochDays). A reservation becomes an
+// 	ordinary booking when the customer books the room on their first night.
+//
+package Room;
+
+import utilities.EpochDays;
+
+public final class Reservation
+{
+
+	// Class wide variables.
+	private final int customerNumber;
+	private final long firstNight;
+	private final int nights;
+
+	// Constructor.
+	Reservation(int customerNumber, long firstNight, int nights)
+	{
+		this.customerNumber = customerNumber;
+		this.firstNight = firstNight;
+		this.nights = nights;
+	}
+
+	// Accessor method for customer ID, as text.
+	public String getCustomerId()
+	{
+		return CustomerId.toString(customerNumber);
+	}
+
+	// Accessor method for the customer's number (see CustomerId).
+	public int getCustomerNumber()
+	{
+		return customerNumber;
+	}
+
+	// Accessor method for the first night, as an epoch day.
+	public long getFirstNight()
+	{
+		return firstNight;
+	}
+
+	// Accessor method for the number of nights.
+	public int getNights()
+	{
+		return nights;
+	}
+
+	// Accessor method for the day the customer leaves, as an epoch day.
+	public long getDepartureDay()
+	{
+		return firstNight + nights;
+	}
+
+	// Convert the reservation to a ":" delimitered string.
+	public String toString()
+	{
+		return getCustomerId() + ":" + EpochDays.formatIsoDay(firstNight) + ":" + nights;
+	}
+}
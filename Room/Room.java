@@ -9,148 +9,559 @@
 //
 package Room;
 
+import utilities.Clock;
 import utilities.DateTimeExtended;
+import utilities.EpochDays;
+import utilities.Metrics;
+import utilities.OperationMetrics;
 import utilities.ScreenManager;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 // Room class must implement Serializable so that it may be outputted to a
 // serialised file.
+//
+// A room's status is held in a packed state word, updated with compare-and-set
+// so that several front desks can share the same rooms without a lock. The low
+// 16 bits hold the status character, bit 16 is set while a booking or checkout
+// is filling in the room's details, and the remaining bits count transitions.
+// Only one of several desks trying to book the same room can win the
+// compare-and-set, so a room cannot be double booked.
+//
+// The nights taken by the current stay and by reservations for future dates
+// are kept in an AvailabilityCalendar, created when the room is first booked
+// or reserved. A booking takes the nights from today, so it is refused if
+// they clash with a reservation, unless the reservation is the customer's
+// own and starts today, in which case the booking takes it over.
 public class Room implements Serializable
 {
 
+	// Fixed serialisation version, matching the rooms.dat files written before this
+	// class gained new methods, so that those files can still be read.
+	private static final long serialVersionUID = -2948438949575527133L;
+
+	// The fields saved by Java serialisation. These are the fields older versions
+	// of this class had, so existing rooms.dat files can still be read. The
+	// DateTimeExtended fields are never used - DateTime does not save its time, so
+	// they did not hold the booking dates anyway - and are saved as null.
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("roomId", String.class),
+		new ObjectStreamField("description", String.class),
+		new ObjectStreamField("status", char.class),
+		new ObjectStreamField("dailyRate", double.class),
+		new ObjectStreamField("charge", double.class),
+		new ObjectStreamField("bookingStartDate", DateTimeExtended.class),
+		new ObjectStreamField("bookingStartTimestamp", long.class),
+		new ObjectStreamField("bookingEndDate", DateTimeExtended.class),
+		new ObjectStreamField("bookingEndTimestamp", long.class),
+		new ObjectStreamField("customerId", String.class)
+	};
+
+	// The longest room ID and description, in UTF-8 bytes, that fit in the
+	// records of snapshot and journal files (see RoomSnapshot).
+	public static final int MAX_ID_BYTES = 23;
+	public static final int MAX_DESCRIPTION_BYTES = 63;
+
+	// Layout of the packed state word.
+	private static final long STATUS_MASK = 0xFFFFL;
+	private static final long PENDING = 1L << 16;
+	private static final int VERSION_SHIFT = 17;
+
+	// Updater used to compare-and-set the state word.
+	private static final AtomicLongFieldUpdater<Room> STATE = AtomicLongFieldUpdater.newUpdater(Room.class, "state");
+
+	// Updater used to create the calendar, so that two desks reserving a room for
+	// the first time at once share the same calendar.
+	private static final AtomicReferenceFieldUpdater<Room, AvailabilityCalendar> CALENDAR = AtomicReferenceFieldUpdater.newUpdater(Room.class, AvailabilityCalendar.class, "calendar");
+
+	// Counts of each status transition made, refused because the room had the
+	// wrong status (or the details were invalid), or retried because another
+	// thread changed the room first.
+	private static final OperationMetrics BOOKINGS = Metrics.register("Room: book");
+	private static final OperationMetrics CHECKOUTS = Metrics.register("Room: checkout");
+	private static final OperationMetrics CLEANS = Metrics.register("Room: clean");
+	private static final OperationMetrics CANCELLATIONS = Metrics.register("Room: cancel");
+	private static final OperationMetrics RESERVATIONS = Metrics.register("Room: reserve");
+	private static final OperationMetrics RESERVATION_CANCELLATIONS = Metrics.register("Room: cancel reservation");
+
 	// Class wide variables
 	private String roomId;
 	private String description;
-	private char status;
+	private volatile long state;
 	private double dailyRate;
 	private double charge;
-	private DateTimeExtended bookingStartDate;
+
+	// The start and end of the booking, as epoch milliseconds (see EpochDays).
 	private long bookingStartTimestamp;
-	private DateTimeExtended bookingEndDate;
 	private long bookingEndTimestamp;
-	private String customerId;
 
+	// The customer's ID is kept as the number formed by its digits (see CustomerId),
+	// or CustomerId.NONE if the room is not booked.
+	private int customerNumber = CustomerId.NONE;
+
+	// The listener (usually a RoomRegistry) told about changes to this room. It is
+	// not saved to file, the registry re-attaches itself when rooms are loaded.
+	private transient RoomListener listener;
+
+	// The nights taken by the current stay and by reservations, or null if the
+	// room has never been booked or reserved. It is saved in snapshot files, not
+	// with Java serialisation.
+	private transient volatile AvailabilityCalendar calendar;
+
+	// The reservation the current booking took over, given back if the booking is
+	// cancelled, or null if it took over none. Only a booking made since the room
+	// was loaded can have one.
+	private transient Reservation takenOver;
+
+	// The status, customer and charge the room had before the transition in
+	// progress, for the listener. Only the thread holding the room pending uses
+	// them.
+	private transient char transitionFrom;
+	private transient int customerBefore;
+	private transient double chargeBefore;
 
-	// Consructor, sets room to available by default.
+	// The number of times the details that the price of a stay depends on have
+	// changed, so that quotes worked out before can be recognised (see QuoteCache).
+	private transient volatile int pricingVersion;
+
+	// The daily rate as shown in tables, cleared whenever the rate changes.
+	private transient String formattedRate;
+
+	// The heading row of the room table.
+	private static final String ROW_HEADER = String.format("  %S %33S     %9S  %13S  %15S  %10S\n", "Room ID", "Description", "Rate", "Status", "Booked Until", "Customer");
+
+	// Consructor, sets room to available by default. The room ID and description
+	// must fit in a snapshot record, so that the room can always be saved.
 	public Room(String roomId, String description, double dailyRate)
 	{
+		if(roomId == null || roomId.getBytes(StandardCharsets.UTF_8).length > MAX_ID_BYTES)
+		{
+			throw new IllegalArgumentException("Room ID must be at most " + MAX_ID_BYTES + " bytes long: " + roomId);
+		}
+		if(description == null || description.getBytes(StandardCharsets.UTF_8).length > MAX_DESCRIPTION_BYTES)
+		{
+			throw new IllegalArgumentException("Room description must be at most " + MAX_DESCRIPTION_BYTES + " bytes long: " + description);
+		}
 		this.roomId = roomId;
 		this.description = description;
 		this.dailyRate = dailyRate;
-		status = 'A';
+		state = 'A';
 	}
 
 	// Method to handle booking a room.
 	public boolean bookRoom(String customerId, int nightsRequired)
 	{
+		if(startBooking(customerId, nightsRequired))
+		{
+			finishTransition();
+			return true;
+		}
+		else
+		{
+			return false;
+		}
+	
+	}
 
-		// Ensure the room is available for booking, that the customer ID provided
-		// is valid, and that the room is being booked for at least one day.
-		if(roomAvailable() && customerId.matches("c[0-9]{7}") && nightsRequired > 0)
+	// Method to handle checking out of a room.
+	public boolean checkout()
+	{
+		if(startCheckout())
 		{
+			finishTransition();
+			return true;
+		}
+		else
+		{
+			return false;
+		}
 
-			// Use the DateTimeExtended class to store the booking start and end
-			// date. The DateTimeExtend class extends the DateTime class so that
-			// it may be used as a serialisable object and written to file.
-			// This work around will cause issues when saving the booking start and
-			// end dates, so this class stores the timestamps as well as the DateTimeExtended
-			// objects, so the DateTimeExtended objects can be re-constructed when
-			// the program loads information from a saved file.
-			bookingStartDate = new DateTimeExtended();
-			bookingStartTimestamp = bookingStartDate.getTime();
-			bookingEndDate = new DateTimeExtended(nightsRequired);
-			bookingEndTimestamp = bookingEndDate.getTime();
-			this.customerId = customerId;
+	}
 
-			// Calculate the tentative charge for the booking.
-			charge = nightsRequired * dailyRate;
+	// Method to handle rooms being marked as clean.
+	public boolean cleanRoom()
+	{
 
-			// Mark the room as booked.
-			status = 'B';
+		// Only proceed if the room is marked as un-clean, marking it as clean. No
+		// other details change, so the transition is finished straight away.
+		if(startTransition('U', 'A', CLEANS))
+		{
+			CLEANS.success();
+			finishTransition();
+			return true;
+		}
+		else
+		{
+			return false;
+		}
 
+	}
+
+	// Method to cancel a booking, returning the room straight to available. Used
+	// to undo a booking made as part of a group that could not be completed, so a
+	// reservation the booking took over is given back.
+	public boolean cancelBooking()
+	{
+		if(startTransition('B', 'A', CANCELLATIONS))
+		{
+			CANCELLATIONS.success();
+			getCalendar().cancelStay(EpochDays.toEpochDay(bookingStartTimestamp), EpochDays.daysBetween(bookingStartTimestamp, bookingEndTimestamp), takenOver);
+			takenOver = null;
+			clearBooking();
+			finishTransition();
 			return true;
 		}
 		else
 		{
 			return false;
 		}
-	
+
 	}
 
-	// Method to handle checking out of a room.
-	public boolean checkout()
+	// Method to clear the details of a cancelled booking. Subclasses clear their
+	// own booking details and then call this method.
+	protected void clearBooking()
+	{
+		bookingStartTimestamp = 0;
+		bookingEndTimestamp = 0;
+		customerNumber = CustomerId.NONE;
+		charge = 0.00;
+	}
+
+	// Method to claim an available room for a booking and fill in the booking
+	// details. Subclasses may record further details before calling
+	// finishTransition(), which must be called if this returns true.
+	protected boolean startBooking(String customerId, int nightsRequired)
 	{
 
-		// Don't proceed if the room is available for booking, or marked as unclean.
-		if(roomAvailable() || status == 'U')
+		// Ensure that the customer ID provided is valid, that the room is being booked
+		// for at least one day, and that the room is available for booking.
+		int customerNumber = CustomerId.parse(customerId);
+		if(customerNumber == CustomerId.NONE || nightsRequired < 1 || nightsRequired > AvailabilityCalendar.MAX_NIGHTS)
 		{
+			BOOKINGS.failure();
 			return false;
 		}
-		else
+		if(!startTransition('A', 'B', BOOKINGS))
+		{
+			return false;
+		}
+
+		// Take the nights from today in the calendar, giving the room back if any of
+		// them are reserved by someone else.
+		long now = Clock.now();
+		Reservation reservation = getCalendar().claimStay(customerNumber, EpochDays.toEpochDay(now), nightsRequired);
+		if(reservation == null)
+		{
+			abortTransition('A');
+			BOOKINGS.failure();
+			return false;
+		}
+		BOOKINGS.success();
+		takenOver = reservation == AvailabilityCalendar.NO_RESERVATION ? null : reservation;
+
+		// The booking starts now, and ends the given number of days from now.
+		bookingStartTimestamp = now;
+		bookingEndTimestamp = bookingStartTimestamp + nightsRequired * EpochDays.MILLIS_PER_DAY;
+		this.customerNumber = customerNumber;
+
+		// Calculate the tentative charge for the booking.
+		charge = nightsRequired * dailyRate;
+
+		return true;
+	}
+
+	// Method to claim a booked room for checkout and calculate the final charge.
+	// Subclasses may adjust the charge before calling finishTransition(), which
+	// must be called if this returns true.
+	protected boolean startCheckout()
+	{
+
+		// Don't proceed unless the room is booked.
+		if(!startTransition('B', 'U', CHECKOUTS))
+		{
+			return false;
+		}
+		CHECKOUTS.success();
+
+		// Free the nights the customer is no longer staying, and forget those that
+		// have passed.
+		takenOver = null;
+		releaseStay();
+		AvailabilityCalendar current = calendar;
+		if(current != null)
+		{
+			current.trimBefore(EpochDays.today());
+		}
+
+		// Calculate the room charge for the number of nights the room was booked for.
+		charge = checkoutCharge(getNumberOfDays(), dailyRate);
+
+		return true;
+	}
+
+	// Method to calculate the charge at checkout for a stay of a number of nights.
+	static double checkoutCharge(int numberOfDays, double dailyRate)
+	{
+
+		// Minimum charge is for one night.
+		if(numberOfDays <= 1)
 		{
+			return dailyRate;
+		}
 
-			// Calculate the number of nights the room was booked for.
-			int numberOfDays = getNumberOfDays();
+		// Calculate the room charge.
+		else
+		{
+			return dailyRate * numberOfDays;
+		}
+	}
 
-			// Minimum charge is for one night.
-			if(numberOfDays <= 1)
+	// Method to move the room from one status to another, marking it as pending
+	// while the caller fills in the room's details. Returns false, without
+	// changing anything, if the room does not have the expected status. Refusals
+	// and retries are counted in the given metrics, the caller counts the success
+	// once it knows the transition will be finished. The listener is told about
+	// the new status while the room is still pending, so a room's status changes
+	// always reach it one at a time and in order.
+	private boolean startTransition(char from, char to, OperationMetrics metrics)
+	{
+		long current = waitForState();
+		while(true)
+		{
+			if(status(current) != from)
 			{
-				charge = dailyRate;
+				metrics.failure();
+				return false;
 			}
-
-			// Calculate the room charge.
-			else
+			if(STATE.compareAndSet(this, current, pack(to, version(current) + 1, true)))
 			{
-				charge = dailyRate * numberOfDays;
+				transitionFrom = from;
+				customerBefore = customerNumber;
+				chargeBefore = charge;
+				statusChanged(from, to);
+				return true;
 			}
+			metrics.retry();
+			current = waitForState();
+		}
+	}
 
-			// Mark the room as un-clean.
-			status = 'U';
+	// Method to finish a transition started by startBooking() or startCheckout(),
+	// publishing the room's new details to other threads. The listener is told
+	// about the new details first, while no other thread can change them.
+	protected void finishTransition()
+	{
+		long current = state;
+		RoomListener currentListener = listener;
+		if(currentListener != null)
+		{
+			currentListener.bookingChanged(this, transitionFrom, customerBefore, chargeBefore, false);
+		}
+		state = pack(status(current), version(current) + 1, false);
+	}
 
-			return true;
+	// Method to give up a transition started by startTransition(), returning the
+	// room to the status it had before.
+	private void abortTransition(char status)
+	{
+		long current = state;
+		statusChanged(status(current), status);
+		state = pack(status, version(current) + 1, false);
+	}
+
+	// Method to tell the listener that the room's status has changed.
+	private void statusChanged(char oldStatus, char newStatus)
+	{
+		RoomListener current = listener;
+		if(current != null)
+		{
+			current.statusChanged(this, oldStatus, newStatus);
 		}
+	}
 
+	// Method to wait until the room is not part way through a transition and
+	// return its state word, so that its details can be read together. Once they
+	// are read, unchangedSince() tells whether another thread changed them.
+	long stableState()
+	{
+		return waitForState();
 	}
 
-	// Method to handle rooms being marked as clean.
-	public boolean cleanRoom()
+	// Method to determine if the room is still in the state returned by
+	// stableState().
+	boolean unchangedSince(long stateWord)
 	{
+		return state == stateWord;
+	}
 
-		// Only proceed if the room is marked as un-clean.
-		if(status == 'U')
+	// Method to read the state word once no transition is pending. Transitions
+	// only fill in a few fields, so spinning briefly is cheaper than blocking.
+	private long waitForState()
+	{
+		long current;
+		while(((current = state) & PENDING) != 0)
 		{
+			Thread.yield();
+		}
+		return current;
+	}
+
+	// Methods to pack and unpack the state word.
+	private static long pack(char status, long version, boolean pending)
+	{
+		return (version << VERSION_SHIFT) | (pending ? PENDING : 0L) | status;
+	}
 
-			// Mark the room as clean.
-			status = 'A';
+	private static char status(long state)
+	{
+		return (char) (state & STATUS_MASK);
+	}
 
-			return true;
+	private static long version(long state)
+	{
+		return state >>> VERSION_SHIFT;
+	}
+
+	// Method to reserve the room for a customer from a future night (or tonight),
+	// given as an epoch day. Returns the reservation, or null if the details are
+	// invalid or any of the nights are already taken.
+	public Reservation reserve(String customerId, long firstNight, int nights)
+	{
+		int customerNumber = CustomerId.parse(customerId);
+		if(customerNumber == CustomerId.NONE || nights < 1 || nights > AvailabilityCalendar.MAX_NIGHTS || firstNight < EpochDays.today())
+		{
+			RESERVATIONS.failure();
+			return null;
+		}
+		Reservation reservation = getCalendar().reserve(customerNumber, firstNight, nights);
+		if(reservation == null)
+		{
+			RESERVATIONS.failure();
 		}
 		else
 		{
-			return false;
+			RESERVATIONS.success();
+		}
+		return reservation;
+	}
+
+	// Method to cancel a customer's reservation starting on the given night.
+	// Returns the cancelled reservation, or null if there was none.
+	public Reservation cancelReservation(String customerId, long firstNight)
+	{
+		AvailabilityCalendar current = calendar;
+		Reservation reservation = current == null ? null : current.cancel(CustomerId.parse(customerId), firstNight);
+		if(reservation == null)
+		{
+			RESERVATION_CANCELLATIONS.failure();
+		}
+		else
+		{
+			RESERVATION_CANCELLATIONS.success();
+		}
+		return reservation;
+	}
+
+	// Method to determine if the room is free for a range of nights, starting
+	// from the given epoch day.
+	public boolean isFree(long firstNight, int nights)
+	{
+		AvailabilityCalendar current = calendar;
+		return current == null || current.isFree(firstNight, nights);
+	}
+
+	// Accessor method for the room's reservations, in order of their first night.
+	public List<Reservation> getReservations()
+	{
+		AvailabilityCalendar current = calendar;
+		if(current == null)
+		{
+			return Collections.emptyList();
 		}
+		return current.getReservations();
+	}
 
+	// Accessor method for the room's calendar, which is created if the room does
+	// not have one yet.
+	public AvailabilityCalendar getCalendar()
+	{
+		AvailabilityCalendar current = calendar;
+		if(current == null)
+		{
+			CALENDAR.compareAndSet(this, null, new AvailabilityCalendar(this));
+			current = calendar;
+		}
+		return current;
+	}
+
+	// Method to tell the listener that nights in the calendar have been taken or
+	// freed.
+	void nightsChanged(long firstNight, int nights, boolean taken)
+	{
+		RoomListener current = listener;
+		if(current != null)
+		{
+			current.nightsChanged(this, firstNight, nights, taken);
+		}
+	}
+
+	// Method to copy the room's taken nights into an availability index, for the
+	// given registry slot.
+	void copyNightsTo(AvailabilityIndex index, int slot)
+	{
+		AvailabilityCalendar current = calendar;
+		if(current != null)
+		{
+			current.copyTo(index, slot);
+		}
+	}
+
+	// Method to free the nights of the current stay in the calendar.
+	private void releaseStay()
+	{
+		AvailabilityCalendar current = calendar;
+		if(current != null)
+		{
+			current.releaseStay(EpochDays.toEpochDay(bookingStartTimestamp), EpochDays.daysBetween(bookingStartTimestamp, bookingEndTimestamp));
+		}
 	}
 
 	// Print the room details to screen.
 	public void print()
 	{
-		System.out.println();
+		ScreenManager.println();
 		ScreenManager.printHeader("Room summary");
-		System.out.println();
-		System.out.printf("%S %21s\n", "ID: ", roomId);
-		System.out.printf("%S %25s\n", "Description:", description);
-		System.out.printf("%S %9s (%s)\n", "Status:", status, getReadableStatus());
-		System.out.println();
+		ScreenManager.println();
+		ScreenManager.printf("%S %21s\n", "ID: ", roomId);
+		ScreenManager.printf("%S %25s\n", "Description:", description);
+		ScreenManager.printf("%S %9s (%s)\n", "Status:", getStatus(), getReadableStatus());
+		ScreenManager.println();
 		
 		// If the room is booked, also print booking information.
 		if(!roomAvailable())
 		{
-			System.out.printf("%S %10s\n", "Customer ID: ", customerId);
-			System.out.printf("%S %12s\n", "Booked From: ", bookingStartDate.getFormattedDate());
-			System.out.printf("%S %14s\n", "Booked To: ", bookingEndDate.getFormattedDate());
-			System.out.printf("%S %6s $ %(,7.2f", "Charge: ", "", charge);
-			System.out.println();
+			ScreenManager.printf("%S %10s\n", "Customer ID: ", getCustomerId());
+			ScreenManager.printf("%S %12s\n", "Booked From: ", EpochDays.format(bookingStartTimestamp));
+			ScreenManager.printf("%S %14s\n", "Booked To: ", EpochDays.format(bookingEndTimestamp));
+			ScreenManager.printf("%S %6s $ %(,7.2f", "Charge: ", "", charge);
+			ScreenManager.println();
+		}
+
+		// Also print any reservations for future dates.
+		List<Reservation> reservations = getReservations();
+		if(!reservations.isEmpty())
+		{
+			ScreenManager.println();
+			ScreenManager.printf("%S\n", "Reservations: ");
+			for(Reservation reservation : reservations)
+			{
+				ScreenManager.printf("  %s  %s to %s (%d night(s))\n", reservation.getCustomerId(), EpochDays.formatDay(reservation.getFirstNight()), EpochDays.formatDay(reservation.getDepartureDay()), reservation.getNights());
+			}
 		}
 	}
 
@@ -158,7 +569,7 @@ public class Room implements Serializable
 	public String toString()
 	{
 		String stringVersion = new String();
-		stringVersion = roomId + ":" + description + ":" + status + ":" + dailyRate;
+		stringVersion = roomId + ":" + description + ":" + getStatus() + ":" + dailyRate;
 
 		// Don't include booking information if the room is available.
 		if(roomAvailable())
@@ -169,7 +580,7 @@ public class Room implements Serializable
 		// Include booking informaton if the room is booked.
 		else
 		{	
-			stringVersion += ":" + bookingStartDate.toString() + ":" + bookingEndDate.toString();
+			stringVersion += ":" + EpochDays.formatIso(bookingStartTimestamp) + ":" + EpochDays.formatIso(bookingEndTimestamp);
 		}
 		return stringVersion;
 
@@ -179,7 +590,7 @@ public class Room implements Serializable
 	public String getReadableStatus()
 	{
 		String statusString = new String();
-		switch(status)
+		switch(getStatus())
 		{
 			case 'A':
 				statusString = "Available";
@@ -198,7 +609,7 @@ public class Room implements Serializable
 	// Method to determine if a room is available for booking.
 	public boolean roomAvailable()
 	{
-		if(status == 'A')
+		if(getStatus() == 'A')
 		{
 			return true;
 		}
@@ -209,28 +620,56 @@ public class Room implements Serializable
 
 	}
 
-	// Method to print the room as a row in a table using the printf method.
+	// Method to print the room as a row in a table. The row is appended straight to
+	// the screen's frame, with the same layout printf would give, as formatting
+	// every row with printf is slow for large properties.
 	public void printRow(boolean header)
 	{
+		StringBuilder row = ScreenManager.frame();
 
 		// Print the table header, if the instructed to do so.
 		if(header)
 		{
-			System.out.printf("  %S %33S     %9S  %13S  %15S  %10S\n", "Room ID", "Description", "Rate", "Status", "Booked Until", "Customer");
+			row.append(ROW_HEADER);
 		}
 
+		row.append("  ").append(roomId.toUpperCase()).append(' ');
+		ScreenManager.appendPadded(row, description, 30);
+		row.append("     $ ").append(getFormattedRate()).append("  ");
+		ScreenManager.appendPadded(row, getReadableStatus(), 13);
+		row.append("  ");
+
 		// Print room and booking information if the room is booked.
-		if(status == 'B')
+		if(getStatus() == 'B')
 		{
-			System.out.printf("  %S %30s     $ %(,7.2f  %13s  %15s  %10s\n", roomId, description, dailyRate, getReadableStatus(), bookingEndDate.getFormattedDate(), customerId);
+			ScreenManager.appendPadded(row, EpochDays.format(bookingEndTimestamp), 15);
+			row.append("  ");
+			row.append("  ");
+			CustomerId.appendTo(row, customerNumber);
 		}
 
 		// Print room information.
 		else
 		{
-			System.out.printf("  %S %30s     $ %(,7.2f  %13s  %15s  %10s\n", roomId, description, dailyRate, getReadableStatus(), " - ", " - ");
+			ScreenManager.appendPadded(row, " - ", 15);
+			row.append("  ");
+			ScreenManager.appendPadded(row, " - ", 10);
 		}
+		row.append('\n');
+
+	}
 
+	// Method to fetch the daily rate formatted for the table, which is only
+	// re-formatted when the rate changes.
+	private String getFormattedRate()
+	{
+		String formatted = formattedRate;
+		if(formatted == null)
+		{
+			formatted = String.format("%(,7.2f", dailyRate);
+			formattedRate = formatted;
+		}
+		return formatted;
 	}
 
 	// Overridden printRow method to be called without parameters.
@@ -245,10 +684,18 @@ public class Room implements Serializable
 		return roomId;
 	}
 
-	// Accessor method for customer ID.
+	// Accessor method for customer ID, as text. Returns null if the room is not
+	// booked.
 	public String getCustomerId()
 	{
-		return customerId;
+		return CustomerId.toString(customerNumber);
+	}
+
+	// Accessor method for the customer's number (see CustomerId), which is
+	// CustomerId.NONE if the room is not booked.
+	public int getCustomerNumber()
+	{
+		return customerNumber;
 	}
 
 	// Accessor method for description.
@@ -263,10 +710,54 @@ public class Room implements Serializable
 		return dailyRate;
 	}
 
+	// Mutator method for daily rate.
+	public void setDailyRate(double dailyRate)
+	{
+		double oldRate = this.dailyRate;
+		this.dailyRate = dailyRate;
+		formattedRate = null;
+		pricingChanged();
+		if(listener != null)
+		{
+			listener.rateChanged(this, oldRate);
+		}
+	}
+
+	// Accessor method for the number of times the details that the price of a stay
+	// depends on have changed. Read it before working out a quote, and the quote
+	// is still right for as long as it does not change.
+	public int getPricingVersion()
+	{
+		return pricingVersion;
+	}
+
+	// Method to record that a detail the price of a stay depends on has changed.
+	// Subclasses call it when they change their own pricing details.
+	protected void pricingChanged()
+	{
+		pricingVersion++;
+	}
+
+	// Method to work out what a stay of a number of nights would cost, with the
+	// same rules as checkout. Standard rooms do not take vouchers, so the voucher
+	// amount is only used by premium rooms.
+	public Quote quote(int nights, double voucherAmount)
+	{
+		return new Quote(checkoutCharge(nights, dailyRate), 0.00);
+	}
+
 	// Accessor method for status.
 	public char getStatus()
 	{
-		return status;
+		return status(state);
+	}
+
+	// Accessor method for the number of status transitions the room has been
+	// through. This changes whenever the status does, so it can be used to tell
+	// if a room was booked or checked out between two reads.
+	public long getStateVersion()
+	{
+		return version(state);
 	}
 
 	// Accessor method for charge.
@@ -275,38 +766,79 @@ public class Room implements Serializable
 		return charge;
 	}
 
+	// Accessor method for the booking start timestamp.
+	public long getBookingStartTimestamp()
+	{
+		return bookingStartTimestamp;
+	}
+
+	// Accessor method for the booking end timestamp.
+	public long getBookingEndTimestamp()
+	{
+		return bookingEndTimestamp;
+	}
+
 	// Mutator method for charge.
 	public void setCharge(double charge)
 	{
 		this.charge = charge;
 	}
 
-	// Method to reconstruct the bookingStartDate and bookingEndDate objects, when the
-	// program loads information from a serialised file - this is a work around.
-	public void setCorrectDates()
+	// Mutator method for the listener told about changes to this room.
+	void setListener(RoomListener listener)
 	{
+		this.listener = listener;
+	}
 
-		// One day in milliseconds.
-		final long HOURS_IN_DAY = 24L;
-		final int MINUTES_IN_HOUR = 60;
-		final int SECONDS_IN_MINUTES = 60;
-		final int MILLISECONDS_IN_SECOND = 1000;
-		long convertToDays = HOURS_IN_DAY * MINUTES_IN_HOUR * SECONDS_IN_MINUTES * MILLISECONDS_IN_SECOND;
-
-		// Calculate the difference between the end booking date and now.
-		long diff = bookingEndTimestamp - System.currentTimeMillis();
-		int numberOfDays = (int) (diff/convertToDays) + 1;
+	// Method to restore the status and booking details of a room read from a
+	// snapshot or journal file.
+	void restoreBooking(char status, int customerNumber, double charge, long bookingStartTimestamp, long bookingEndTimestamp)
+	{
 
-		// Create a new DateTimeExtended object for the booking end time.
-		bookingEndDate = new DateTimeExtended(numberOfDays);
+		// Move the current stay in the calendar to the restored booking's nights.
+		if(getStatus() == 'B')
+		{
+			releaseStay();
+		}
+		takenOver = null;
+		if(status == 'B')
+		{
+			getCalendar().restoreStay(customerNumber, EpochDays.toEpochDay(bookingStartTimestamp), EpochDays.daysBetween(bookingStartTimestamp, bookingEndTimestamp));
+		}
 
-		// Calculate the difference between the start booking date and now.
-		diff = bookingStartTimestamp - System.currentTimeMillis();
-		numberOfDays = (int) (diff/convertToDays);
+		char oldStatus = getStatus();
+		int oldCustomerNumber = this.customerNumber;
+		double oldCharge = this.charge;
+		this.state = pack(status, version(state) + 1, false);
+		if(oldStatus != status)
+		{
+			statusChanged(oldStatus, status);
+		}
+		this.customerNumber = customerNumber;
+		this.charge = charge;
+		this.bookingStartTimestamp = bookingStartTimestamp;
+		this.bookingEndTimestamp = bookingEndTimestamp;
+		if(listener != null)
+		{
+			listener.bookingChanged(this, oldStatus, oldCustomerNumber, oldCharge, true);
+		}
+	}
 
-		// Create a new DateTimeExtended object for the booking start time.
-		bookingStartDate = new DateTimeExtended(numberOfDays);
+	// Method to restore a reservation read from a snapshot or journal file.
+	void restoreReservation(int customerNumber, long firstNight, int nights)
+	{
+		getCalendar().restoreReservation(customerNumber, firstNight, nights);
+	}
 
+	// Method to cancel a reservation as recorded in a journal file. Nothing
+	// changes if the reservation is not there.
+	void restoreCancellation(int customerNumber, long firstNight)
+	{
+		AvailabilityCalendar current = calendar;
+		if(current != null)
+		{
+			current.cancel(customerNumber, firstNight);
+		}
 	}
 
 	// Method to calculate the number of days a room is booked for.
@@ -316,13 +848,7 @@ public class Room implements Serializable
 		// Only allow this to happen if the room is not available.
 		if(!roomAvailable())
 		{
-
-			// Create a new DateTimeExtended object (for now).
-			DateTimeExtended now = new DateTimeExtended();
-
-			// Use the diffDays method to calculate the number of days.
-			int numberOfDays = DateTimeExtended.diffDays(now, bookingStartDate);
-			return numberOfDays;
+			return EpochDays.daysBetween(bookingStartTimestamp, Clock.now());
 		}
 		else
 		{
@@ -330,4 +856,69 @@ public class Room implements Serializable
 		}
 
 	}
+
+	// Method to read a room saved with Java serialisation by older versions of
+	// the program.
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream.GetField fields = in.readFields();
+		roomId = (String) fields.get("roomId", null);
+		description = (String) fields.get("description", null);
+
+		// Older versions had no limits on the room ID and description. A room ID too
+		// long to save cannot be shortened without risking a clash with another
+		// room, so the file is refused. A description is only shown, so a long one
+		// is cut to fit.
+		if(roomId == null || roomId.getBytes(StandardCharsets.UTF_8).length > MAX_ID_BYTES)
+		{
+			throw new InvalidObjectException("Room ID \"" + roomId + "\" is too long, the limit is " + MAX_ID_BYTES + " bytes");
+		}
+		description = truncate(description == null ? "" : description, MAX_DESCRIPTION_BYTES);
+		state = fields.get("status", 'A');
+		dailyRate = fields.get("dailyRate", 0.0);
+		charge = fields.get("charge", 0.0);
+		bookingStartTimestamp = fields.get("bookingStartTimestamp", 0L);
+		bookingEndTimestamp = fields.get("bookingEndTimestamp", 0L);
+		customerNumber = CustomerId.parse((String) fields.get("customerId", null));
+
+		// Older versions had no calendar, so the nights of a booked room's stay are
+		// taken in a new one, as restoreBooking() does for snapshot files.
+		if(getStatus() == 'B')
+		{
+			getCalendar().restoreStay(customerNumber, EpochDays.toEpochDay(bookingStartTimestamp), EpochDays.daysBetween(bookingStartTimestamp, bookingEndTimestamp));
+		}
+	}
+
+	// Method to cut text to at most the given number of UTF-8 bytes, without
+	// splitting a character.
+	private static String truncate(String text, int maxBytes)
+	{
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		if(bytes.length <= maxBytes)
+		{
+			return text;
+		}
+		int length = maxBytes;
+		while(length > 0 && (bytes[length] & 0xC0) == 0x80)
+		{
+			length--;
+		}
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+	// Method to save a room with Java serialisation, in the same form as older
+	// versions of the program.
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("roomId", roomId);
+		fields.put("description", description);
+		fields.put("status", getStatus());
+		fields.put("dailyRate", dailyRate);
+		fields.put("charge", charge);
+		fields.put("bookingStartTimestamp", bookingStartTimestamp);
+		fields.put("bookingEndTimestamp", bookingEndTimestamp);
+		fields.put("customerId", getCustomerId());
+		out.writeFields();
+	}
 }
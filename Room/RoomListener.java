@@ -0,0 +1,30 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/RoomListener.java
+// Description:
+// 	This interface, RoomListener, is implemented by classes that keep
+// 	information derived from rooms (such as indexes), so that a Room can
+// 	tell them when its details change.
+//
+package Room;
+
+public interface RoomListener
+{
+
+	// Called after a room's daily rate has been changed.
+	public void rateChanged(Room room, double oldRate);
+
+	// Called when a room's status changes, while no other thread can change it.
+	public void statusChanged(Room room, char oldStatus, char newStatus);
+
+	// Called when a booking, checkout or clean is finished (or restored from file),
+	// with the status, customer and charge the room had before, while no other
+	// thread can change it.
+	public void bookingChanged(Room room, char oldStatus, int oldCustomerNumber, double oldCharge, boolean restored);
+
+	// Called after a range of nights in a room's calendar has been taken or freed,
+	// while the calendar is still locked.
+	public void nightsChanged(Room room, long firstNight, int nights, boolean taken);
+}
@@ -0,0 +1,404 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/RoomRegistry.java
+// Description:
+// 	This class, RoomRegistry, holds every Room known to the program in a
+// 	numbered list of slots, and keeps an open-addressing hash index from
+// 	room ID to slot so that a room can be found without walking the list.
+// 	A price index is built on the first price search and is then kept up to
+// 	date as rooms are added and rates change. An availability index is built
+// 	the same way on the first search for free rooms, and is kept up to date
+// 	by the rooms' calendars. Bitmaps of each room status and class are kept
+// 	from the start, updated by the rooms as their status changes, so rooms
+// 	can be filtered by status, class and price without reading them all.
+// 	Running totals (see InventoryTotals) and the rooms booked by each
+// 	customer (see CustomerIndex) are updated as each booking, checkout or
+// 	clean is finished.
+//
+package Room;
+
+import utilities.EpochDays;
+import java.util.Arrays;
+
+public class RoomRegistry implements RoomListener
+{
+
+	// Marker for an unused entry in the hash table.
+	private static final int EMPTY = -1;
+
+	// The smallest number of slots and hash table entries to allocate.
+	private static final int MIN_CAPACITY = 16;
+
+	// The classes of room that filter() can be asked for, which can be combined.
+	public static final int STANDARD_ROOMS = 1;
+	public static final int PREMIUM_ROOMS = 2;
+	public static final int ALL_ROOMS = STANDARD_ROOMS | PREMIUM_ROOMS;
+
+	// The statuses filter() looks for when it is not given any.
+	private static final String ALL_STATUSES = "ABU";
+
+	// Class wide variables.
+	private Room[] source;
+	private Room[] rooms;
+	private int size;
+	private int[] table;
+	private int mask;
+	private PriceIndex priceIndex;
+	private final StatusIndex statusIndex = new StatusIndex();
+	private final InventoryTotals totals = new InventoryTotals();
+	private final CustomerIndex customerIndex = new CustomerIndex();
+
+	// The availability index is built the first time it is searched. It is told
+	// about changes from the moment it is created, so none made while it is being
+	// filled are lost, but is only searched once it has been filled.
+	private volatile AvailabilityIndex liveAvailabilityIndex;
+	private volatile AvailabilityIndex availabilityIndex;
+
+	// Constructor, creates an empty registry sized for the expected number of rooms.
+	public RoomRegistry(int expectedRooms)
+	{
+		int capacity = Math.max(MIN_CAPACITY, expectedRooms);
+		rooms = new Room[capacity];
+		allocateTable(capacity);
+	}
+
+	// Constructor, creates a registry holding every room in the given array. Each
+	// room's slot matches its index within the array.
+	public RoomRegistry(Room[] rooms)
+	{
+		this(rooms.length);
+		for(int i=0; i < rooms.length; i++)
+		{
+			add(rooms[i]);
+		}
+		source = rooms;
+	}
+
+	// Method to add a room to the registry, returning the slot it was stored in.
+	public int add(Room room)
+	{
+
+		// Room IDs must be unique, otherwise lookups would be ambiguous.
+		if(indexOf(room.getId()) != EMPTY)
+		{
+			throw new IllegalArgumentException("Duplicate room ID: " + room.getId());
+		}
+
+		// Grow the slot list when it is full.
+		if(size == rooms.length)
+		{
+			Room[] grown = new Room[rooms.length * 2];
+			System.arraycopy(rooms, 0, grown, 0, size);
+			rooms = grown;
+		}
+
+		// Keep the hash table at most half full, so probe sequences stay short.
+		if((size + 1) * 2 > table.length)
+		{
+			allocateTable(table.length);
+			for(int i=0; i < size; i++)
+			{
+				insert(i);
+			}
+		}
+
+		int slot = size;
+		rooms[slot] = room;
+		statusIndex.add(slot, room);
+		totals.add(room);
+		if(room.getStatus() == 'B')
+		{
+			customerIndex.add(room.getCustomerNumber(), slot);
+		}
+		size++;
+		insert(slot);
+		if(priceIndex != null)
+		{
+			priceIndex.insert(room.getDailyRate(), slot);
+		}
+		room.setListener(this);
+		AvailabilityIndex index = liveAvailabilityIndex;
+		if(index != null)
+		{
+			room.copyNightsTo(index, slot);
+		}
+		return slot;
+	}
+
+	// Method to find the slot of a room by its ID, returns -1 if it does not exist.
+	public int indexOf(String roomId)
+	{
+		int bucket = hash(roomId) & mask;
+		int slot;
+
+		// Linear probing, stopping at the first unused entry.
+		while((slot = table[bucket]) != EMPTY)
+		{
+			if(rooms[slot].getId().equals(roomId))
+			{
+				return slot;
+			}
+			bucket = (bucket + 1) & mask;
+		}
+		return EMPTY;
+	}
+
+	// Method to find a room by its ID, returns null if it does not exist.
+	public Room find(String roomId)
+	{
+		int slot = indexOf(roomId);
+		if(slot == EMPTY)
+		{
+			return null;
+		}
+		return rooms[slot];
+	}
+
+	// Method to find the slots of all rooms with a daily rate between min and max
+	// inclusive, ordered by rate.
+	public int[] searchByPrice(double minRate, double maxRate)
+	{
+		if(priceIndex == null)
+		{
+			priceIndex = new PriceIndex(this);
+		}
+		return priceIndex.range(minRate, maxRate);
+	}
+
+	// Method to find the slots of all rooms with a daily rate between min and max
+	// inclusive that are free for every night in a range, starting from the given
+	// epoch day, ordered by rate. Rooms being cleaned count as free, as they will
+	// be ready before the first night.
+	public int[] searchAvailable(long firstNight, int nights, double minRate, double maxRate)
+	{
+		AvailabilityIndex index = availabilityIndex;
+		if(index == null)
+		{
+			index = buildAvailabilityIndex();
+		}
+		index.trimBefore(EpochDays.today());
+		return index.free(searchByPrice(minRate, maxRate), firstNight, nights);
+	}
+
+	// Method to build the availability index, unless another thread got there
+	// first, returning it once it has been filled.
+	private synchronized AvailabilityIndex buildAvailabilityIndex()
+	{
+		if(availabilityIndex == null)
+		{
+			AvailabilityIndex index = new AvailabilityIndex();
+			liveAvailabilityIndex = index;
+			index.build(this);
+			availabilityIndex = index;
+		}
+		return availabilityIndex;
+	}
+
+	// Method to find the slots of all rooms with any of the given statuses (such as
+	// "AU", or null for any status), of the given classes (STANDARD_ROOMS,
+	// PREMIUM_ROOMS or ALL_ROOMS), with a daily rate between min and max inclusive,
+	// ordered by slot. Pass 0 and Double.MAX_VALUE to accept any rate.
+	//
+	// The status and class bitmaps are ANDed a word (64 rooms) at a time, along
+	// with a bitmap of the rooms in the price range. A narrow price range instead
+	// checks each of its rooms' bits, which is quicker than building the bitmap.
+	public int[] filter(String statuses, int roomClasses, double minRate, double maxRate)
+	{
+		if(statuses == null || statuses.isEmpty())
+		{
+			statuses = ALL_STATUSES;
+		}
+		int[] statusBitmaps = new int[statuses.length()];
+		for(int i=0; i < statusBitmaps.length; i++)
+		{
+			statusBitmaps[i] = StatusIndex.bitmapFor(statuses.charAt(i));
+			if(statusBitmaps[i] == -1)
+			{
+				throw new IllegalArgumentException("Unknown room status: " + statuses.charAt(i));
+			}
+		}
+		int[] classBitmaps;
+		switch(roomClasses)
+		{
+			case STANDARD_ROOMS:
+				classBitmaps = new int[] { StatusIndex.STANDARD };
+				break;
+			case PREMIUM_ROOMS:
+				classBitmaps = new int[] { StatusIndex.PREMIUM };
+				break;
+			case ALL_ROOMS:
+				classBitmaps = new int[] { StatusIndex.STANDARD, StatusIndex.PREMIUM };
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown room classes: " + roomClasses);
+		}
+
+		// Any rate, so only the status and class bitmaps are needed.
+		if(minRate <= 0 && maxRate >= Double.MAX_VALUE)
+		{
+			return statusIndex.match(statusBitmaps, classBitmaps, null, size);
+		}
+
+		// A narrow price range, with fewer rooms than there are words to AND.
+		int[] priced = searchByPrice(minRate, maxRate);
+		int words = (size + 63) >>> 6;
+		if(priced.length < words)
+		{
+			int found = 0;
+			for(int i=0; i < priced.length; i++)
+			{
+				if(statusIndex.matches(statusBitmaps, classBitmaps, priced[i]))
+				{
+					priced[found++] = priced[i];
+				}
+			}
+			int[] result = Arrays.copyOf(priced, found);
+			Arrays.sort(result);
+			return result;
+		}
+
+		// Otherwise turn the price range into a bitmap and AND it with the others.
+		long[] priceWords = new long[words];
+		for(int i=0; i < priced.length; i++)
+		{
+			priceWords[priced[i] >>> 6] |= 1L << priced[i];
+		}
+		return statusIndex.match(statusBitmaps, classBitmaps, priceWords, size);
+	}
+
+	// Called by a room in this registry when its status changes, to move it
+	// between the status bitmaps.
+	public void statusChanged(Room room, char oldStatus, char newStatus)
+	{
+		statusIndex.statusChanged(indexOf(room.getId()), oldStatus, newStatus);
+	}
+
+	// Called by a room in this registry when a booking, checkout or clean is
+	// finished, to update the running totals and the rooms booked by each customer.
+	public void bookingChanged(Room room, char oldStatus, int oldCustomerNumber, double oldCharge, boolean restored)
+	{
+		totals.bookingChanged(room, oldStatus, oldCharge, restored);
+		boolean booked = room.getStatus() == 'B';
+		if(oldStatus == 'B' || booked)
+		{
+			int slot = indexOf(room.getId());
+			if(oldStatus == 'B')
+			{
+				customerIndex.remove(oldCustomerNumber, slot);
+			}
+			if(booked)
+			{
+				customerIndex.add(room.getCustomerNumber(), slot);
+			}
+		}
+	}
+
+	// Method to find the slots of the rooms a customer currently has booked, in the
+	// order they were booked. Returns no slots if the customer ID is not valid.
+	public int[] findByCustomer(String customerId)
+	{
+		int customerNumber = CustomerId.parse(customerId);
+		if(customerNumber == CustomerId.NONE)
+		{
+			return new int[0];
+		}
+		return customerIndex.find(customerNumber);
+	}
+
+	// Accessor method for the number of customers with at least one room booked.
+	public int getCustomersWithBookings()
+	{
+		return customerIndex.customers();
+	}
+
+	// Accessor method for the running totals of the rooms in this registry.
+	public InventoryTotals getTotals()
+	{
+		return totals;
+	}
+
+	// Called by a room in this registry after nights in its calendar have been
+	// taken or freed, to update the availability index.
+	public void nightsChanged(Room room, long firstNight, int nights, boolean taken)
+	{
+		AvailabilityIndex index = liveAvailabilityIndex;
+		if(index != null)
+		{
+			index.update(indexOf(room.getId()), firstNight, nights, taken);
+		}
+	}
+
+	// Called by a room in this registry after its daily rate has changed, to move
+	// it within the price index.
+	public void rateChanged(Room room, double oldRate)
+	{
+		totals.rateChanged(room, oldRate);
+		if(priceIndex != null)
+		{
+			int slot = indexOf(room.getId());
+			priceIndex.remove(oldRate, slot);
+			priceIndex.insert(room.getDailyRate(), slot);
+		}
+	}
+
+	// Accessor method for the room held in a slot.
+	public Room get(int slot)
+	{
+		if(slot < 0 || slot >= size)
+		{
+			throw new IndexOutOfBoundsException("No room in slot " + slot);
+		}
+		return rooms[slot];
+	}
+
+	// Accessor method for the number of rooms.
+	public int size()
+	{
+		return size;
+	}
+
+	// Method to determine if this registry was built from the given array.
+	public boolean isBackedBy(Room[] rooms)
+	{
+		return source == rooms;
+	}
+
+	// Method to copy every room into a new array, ordered by slot.
+	public Room[] toArray()
+	{
+		Room[] copy = new Room[size];
+		System.arraycopy(rooms, 0, copy, 0, size);
+		return copy;
+	}
+
+	// Method to place a slot into the hash table.
+	private void insert(int slot)
+	{
+		int bucket = hash(rooms[slot].getId()) & mask;
+		while(table[bucket] != EMPTY)
+		{
+			bucket = (bucket + 1) & mask;
+		}
+		table[bucket] = slot;
+	}
+
+	// Method to allocate an empty hash table with room for at least the given
+	// number of entries at half load.
+	private void allocateTable(int entries)
+	{
+		int length = Integer.highestOneBit(Math.max(MIN_CAPACITY, entries) - 1) << 2;
+		table = new int[length];
+		Arrays.fill(table, EMPTY);
+		mask = length - 1;
+	}
+
+	// Method to spread the bits of a room ID's hash code, so similar IDs do not
+	// cluster in the table.
+	private static int hash(String roomId)
+	{
+		int h = roomId.hashCode();
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,470 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/RoomSnapshot.java
+// Description:
+// 	This class, RoomSnapshot, is designed to be statically called to save and
+// 	load rooms using a compact binary file, in place of Java serialisation.
+// 	The file is a small header followed by one fixed size record per room,
+// 	then one fixed size entry per reservation, and is written and read
+// 	through a FileChannel using direct buffers. Version 1 files, written
+// 	before rooms could be reserved, have no reservations and are still read.
+//
+// 	Header (HEADER_SIZE bytes):
+// 		int	magic number ("HTRS")
+// 		short	format version
+// 		short	record size
+// 		int	number of records
+// 		int	number of reservations (reserved in version 1)
+//
+// 	Record (RECORD_SIZE bytes, unused bytes are zero):
+// 		0	byte	record type (0 = Room, 1 = PremiumRoom)
+// 		1	byte	status
+// 		4	int	customer number (digits of the customer ID), -1 if none
+// 		8	double	daily rate
+// 		16	double	charge
+// 		24	long	booking start timestamp
+// 		32	long	booking end timestamp
+// 		40	bytes	room ID (1 length byte, up to 23 UTF-8 bytes)
+// 		64	bytes	description (1 length byte, up to 63 UTF-8 bytes)
+// 		128	int	free nights (PremiumRoom only)
+// 		136	double	discount rate (PremiumRoom only)
+// 		144	double	next booking discount voucher (PremiumRoom only)
+// 		152	double	voucher amount (PremiumRoom only)
+// 		160	double	discount amount (PremiumRoom only)
+//
+// 	Reservation (RESERVATION_SIZE bytes):
+// 		0	int	index of the room's record
+// 		4	int	customer number
+// 		8	long	first night (epoch day)
+// 		16	int	number of nights
+// 		20	int	reserved
+//
+// 	Reservation change (RECORD_SIZE bytes, written to the booking journal in
+// 	place of a record when a room is reserved or a reservation cancelled):
+// 		4	int	customer number
+// 		8	long	first night (epoch day)
+// 		16	int	number of nights
+// 		40	bytes	room ID, as in a record
+//
+package Room;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RoomSnapshot
+{
+
+	// File format constants.
+	public static final int MAGIC = 0x48545253;
+	public static final short VERSION = 2;
+	public static final int HEADER_SIZE = 16;
+	public static final int RECORD_SIZE = 176;
+	public static final int RESERVATION_SIZE = 24;
+
+	// The version written before rooms could be reserved.
+	private static final short VERSION_WITHOUT_RESERVATIONS = 1;
+
+	// The first four bytes of a file written with ObjectOutputStream.
+	private static final int SERIALISED_MAGIC = 0xACED0005;
+
+	// Record types.
+	private static final byte TYPE_ROOM = 0;
+	private static final byte TYPE_PREMIUM_ROOM = 1;
+
+	// Record field offsets, see the description above.
+	private static final int TYPE = 0;
+	private static final int STATUS = 1;
+	private static final int CUSTOMER = 4;
+	private static final int DAILY_RATE = 8;
+	private static final int CHARGE = 16;
+	private static final int START_TIMESTAMP = 24;
+	private static final int END_TIMESTAMP = 32;
+	private static final int ROOM_ID = 40;
+	private static final int ROOM_ID_LENGTH = Room.MAX_ID_BYTES + 1;
+	private static final int DESCRIPTION = 64;
+	private static final int DESCRIPTION_LENGTH = Room.MAX_DESCRIPTION_BYTES + 1;
+	private static final int FREE_NIGHTS = 128;
+	private static final int DISCOUNT_RATE = 136;
+	private static final int NEXT_BOOKING_VOUCHER = 144;
+	private static final int VOUCHER_AMOUNT = 152;
+	private static final int DISCOUNT_AMOUNT = 160;
+
+	// Reservation change field offsets, see the description above.
+	private static final int RESERVED_FIRST_NIGHT = 8;
+	private static final int RESERVED_NIGHTS = 16;
+
+	// The number of records moved between the file and memory at a time.
+	private static final int RECORDS_PER_BUFFER = 1024;
+
+	// Method to save all rooms to a snapshot file. The file is written alongside
+	// the original and then moved over it, so a failed save leaves the old file.
+	public static void save(Room[] rooms, String fileName) throws IOException
+	{
+		Path target = Paths.get(fileName);
+		Path temporary = Paths.get(fileName + ".tmp");
+		ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * RECORDS_PER_BUFFER);
+
+		FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+
+			// Gather the reservations first, as the header holds the number of them.
+			// Rooms without a calendar have none, so this is quick.
+			List<Reservation> reservations = new ArrayList<Reservation>();
+			List<Integer> reservedRooms = new ArrayList<Integer>();
+			for(int i=0; i < rooms.length; i++)
+			{
+				List<Reservation> roomReservations = rooms[i].getReservations();
+				for(int j=0; j < roomReservations.size(); j++)
+				{
+					reservations.add(roomReservations.get(j));
+					reservedRooms.add(i);
+				}
+			}
+
+			// Write the header.
+			buffer.putInt(MAGIC);
+			buffer.putShort(VERSION);
+			buffer.putShort((short) RECORD_SIZE);
+			buffer.putInt(rooms.length);
+			buffer.putInt(reservations.size());
+			writeFully(channel, buffer);
+
+			// Write the records, a buffer at a time.
+			for(int i=0; i < rooms.length; i++)
+			{
+				if(buffer.remaining() < RECORD_SIZE)
+				{
+					writeFully(channel, buffer);
+				}
+				writeRecord(rooms[i], buffer);
+			}
+
+			// Write the reservations, a buffer at a time.
+			for(int i=0; i < reservations.size(); i++)
+			{
+				if(buffer.remaining() < RESERVATION_SIZE)
+				{
+					writeFully(channel, buffer);
+				}
+				Reservation reservation = reservations.get(i);
+				buffer.putInt(reservedRooms.get(i));
+				buffer.putInt(reservation.getCustomerNumber());
+				buffer.putLong(reservation.getFirstNight());
+				buffer.putInt(reservation.getNights());
+				buffer.putInt(0);
+			}
+			writeFully(channel, buffer);
+			channel.force(true);
+		}
+		finally
+		{
+			channel.close();
+		}
+		Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Method to load all rooms from a snapshot file.
+	public static Room[] load(String fileName) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * RECORDS_PER_BUFFER);
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		try
+		{
+
+			// Read and check the header.
+			buffer.limit(HEADER_SIZE);
+			readFully(channel, buffer);
+			buffer.flip();
+			if(buffer.getInt() != MAGIC)
+			{
+				throw new IOException(fileName + " is not a room snapshot file");
+			}
+			short version = buffer.getShort();
+			if(version != VERSION && version != VERSION_WITHOUT_RESERVATIONS)
+			{
+				throw new IOException(fileName + " uses unsupported snapshot version " + version);
+			}
+			if(buffer.getShort() != RECORD_SIZE)
+			{
+				throw new IOException(fileName + " has an unexpected record size");
+			}
+			int count = buffer.getInt();
+			int reservations = version == VERSION ? buffer.getInt() : 0;
+
+			// Read the records, a buffer at a time.
+			Room[] rooms = new Room[count];
+			byte[] text = new byte[DESCRIPTION_LENGTH];
+			int loaded = 0;
+			while(loaded < count)
+			{
+				int records = Math.min(RECORDS_PER_BUFFER, count - loaded);
+				buffer.clear();
+				buffer.limit(records * RECORD_SIZE);
+				readFully(channel, buffer);
+				buffer.flip();
+				for(int i=0; i < records; i++)
+				{
+					rooms[loaded++] = readRecord(buffer, text);
+				}
+			}
+
+			// Read the reservations, a buffer at a time.
+			int restored = 0;
+			while(restored < reservations)
+			{
+				int entries = Math.min(RECORD_SIZE * RECORDS_PER_BUFFER / RESERVATION_SIZE, reservations - restored);
+				buffer.clear();
+				buffer.limit(entries * RESERVATION_SIZE);
+				readFully(channel, buffer);
+				buffer.flip();
+				for(int i=0; i < entries; i++)
+				{
+					int index = buffer.getInt();
+					int customerNumber = buffer.getInt();
+					long firstNight = buffer.getLong();
+					int nights = buffer.getInt();
+					buffer.getInt();
+					if(index < 0 || index >= count || nights < 1 || nights > AvailabilityCalendar.MAX_NIGHTS)
+					{
+						throw new IOException(fileName + " has an invalid reservation");
+					}
+					rooms[index].restoreReservation(customerNumber, firstNight, nights);
+				}
+				restored += entries;
+			}
+			return rooms;
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	// Method to determine if a file is a snapshot, rather than a file written with
+	// Java serialisation by older versions of the program.
+	public static boolean isSnapshot(String fileName) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new FileInputStream(fileName));
+		try
+		{
+			int magic = in.readInt();
+			if(magic == MAGIC)
+			{
+				return true;
+			}
+			else if(magic == SERIALISED_MAGIC)
+			{
+				return false;
+			}
+			throw new IOException(fileName + " is not a recognised rooms file");
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	// Method to encode a room as a record at the buffer's position, advancing the
+	// position by one record.
+	public static void writeRecord(Room room, ByteBuffer buffer) throws IOException
+	{
+		int base = buffer.position();
+		for(int i=0; i < RECORD_SIZE; i += 8)
+		{
+			buffer.putLong(base + i, 0L);
+		}
+
+		buffer.put(base + TYPE, room instanceof PremiumRoom ? TYPE_PREMIUM_ROOM : TYPE_ROOM);
+		buffer.put(base + STATUS, (byte) room.getStatus());
+		buffer.putInt(base + CUSTOMER, room.getCustomerNumber());
+		buffer.putDouble(base + DAILY_RATE, room.getDailyRate());
+		buffer.putDouble(base + CHARGE, room.getCharge());
+		buffer.putLong(base + START_TIMESTAMP, room.getBookingStartTimestamp());
+		buffer.putLong(base + END_TIMESTAMP, room.getBookingEndTimestamp());
+		putString(buffer, base + ROOM_ID, ROOM_ID_LENGTH, room.getId());
+		putString(buffer, base + DESCRIPTION, DESCRIPTION_LENGTH, room.getDescription());
+
+		if(room instanceof PremiumRoom)
+		{
+			PremiumRoom premiumRoom = (PremiumRoom) room;
+			buffer.putInt(base + FREE_NIGHTS, premiumRoom.getFreeNights());
+			buffer.putDouble(base + DISCOUNT_RATE, premiumRoom.getDiscountRate());
+			buffer.putDouble(base + NEXT_BOOKING_VOUCHER, premiumRoom.getNextBookingDiscountVoucher());
+			buffer.putDouble(base + VOUCHER_AMOUNT, premiumRoom.getVoucherAmount());
+			buffer.putDouble(base + DISCOUNT_AMOUNT, premiumRoom.getDiscountAmount());
+		}
+		buffer.position(base + RECORD_SIZE);
+	}
+
+	// Method to decode a room from the record at the buffer's position, advancing
+	// the position by one record. The text array is used as scratch space and
+	// must hold at least DESCRIPTION_LENGTH bytes.
+	public static Room readRecord(ByteBuffer buffer, byte[] text) throws IOException
+	{
+		int base = buffer.position();
+		String roomId = getString(buffer, base + ROOM_ID, ROOM_ID_LENGTH, text);
+		String description = getString(buffer, base + DESCRIPTION, DESCRIPTION_LENGTH, text);
+		double dailyRate = buffer.getDouble(base + DAILY_RATE);
+
+		Room room;
+		switch(buffer.get(base + TYPE))
+		{
+			case TYPE_ROOM:
+				room = new Room(roomId, description, dailyRate);
+				break;
+
+			case TYPE_PREMIUM_ROOM:
+				room = new PremiumRoom(roomId, description, dailyRate, buffer.getInt(base + FREE_NIGHTS), buffer.getDouble(base + DISCOUNT_RATE));
+				break;
+
+			default:
+				throw new IOException("Unknown record type for room " + roomId);
+		}
+
+		restoreState(buffer, base, room);
+		buffer.position(base + RECORD_SIZE);
+		return room;
+	}
+
+	// Method to read the room ID of the record at the buffer's position, without
+	// moving the position.
+	public static String readRoomId(ByteBuffer buffer, byte[] text) throws IOException
+	{
+		return getString(buffer, buffer.position() + ROOM_ID, ROOM_ID_LENGTH, text);
+	}
+
+	// Method to update an existing room with the rate, status, booking and discount
+	// details from the record at the buffer's position, advancing the position by
+	// one record.
+	public static void applyRecord(ByteBuffer buffer, Room room) throws IOException
+	{
+		int base = buffer.position();
+		byte type = buffer.get(base + TYPE);
+		if((type == TYPE_PREMIUM_ROOM) != (room instanceof PremiumRoom))
+		{
+			throw new IOException("Record type does not match room " + room.getId());
+		}
+
+		double dailyRate = buffer.getDouble(base + DAILY_RATE);
+		if(room.getDailyRate() != dailyRate)
+		{
+			room.setDailyRate(dailyRate);
+		}
+		restoreState(buffer, base, room);
+		buffer.position(base + RECORD_SIZE);
+	}
+
+	// Method to encode a reservation of a room as a reservation change at the
+	// buffer's position, advancing the position by one record.
+	public static void writeReservationRecord(Room room, Reservation reservation, ByteBuffer buffer) throws IOException
+	{
+		int base = buffer.position();
+		for(int i=0; i < RECORD_SIZE; i += 8)
+		{
+			buffer.putLong(base + i, 0L);
+		}
+		buffer.putInt(base + CUSTOMER, reservation.getCustomerNumber());
+		buffer.putLong(base + RESERVED_FIRST_NIGHT, reservation.getFirstNight());
+		buffer.putInt(base + RESERVED_NIGHTS, reservation.getNights());
+		putString(buffer, base + ROOM_ID, ROOM_ID_LENGTH, room.getId());
+		buffer.position(base + RECORD_SIZE);
+	}
+
+	// Method to apply the reservation change at the buffer's position to a room,
+	// restoring the reservation if reserved is true or cancelling it otherwise, and
+	// advancing the position by one record. Applying the same change twice has the
+	// same effect as applying it once.
+	public static void applyReservationRecord(ByteBuffer buffer, Room room, boolean reserved) throws IOException
+	{
+		int base = buffer.position();
+		int customerNumber = buffer.getInt(base + CUSTOMER);
+		long firstNight = buffer.getLong(base + RESERVED_FIRST_NIGHT);
+		int nights = buffer.getInt(base + RESERVED_NIGHTS);
+		if(nights < 1 || nights > AvailabilityCalendar.MAX_NIGHTS)
+		{
+			throw new IOException("Invalid reservation change for room " + room.getId());
+		}
+		if(reserved)
+		{
+			room.restoreReservation(customerNumber, firstNight, nights);
+		}
+		else
+		{
+			room.restoreCancellation(customerNumber, firstNight);
+		}
+		buffer.position(base + RECORD_SIZE);
+	}
+
+	// Method to restore the status, booking and discount details of a room from
+	// the record starting at the given position.
+	private static void restoreState(ByteBuffer buffer, int base, Room room)
+	{
+		room.restoreBooking((char) buffer.get(base + STATUS), buffer.getInt(base + CUSTOMER), buffer.getDouble(base + CHARGE), buffer.getLong(base + START_TIMESTAMP), buffer.getLong(base + END_TIMESTAMP));
+		if(room instanceof PremiumRoom)
+		{
+			((PremiumRoom) room).restoreDiscounts(buffer.getDouble(base + NEXT_BOOKING_VOUCHER), buffer.getDouble(base + VOUCHER_AMOUNT), buffer.getDouble(base + DISCOUNT_AMOUNT));
+		}
+	}
+
+	// Method to write a string as a length byte followed by its UTF-8 bytes.
+	private static void putString(ByteBuffer buffer, int offset, int fieldLength, String value) throws IOException
+	{
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if(bytes.length >= fieldLength)
+		{
+			throw new IOException("\"" + value + "\" is too long to save, the limit is " + (fieldLength - 1) + " bytes");
+		}
+		buffer.put(offset, (byte) bytes.length);
+		for(int i=0; i < bytes.length; i++)
+		{
+			buffer.put(offset + 1 + i, bytes[i]);
+		}
+	}
+
+	// Method to read a string written by putString. The snapshot has no checksum,
+	// so a length that does not fit the field means the file is damaged.
+	private static String getString(ByteBuffer buffer, int offset, int fieldLength, byte[] text) throws IOException
+	{
+		int length = buffer.get(offset) & 0xFF;
+		if(length >= fieldLength)
+		{
+			throw new IOException("Damaged record, a text field is " + length + " bytes long but the limit is " + (fieldLength - 1));
+		}
+		for(int i=0; i < length; i++)
+		{
+			text[i] = buffer.get(offset + 1 + i);
+		}
+		return new String(text, 0, length, StandardCharsets.UTF_8);
+	}
+
+	// Method to write the contents of a buffer to a channel, then clear the buffer.
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+		while(buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	// Method to fill the remainder of a buffer from a channel.
+	private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while(buffer.hasRemaining())
+		{
+			if(channel.read(buffer) < 0)
+			{
+				throw new EOFException("Room snapshot file is truncated");
+			}
+		}
+	}
+}
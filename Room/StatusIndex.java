@@ -0,0 +1,184 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Room/StatusIndex.java
+// Description:
+// 	This class, StatusIndex, keeps a bitmap for each room status (available,
+// 	booked and un-cleaned) and each class of room (standard and premium),
+// 	with one bit per registry slot, so that rooms matching a combination of
+// 	them can be found with word-level ANDs instead of reading every room.
+//
+// 	Each bitmap is split into segments of SEGMENT_ROOMS rooms held in
+// 	AtomicLongArrays. Rooms change status from many threads at once, so bits
+// 	are set and cleared with compare-and-set, and growing the index for new
+// 	rooms only adds segments, never copies them, so no change can be lost.
+//
+package Room;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class StatusIndex
+{
+
+	// The bitmaps kept, by number.
+	static final int AVAILABLE = 0;
+	static final int BOOKED = 1;
+	static final int UNCLEAN = 2;
+	static final int STANDARD = 3;
+	static final int PREMIUM = 4;
+	private static final int BITMAPS = 5;
+
+	// The number of rooms in each segment of a bitmap.
+	private static final int SEGMENT_ROOMS = 4096;
+	private static final int SEGMENT_SHIFT = 12;
+	private static final int SEGMENT_WORDS = SEGMENT_ROOMS / 64;
+
+	// The segments of each bitmap, indexed by bitmap then segment. The array is
+	// replaced when it grows, but the segments in it are kept.
+	private volatile AtomicLongArray[][] segments = new AtomicLongArray[BITMAPS][0];
+
+	// Method to find the bitmap for a status, or -1 for an unknown status.
+	static int bitmapFor(char status)
+	{
+		switch(status)
+		{
+			case 'A':
+				return AVAILABLE;
+			case 'B':
+				return BOOKED;
+			case 'U':
+				return UNCLEAN;
+			default:
+				return -1;
+		}
+	}
+
+	// Method to add a room in the given slot, setting the bits for its status and
+	// class.
+	void add(int slot, Room room)
+	{
+		ensureCapacity(slot + 1);
+		set(room instanceof PremiumRoom ? PREMIUM : STANDARD, slot, true);
+		int bitmap = bitmapFor(room.getStatus());
+		if(bitmap != -1)
+		{
+			set(bitmap, slot, true);
+		}
+	}
+
+	// Method to move the room in the given slot from one status bitmap to another.
+	void statusChanged(int slot, char oldStatus, char newStatus)
+	{
+		int oldBitmap = bitmapFor(oldStatus);
+		int newBitmap = bitmapFor(newStatus);
+		if(oldBitmap != -1)
+		{
+			set(oldBitmap, slot, false);
+		}
+		if(newBitmap != -1)
+		{
+			set(newBitmap, slot, true);
+		}
+	}
+
+	// Method to find the slots, in order, of the first size rooms whose bit is set
+	// in any of the status bitmaps given and any of the class bitmaps given, and
+	// also in the given price bitmap unless it is null.
+	int[] match(int[] statusBitmaps, int[] classBitmaps, long[] priceWords, int size)
+	{
+		AtomicLongArray[][] current = segments;
+		int words = (size + 63) >>> 6;
+		int[] result = new int[16];
+		int found = 0;
+		for(int i=0; i < words; i++)
+		{
+			long word = word(current, statusBitmaps, i) & word(current, classBitmaps, i);
+			if(priceWords != null)
+			{
+				word &= priceWords[i];
+			}
+
+			// Ignore bits past the last room.
+			if(i == words - 1 && (size & 63) != 0)
+			{
+				word &= -1L >>> (64 - (size & 63));
+			}
+			while(word != 0)
+			{
+				if(found == result.length)
+				{
+					result = Arrays.copyOf(result, result.length * 2);
+				}
+				result[found++] = (i << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return Arrays.copyOf(result, found);
+	}
+
+	// Method to determine if the room in a slot is set in any of the status
+	// bitmaps given and any of the class bitmaps given.
+	boolean matches(int[] statusBitmaps, int[] classBitmaps, int slot)
+	{
+		AtomicLongArray[][] current = segments;
+		long bit = 1L << slot;
+		return (word(current, statusBitmaps, slot >>> 6) & word(current, classBitmaps, slot >>> 6) & bit) != 0;
+	}
+
+	// Method to OR together one word of several bitmaps.
+	private static long word(AtomicLongArray[][] current, int[] bitmaps, int word)
+	{
+		int segment = word / SEGMENT_WORDS;
+		int offset = word % SEGMENT_WORDS;
+		long result = 0;
+		for(int i=0; i < bitmaps.length; i++)
+		{
+			AtomicLongArray[] bitmap = current[bitmaps[i]];
+			if(segment < bitmap.length)
+			{
+				result |= bitmap[segment].get(offset);
+			}
+		}
+		return result;
+	}
+
+	// Method to set or clear a slot's bit in a bitmap.
+	private void set(int bitmap, int slot, boolean value)
+	{
+		AtomicLongArray segment = segments[bitmap][slot >>> SEGMENT_SHIFT];
+		int offset = (slot >>> 6) & (SEGMENT_WORDS - 1);
+		long bit = 1L << slot;
+		while(true)
+		{
+			long word = segment.get(offset);
+			long updated = value ? word | bit : word & ~bit;
+			if(word == updated || segment.compareAndSet(offset, word, updated))
+			{
+				return;
+			}
+		}
+	}
+
+	// Method to make sure every bitmap has segments for the given number of slots.
+	private synchronized void ensureCapacity(int slots)
+	{
+		int needed = (slots + SEGMENT_ROOMS - 1) >>> SEGMENT_SHIFT;
+		AtomicLongArray[][] current = segments;
+		if(current[0].length >= needed)
+		{
+			return;
+		}
+		AtomicLongArray[][] grown = new AtomicLongArray[BITMAPS][];
+		for(int i=0; i < BITMAPS; i++)
+		{
+			grown[i] = Arrays.copyOf(current[i], needed);
+			for(int j = current[i].length; j < needed; j++)
+			{
+				grown[i][j] = new AtomicLongArray(SEGMENT_WORDS);
+			}
+		}
+		segments = grown;
+	}
+}
@@ -0,0 +1,120 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Storage/ArchivedStay.java
+// Description:
+// 	This class, ArchivedStay, holds the details of one completed stay read
+// 	back from the booking history (see BookingHistory) - the room, the
+// 	customer, the dates, and what was charged - as they were when the
+// 	customer checked out.
+//
+package Storage;
+
+import Room.CustomerId;
+import utilities.EpochDays;
+
+public final class ArchivedStay
+{
+
+	// Class wide variables.
+	private final String roomId;
+	private final int customerNumber;
+	private final boolean premium;
+	private final long bookingStartTimestamp;
+	private final long bookingEndTimestamp;
+	private final long checkoutTimestamp;
+	private final double dailyRate;
+	private final double charge;
+	private final double discount;
+	private final double voucherAmount;
+
+	// Constructor.
+	ArchivedStay(String roomId, int customerNumber, boolean premium, long bookingStartTimestamp, long bookingEndTimestamp,
+		long checkoutTimestamp, double dailyRate, double charge, double discount, double voucherAmount)
+	{
+		this.roomId = roomId;
+		this.customerNumber = customerNumber;
+		this.premium = premium;
+		this.bookingStartTimestamp = bookingStartTimestamp;
+		this.bookingEndTimestamp = bookingEndTimestamp;
+		this.checkoutTimestamp = checkoutTimestamp;
+		this.dailyRate = dailyRate;
+		this.charge = charge;
+		this.discount = discount;
+		this.voucherAmount = voucherAmount;
+	}
+
+	// Accessor method for the room ID.
+	public String getRoomId()
+	{
+		return roomId;
+	}
+
+	// Accessor method for the customer ID.
+	public String getCustomerId()
+	{
+		return CustomerId.toString(customerNumber);
+	}
+
+	// Accessor method for the customer number (see CustomerId).
+	public int getCustomerNumber()
+	{
+		return customerNumber;
+	}
+
+	// Method to determine if the stay was in a premium room.
+	public boolean isPremium()
+	{
+		return premium;
+	}
+
+	// Accessor method for the time the booking started.
+	public long getBookingStartTimestamp()
+	{
+		return bookingStartTimestamp;
+	}
+
+	// Accessor method for the time the booking was due to end.
+	public long getBookingEndTimestamp()
+	{
+		return bookingEndTimestamp;
+	}
+
+	// Accessor method for the time the customer checked out.
+	public long getCheckoutTimestamp()
+	{
+		return checkoutTimestamp;
+	}
+
+	// Accessor method for the room's daily rate during the stay.
+	public double getDailyRate()
+	{
+		return dailyRate;
+	}
+
+	// Accessor method for the amount charged, after any discount.
+	public double getCharge()
+	{
+		return charge;
+	}
+
+	// Accessor method for the discount given at checkout (premium rooms only).
+	public double getDiscount()
+	{
+		return discount;
+	}
+
+	// Accessor method for the voucher used for the stay (premium rooms only).
+	public double getVoucherAmount()
+	{
+		return voucherAmount;
+	}
+
+	// Method to return the stay as text.
+	public String toString()
+	{
+		return String.format("%s %s %s to %s, checked out %s, $%,.2f (discount $%,.2f)", roomId, getCustomerId(),
+			EpochDays.format(bookingStartTimestamp), EpochDays.format(bookingEndTimestamp), EpochDays.format(checkoutTimestamp), charge, discount);
+	}
+}
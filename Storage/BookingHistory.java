@@ -0,0 +1,810 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Storage/BookingHistory.java
+// Description:
+// 	This class, BookingHistory, keeps a record of every completed stay. When a
+// 	customer checks out, the room's booking - customer, dates, daily rate,
+// 	charge and any premium room discount and voucher - is archived as one
+// 	fixed size record, before the room is cleaned and booked again.
+//
+// 	Records are appended to one file per month (a partition), named after
+// 	the month the customer checked out in, such as 2018-03.stays. Records in
+// 	a partition are always in checkout order. Each partition has an index
+// 	file beside it, such as 2018-03.index, which holds:
+// 		- a sparse index, the checkout time of every INDEX_INTERVAL'th record,
+// 		  so a search for a range of days can start close to the first day
+// 		  instead of at the start of the month, and
+// 		- a filter of the room IDs in the partition (a Bloom filter), so a
+// 		  search for one room's history can skip months the room was not
+// 		  checked out of.
+// 	A search only opens the partitions for the months it covers.
+//
+// 	Each record is forced to storage as it is archived. The index files are
+// 	written when a month is finished and at each checkpoint, and are only a
+// 	help to searching - records past the end of a partition's index are read
+// 	and indexed when the partition is next opened, and a missing or damaged
+// 	index is built again (in memory, for a finished month) from its
+// 	partition. Searches only ever read the files. Only the last record of a
+// 	partition can be torn by a crash, and it is cut off when the partition is
+// 	next appended to; a bad record anywhere else is reported as damage.
+//
+// 	Partition header (HEADER_SIZE bytes):
+// 		int	magic number ("HTRH")
+// 		short	format version
+// 		short	record size
+// 		int	month (year * 12 + month - 1)
+// 		int	reserved
+//
+// 	Record (RECORD_SIZE bytes, unused bytes are zero):
+// 		0	long	checkout timestamp
+// 		8	long	booking start timestamp
+// 		16	long	booking end timestamp
+// 		24	double	daily rate
+// 		32	double	charge, after any discount
+// 		40	double	discount amount (PremiumRoom only)
+// 		48	double	voucher amount (PremiumRoom only)
+// 		56	int	customer number (digits of the customer ID), -1 if none
+// 		60	byte	record type (0 = Room, 1 = PremiumRoom)
+// 		64	bytes	room ID (1 length byte, up to 23 UTF-8 bytes)
+// 		88	int	CRC-32 of bytes 0 to 87
+//
+// 	Index file:
+// 		int	magic number ("HTRI")
+// 		short	format version
+// 		short	records between sparse index entries
+// 		long	number of records indexed
+// 		int	CRC-32 of the filter and sparse index
+// 		int	reserved
+// 		long[]	room ID filter (FILTER_BITS bits)
+// 		long[]	sparse index, one checkout timestamp per INDEX_INTERVAL records
+//
+package Storage;
+
+import Room.PremiumRoom;
+import Room.Room;
+import utilities.Clock;
+import utilities.EpochDays;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+public class BookingHistory
+{
+
+	// File format constants.
+	public static final int MAGIC = 0x48545248;
+	public static final int INDEX_MAGIC = 0x48545249;
+	public static final short VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+	public static final int RECORD_SIZE = 96;
+	public static final int INDEX_HEADER_SIZE = 24;
+
+	// The number of records between entries in a partition's sparse index.
+	public static final int INDEX_INTERVAL = 128;
+
+	// The size of each partition's room ID filter in bits, and the number of bits
+	// set for each room.
+	public static final int FILTER_BITS = 1 << 16;
+	private static final int FILTER_HASHES = 3;
+
+	// File name extensions.
+	private static final String DATA_EXTENSION = ".stays";
+	private static final String INDEX_EXTENSION = ".index";
+
+	// Record types.
+	private static final byte TYPE_ROOM = 0;
+	private static final byte TYPE_PREMIUM_ROOM = 1;
+
+	// Record field offsets, see the description above.
+	private static final int CHECKOUT_TIMESTAMP = 0;
+	private static final int START_TIMESTAMP = 8;
+	private static final int END_TIMESTAMP = 16;
+	private static final int DAILY_RATE = 24;
+	private static final int CHARGE = 32;
+	private static final int DISCOUNT_AMOUNT = 40;
+	private static final int VOUCHER_AMOUNT = 48;
+	private static final int CUSTOMER = 56;
+	private static final int TYPE = 60;
+	private static final int ROOM_ID = 64;
+	private static final int ROOM_ID_LENGTH = Room.MAX_ID_BYTES + 1;
+	private static final int CHECKSUM = 88;
+
+	// The number of records read from a partition at a time.
+	private static final int RECORDS_PER_BUFFER = 256;
+
+	// Class wide variables.
+	private final Path directory;
+	private final TreeMap<Integer, Partition> partitions = new TreeMap<Integer, Partition>();
+	private final ByteBuffer record = ByteBuffer.allocateDirect(RECORD_SIZE);
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * RECORDS_PER_BUFFER);
+	private final CRC32 checksum = new CRC32();
+	private final byte[] text = new byte[ROOM_ID_LENGTH];
+	private Partition current;
+	private FileChannel channel;
+	private long lastCheckout = Long.MIN_VALUE;
+	private int partitionsSearched;
+	private long recordsRead;
+
+	// Constructor, use open() to create a history.
+	private BookingHistory(Path directory)
+	{
+		this.directory = directory;
+	}
+
+	// Method to open the history kept in a directory, creating the directory if it
+	// does not exist. The latest partition is opened for appending, so stays
+	// archived from now on follow the ones already there.
+	public static BookingHistory open(String directory) throws IOException
+	{
+		BookingHistory history = new BookingHistory(Paths.get(directory));
+		Files.createDirectories(history.directory);
+
+		DirectoryStream<Path> files = Files.newDirectoryStream(history.directory, "*" + DATA_EXTENSION);
+		try
+		{
+			for(Path file : files)
+			{
+				int month = parseMonth(file.getFileName().toString());
+				if(month >= 0)
+				{
+					history.partitions.put(month, new Partition(month));
+				}
+			}
+		}
+		finally
+		{
+			files.close();
+		}
+
+		if(!history.partitions.isEmpty())
+		{
+			history.startAppending(history.partitions.lastEntry().getValue());
+		}
+		return history;
+	}
+
+	// Method to archive the stay of a room that has just been checked out,
+	// returning once its record is on stable storage. Stays are archived in
+	// checkout order, so a stay is never given an earlier checkout time than the
+	// stay archived before it, even if the clock has been put back.
+	public synchronized void archive(Room room) throws IOException
+	{
+		long checkout = Math.max(Clock.now(), lastCheckout);
+		int month = monthOfDay(EpochDays.toEpochDay(checkout));
+		if(current == null || current.month != month)
+		{
+			finishAppending();
+			Partition partition = partitions.get(month);
+			if(partition == null)
+			{
+				partition = new Partition(month);
+				partitions.put(month, partition);
+			}
+			startAppending(partition);
+		}
+
+		int length = encode(room, checkout);
+		long position = HEADER_SIZE + current.records * RECORD_SIZE;
+		while(record.hasRemaining())
+		{
+			channel.write(record, position + record.position());
+		}
+		channel.force(false);
+		current.add(checkout, hash(text, length));
+		lastCheckout = checkout;
+	}
+
+	// Method to find the stays checked out between two days (epoch days, both
+	// included), in checkout order. Only the partitions for the months between
+	// the two days are read.
+	public synchronized List<ArchivedStay> findCheckedOut(long firstDay, long lastDay) throws IOException
+	{
+		return find(null, firstDay, lastDay);
+	}
+
+	// Method to find the stays in one room checked out between two days (epoch
+	// days, both included), in checkout order. Only the partitions for the months
+	// between the two days whose filter may hold the room are read.
+	public synchronized List<ArchivedStay> findByRoom(String roomId, long firstDay, long lastDay) throws IOException
+	{
+		return find(roomId.getBytes(StandardCharsets.UTF_8), firstDay, lastDay);
+	}
+
+	// Method to force the partition being appended to onto stable storage and
+	// save its index, so it does not need to be read again when next opened.
+	public synchronized void checkpoint() throws IOException
+	{
+		if(current != null)
+		{
+			channel.force(true);
+			saveIndex(current);
+		}
+	}
+
+	// Method to save the index of the partition being appended to and close it.
+	public synchronized void close() throws IOException
+	{
+		finishAppending();
+	}
+
+	// Accessor method for the number of partitions (months) in the history.
+	public synchronized int getPartitions()
+	{
+		return partitions.size();
+	}
+
+	// Accessor method for the number of partitions read by the last search.
+	public synchronized int getPartitionsSearched()
+	{
+		return partitionsSearched;
+	}
+
+	// Accessor method for the number of records read by the last search.
+	public synchronized long getRecordsRead()
+	{
+		return recordsRead;
+	}
+
+	// Method to find the stays checked out between two days, in one room if a room
+	// ID is given, or in any room if it is null.
+	private List<ArchivedStay> find(byte[] roomId, long firstDay, long lastDay) throws IOException
+	{
+		partitionsSearched = 0;
+		recordsRead = 0;
+		List<ArchivedStay> stays = new ArrayList<ArchivedStay>();
+		if(firstDay > lastDay)
+		{
+			return stays;
+		}
+
+		long roomHash = roomId == null ? 0 : hash(roomId, roomId.length);
+		for(Partition partition : partitions.subMap(monthOfDay(firstDay), true, monthOfDay(lastDay), true).values())
+		{
+			// Partitions no longer appended to are only read, never repaired.
+			FileChannel in = partition == current ? channel : FileChannel.open(dataFile(partition), StandardOpenOption.READ);
+			try
+			{
+				load(partition, in, false);
+				if(roomId == null || partition.mightContain(roomHash))
+				{
+					partitionsSearched++;
+					search(partition, in, roomId, firstDay, lastDay, stays);
+				}
+			}
+			finally
+			{
+				if(in != channel)
+				{
+					in.close();
+				}
+			}
+		}
+		return stays;
+	}
+
+	// Method to add the stays in a partition checked out between two days to a list.
+	// The sparse index gives the last indexed record checked out before the first
+	// day, and records are read from there until one is checked out after the last.
+	private void search(Partition partition, FileChannel in, byte[] roomId, long firstDay, long lastDay, List<ArchivedStay> stays) throws IOException
+	{
+		int low = 0;
+		int high = partition.sparseCount - 1;
+		int block = 0;
+		while(low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			if(EpochDays.toEpochDay(partition.sparse[middle]) < firstDay)
+			{
+				block = middle;
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle - 1;
+			}
+		}
+
+		long index = (long) block * INDEX_INTERVAL;
+		while(index < partition.records)
+		{
+			int count = (int) Math.min(RECORDS_PER_BUFFER, partition.records - index);
+			buffer.clear();
+			buffer.limit(count * RECORD_SIZE);
+			if(read(in, buffer, HEADER_SIZE + index * RECORD_SIZE) < count * RECORD_SIZE)
+			{
+				throw new IOException(dataFile(partition) + " is shorter than its index");
+			}
+
+			for(int i=0; i < count; i++)
+			{
+				int base = i * RECORD_SIZE;
+				recordsRead++;
+				long day = EpochDays.toEpochDay(buffer.getLong(base + CHECKOUT_TIMESTAMP));
+				if(day > lastDay)
+				{
+					return;
+				}
+				if(day >= firstDay && (roomId == null || sameRoomId(base, roomId)))
+				{
+					if(checksumOf(buffer, base) != buffer.getInt(base + CHECKSUM))
+					{
+						throw new IOException(dataFile(partition) + " is damaged at record " + (index + i));
+					}
+					stays.add(decode(base));
+				}
+			}
+			index += count;
+		}
+	}
+
+	// Method to start appending to a partition, creating its file if it is new.
+	private void startAppending(Partition partition) throws IOException
+	{
+		channel = FileChannel.open(dataFile(partition), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			load(partition, channel, true);
+		}
+		catch(IOException e)
+		{
+			channel.close();
+			channel = null;
+			throw e;
+		}
+		current = partition;
+		if(partition.records > 0)
+		{
+			lastCheckout = Math.max(lastCheckout, partition.lastCheckout);
+		}
+	}
+
+	// Method to finish appending to the current partition, forcing it to stable
+	// storage and saving its index.
+	private void finishAppending() throws IOException
+	{
+		if(current != null)
+		{
+			try
+			{
+				channel.force(true);
+				saveIndex(current);
+			}
+			finally
+			{
+				channel.close();
+				channel = null;
+				current = null;
+			}
+		}
+	}
+
+	// Method to read a partition's index the first time the partition is used,
+	// then index any records written after it. Each record is forced to storage
+	// before the next is written, so only the last record can have been torn by a
+	// crash; a bad record anywhere else means the file is damaged. When repair is
+	// true (the partition being appended to) a file with no header is given one
+	// and a torn record at the end is cut off. Otherwise the file is only read,
+	// and a torn record at the end is left out.
+	private void load(Partition partition, FileChannel in, boolean repair) throws IOException
+	{
+		if(partition.loaded)
+		{
+			return;
+		}
+
+		long size = in.size();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		if(size < HEADER_SIZE)
+		{
+			if(repair)
+			{
+				header.putInt(MAGIC);
+				header.putShort(VERSION);
+				header.putShort((short) RECORD_SIZE);
+				header.putInt(partition.month);
+				header.putInt(0);
+				header.flip();
+				in.truncate(0);
+				while(header.hasRemaining())
+				{
+					in.write(header, header.position());
+				}
+				in.force(true);
+			}
+			size = HEADER_SIZE;
+		}
+		else
+		{
+			read(in, header, 0);
+			header.flip();
+			if(header.getInt() != MAGIC || header.getShort() != VERSION || header.getShort() != RECORD_SIZE || header.getInt() != partition.month)
+			{
+				throw new IOException(dataFile(partition) + " is not a booking history partition");
+			}
+		}
+
+		// Index the records the index file does not cover. A partly written record
+		// after the last whole one was torn, in which case every whole record must be
+		// good.
+		long records = (size - HEADER_SIZE) / RECORD_SIZE;
+		boolean partial = (size - HEADER_SIZE) % RECORD_SIZE != 0;
+		readIndex(partition, records);
+		while(partition.records < records)
+		{
+			long first = partition.records;
+			int count = (int) Math.min(RECORDS_PER_BUFFER, records - first);
+			buffer.clear();
+			buffer.limit(count * RECORD_SIZE);
+			read(in, buffer, HEADER_SIZE + first * RECORD_SIZE);
+			for(int i=0; i < count; i++)
+			{
+				int base = i * RECORD_SIZE;
+				if(checksumOf(buffer, base) == buffer.getInt(base + CHECKSUM))
+				{
+					partition.add(buffer.getLong(base + CHECKOUT_TIMESTAMP), hash(text, readRoomId(buffer, base)));
+				}
+				else if(first + i == records - 1 && !partial)
+				{
+					records--;
+					partial = true;
+				}
+				else
+				{
+					throw new IOException(dataFile(partition) + " is damaged at record " + (first + i));
+				}
+			}
+		}
+		long goodLength = HEADER_SIZE + partition.records * RECORD_SIZE;
+		if(repair && partial)
+		{
+			in.truncate(goodLength);
+		}
+
+		// The last record's checkout time, which later records must not be before.
+		if(partition.records > 0)
+		{
+			ByteBuffer last = ByteBuffer.allocate(8);
+			read(in, last, goodLength - RECORD_SIZE + CHECKOUT_TIMESTAMP);
+			partition.lastCheckout = last.getLong(0);
+		}
+		partition.loaded = true;
+	}
+
+	// Method to read a partition's index file, if it is there and matches the
+	// partition. Otherwise the partition is indexed from its first record.
+	private void readIndex(Partition partition, long records) throws IOException
+	{
+		partition.clear();
+		Path file = indexFile(partition);
+		if(!Files.exists(file))
+		{
+			return;
+		}
+
+		ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(file));
+		if(index.remaining() < INDEX_HEADER_SIZE + FILTER_BITS / 8 || index.getInt() != INDEX_MAGIC
+			|| index.getShort() != VERSION || index.getShort() != INDEX_INTERVAL)
+		{
+			return;
+		}
+		long indexed = index.getLong();
+		int expectedChecksum = index.getInt();
+		index.getInt();
+		long entries = (indexed + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+		if(indexed < 0 || indexed > records || index.remaining() != FILTER_BITS / 8 + entries * 8)
+		{
+			return;
+		}
+		checksum.reset();
+		checksum.update(index);
+		if((int) checksum.getValue() != expectedChecksum)
+		{
+			return;
+		}
+
+		index.position(INDEX_HEADER_SIZE);
+		index.asLongBuffer().get(partition.filter);
+		index.position(INDEX_HEADER_SIZE + FILTER_BITS / 8);
+		partition.sparse = new long[Math.max(16, (int) entries)];
+		index.asLongBuffer().get(partition.sparse, 0, (int) entries);
+		partition.sparseCount = (int) entries;
+		partition.records = indexed;
+		partition.indexedRecords = indexed;
+	}
+
+	// Method to save a partition's index, if it has records it does not cover. The
+	// index is written alongside the original and then moved over it.
+	private void saveIndex(Partition partition) throws IOException
+	{
+		if(partition.indexedRecords == partition.records)
+		{
+			return;
+		}
+
+		ByteBuffer index = ByteBuffer.allocate(INDEX_HEADER_SIZE + FILTER_BITS / 8 + partition.sparseCount * 8);
+		index.position(INDEX_HEADER_SIZE);
+		for(int i=0; i < partition.filter.length; i++)
+		{
+			index.putLong(partition.filter[i]);
+		}
+		for(int i=0; i < partition.sparseCount; i++)
+		{
+			index.putLong(partition.sparse[i]);
+		}
+		index.position(INDEX_HEADER_SIZE);
+		checksum.reset();
+		checksum.update(index);
+		index.putInt(0, INDEX_MAGIC);
+		index.putShort(4, VERSION);
+		index.putShort(6, (short) INDEX_INTERVAL);
+		index.putLong(8, partition.records);
+		index.putInt(16, (int) checksum.getValue());
+		index.clear();
+
+		Path target = indexFile(partition);
+		Path temporary = directory.resolve(target.getFileName() + ".tmp");
+		FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			while(index.hasRemaining())
+			{
+				out.write(index);
+			}
+			out.force(true);
+		}
+		finally
+		{
+			out.close();
+		}
+		Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		partition.indexedRecords = partition.records;
+	}
+
+	// Method to encode a room's stay into the record buffer, ready to be written,
+	// returning the length of the room ID, which is left in the text array.
+	private int encode(Room room, long checkout) throws IOException
+	{
+		byte[] roomId = room.getId().getBytes(StandardCharsets.UTF_8);
+		if(roomId.length >= ROOM_ID_LENGTH)
+		{
+			throw new IOException("\"" + room.getId() + "\" is too long to archive, the limit is " + (ROOM_ID_LENGTH - 1) + " bytes");
+		}
+
+		record.clear();
+		for(int i=0; i < RECORD_SIZE; i += 8)
+		{
+			record.putLong(i, 0L);
+		}
+		record.putLong(CHECKOUT_TIMESTAMP, checkout);
+		record.putLong(START_TIMESTAMP, room.getBookingStartTimestamp());
+		record.putLong(END_TIMESTAMP, room.getBookingEndTimestamp());
+		record.putDouble(DAILY_RATE, room.getDailyRate());
+		record.putDouble(CHARGE, room.getCharge());
+		record.putInt(CUSTOMER, room.getCustomerNumber());
+		record.put(TYPE, room instanceof PremiumRoom ? TYPE_PREMIUM_ROOM : TYPE_ROOM);
+		if(room instanceof PremiumRoom)
+		{
+			PremiumRoom premiumRoom = (PremiumRoom) room;
+			record.putDouble(DISCOUNT_AMOUNT, premiumRoom.getDiscountAmount());
+			record.putDouble(VOUCHER_AMOUNT, premiumRoom.getVoucherAmount());
+		}
+		record.put(ROOM_ID, (byte) roomId.length);
+		for(int i=0; i < roomId.length; i++)
+		{
+			record.put(ROOM_ID + 1 + i, roomId[i]);
+			text[i] = roomId[i];
+		}
+		record.putInt(CHECKSUM, checksumOf(record, 0));
+		record.clear();
+		return roomId.length;
+	}
+
+	// Method to decode the stay from the record at an offset in the read buffer.
+	private ArchivedStay decode(int base)
+	{
+		int length = readRoomId(buffer, base);
+		return new ArchivedStay(new String(text, 0, length, StandardCharsets.UTF_8), buffer.getInt(base + CUSTOMER),
+			buffer.get(base + TYPE) == TYPE_PREMIUM_ROOM, buffer.getLong(base + START_TIMESTAMP), buffer.getLong(base + END_TIMESTAMP),
+			buffer.getLong(base + CHECKOUT_TIMESTAMP), buffer.getDouble(base + DAILY_RATE), buffer.getDouble(base + CHARGE),
+			buffer.getDouble(base + DISCOUNT_AMOUNT), buffer.getDouble(base + VOUCHER_AMOUNT));
+	}
+
+	// Method to copy the room ID bytes of the record at an offset into the text
+	// array, returning their length.
+	private int readRoomId(ByteBuffer from, int base)
+	{
+		int length = Math.min(from.get(base + ROOM_ID) & 0xFF, ROOM_ID_LENGTH - 1);
+		for(int i=0; i < length; i++)
+		{
+			text[i] = from.get(base + ROOM_ID + 1 + i);
+		}
+		return length;
+	}
+
+	// Method to determine if the record at an offset in the read buffer is for a
+	// room, without decoding its room ID.
+	private boolean sameRoomId(int base, byte[] roomId)
+	{
+		if((buffer.get(base + ROOM_ID) & 0xFF) != roomId.length)
+		{
+			return false;
+		}
+		for(int i=0; i < roomId.length; i++)
+		{
+			if(buffer.get(base + ROOM_ID + 1 + i) != roomId[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Method to work out the checksum of the record at an offset in a buffer,
+	// leaving the buffer's position and limit as they were.
+	private int checksumOf(ByteBuffer from, int base)
+	{
+		int position = from.position();
+		int limit = from.limit();
+		from.limit(base + CHECKSUM);
+		from.position(base);
+		checksum.reset();
+		checksum.update(from);
+		from.limit(limit);
+		from.position(position);
+		return (int) checksum.getValue();
+	}
+
+	// Method to fetch the path of a partition's data file.
+	private Path dataFile(Partition partition)
+	{
+		return directory.resolve(partition.getName() + DATA_EXTENSION);
+	}
+
+	// Method to fetch the path of a partition's index file.
+	private Path indexFile(Partition partition)
+	{
+		return directory.resolve(partition.getName() + INDEX_EXTENSION);
+	}
+
+	// Method to convert an epoch day to the month it falls in, as year * 12 +
+	// month - 1, so that months sort in order.
+	private static int monthOfDay(long epochDay)
+	{
+		LocalDate date = LocalDate.ofEpochDay(epochDay);
+		return date.getYear() * 12 + date.getMonthValue() - 1;
+	}
+
+	// Method to convert a partition file name such as 2018-03.stays to its month,
+	// returning -1 if it is not a partition file name.
+	private static int parseMonth(String fileName)
+	{
+		if(!fileName.matches("\\d{4}-\\d{2}\\" + DATA_EXTENSION))
+		{
+			return -1;
+		}
+		int year = Integer.parseInt(fileName.substring(0, 4));
+		int month = Integer.parseInt(fileName.substring(5, 7));
+		if(month < 1 || month > 12)
+		{
+			return -1;
+		}
+		return year * 12 + month - 1;
+	}
+
+	// Method to work out a 64 bit hash of a room ID, from its UTF-8 bytes.
+	private static long hash(byte[] bytes, int length)
+	{
+		long hash = 0xCBF29CE484222325L;
+		for(int i=0; i < length; i++)
+		{
+			hash ^= bytes[i] & 0xFF;
+			hash *= 0x100000001B3L;
+		}
+
+		// Mix the bits, so the filter's bit positions depend on every byte.
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	// Method to fill a buffer from a channel, starting at a position in the file,
+	// returning the number of bytes read.
+	private static int read(FileChannel in, ByteBuffer buffer, long position) throws IOException
+	{
+		int total = 0;
+		while(buffer.hasRemaining())
+		{
+			int count = in.read(buffer, position + total);
+			if(count < 0)
+			{
+				break;
+			}
+			total += count;
+		}
+		return total;
+	}
+
+	// One month of the history, with its sparse index and room ID filter once it
+	// has been loaded.
+	private static final class Partition
+	{
+		private final int month;
+		private boolean loaded;
+		private long records;
+		private long indexedRecords;
+		private long lastCheckout;
+		private final long[] filter = new long[FILTER_BITS / 64];
+		private long[] sparse = new long[16];
+		private int sparseCount;
+
+		private Partition(int month)
+		{
+			this.month = month;
+		}
+
+		// Method to fetch the partition's name, such as 2018-03.
+		private String getName()
+		{
+			return String.format("%04d-%02d", month / 12, month % 12 + 1);
+		}
+
+		// Method to forget the partition's records, ready to index them again.
+		private void clear()
+		{
+			Arrays.fill(filter, 0L);
+			sparseCount = 0;
+			records = 0;
+			indexedRecords = 0;
+		}
+
+		// Method to index the record added after the last one.
+		private void add(long checkout, long roomHash)
+		{
+			if(records % INDEX_INTERVAL == 0)
+			{
+				if(sparseCount == sparse.length)
+				{
+					sparse = Arrays.copyOf(sparse, sparseCount * 2);
+				}
+				sparse[sparseCount++] = checkout;
+			}
+			int first = (int) roomHash;
+			int step = (int) (roomHash >>> 32) | 1;
+			for(int i=0; i < FILTER_HASHES; i++)
+			{
+				int bit = (first + i * step) & (FILTER_BITS - 1);
+				filter[bit >>> 6] |= 1L << bit;
+			}
+			records++;
+			lastCheckout = checkout;
+		}
+
+		// Method to determine if the partition may hold a record for the room with
+		// a hash. False means it certainly does not.
+		private boolean mightContain(long roomHash)
+		{
+			int first = (int) roomHash;
+			int step = (int) (roomHash >>> 32) | 1;
+			for(int i=0; i < FILTER_HASHES; i++)
+			{
+				int bit = (first + i * step) & (FILTER_BITS - 1);
+				if((filter[bit >>> 6] & (1L << bit)) == 0)
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
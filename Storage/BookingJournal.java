@@ -0,0 +1,467 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Storage/BookingJournal.java
+// Description:
+// 	This class, BookingJournal, is an append-only log with one entry for each
+// 	booking, checkout or clean. Each entry holds the room's details after the
+// 	change, encoded as a RoomSnapshot record, so replaying the journal over
+// 	the last snapshot brings every room up to date. Reserving a room or
+// 	cancelling a reservation adds an entry holding just the reservation (a
+// 	RoomSnapshot reservation change), which is applied to the room's calendar.
+//
+// 	Entries are written through a GroupCommitWriter, so append() only returns
+// 	once its entry is on stable storage, while appends made at the same time
+// 	from several threads share a single force of the file.
+//
+// 	Once the journal grows past COMPACT_AFTER_ENTRIES it is set aside and a
+// 	new one is started, then a background thread saves a new snapshot and
+// 	deletes the old journal. Changes made while the snapshot is being saved
+// 	are in the new journal, so a snapshot that only saw some of them is
+// 	corrected when the new journal is replayed.
+//
+// 	Header (HEADER_SIZE bytes):
+// 		int	magic number ("HTRJ")
+// 		short	format version
+// 		short	entry size
+// 		long	reserved
+//
+// 	Entry (ENTRY_SIZE bytes):
+// 		0	byte	operation (BOOK, CHECKOUT, CLEAN, RESERVE or UNRESERVE)
+// 		4	int	CRC-32 of the room record
+// 		8	bytes	room record or reservation change, see RoomSnapshot
+//
+package Storage;
+
+import Room.Reservation;
+import Room.Room;
+import Room.RoomRegistry;
+import Room.RoomSnapshot;
+import utilities.LatencyHistogram;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public class BookingJournal
+{
+
+	// Operations recorded in the journal.
+	public static final byte BOOK = 1;
+	public static final byte CHECKOUT = 2;
+	public static final byte CLEAN = 3;
+	public static final byte RESERVE = 4;
+	public static final byte UNRESERVE = 5;
+
+	// File format constants.
+	public static final int MAGIC = 0x4854524A;
+	public static final short VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+	public static final int ENTRY_SIZE = 8 + RoomSnapshot.RECORD_SIZE;
+
+	// The number of entries after which the journal is folded into a new snapshot.
+	public static final int COMPACT_AFTER_ENTRIES = 10000;
+
+	// Default group commit settings, see GroupCommitWriter.
+	public static final int DEFAULT_BATCH_SIZE = 64;
+	public static final long DEFAULT_MAX_WAIT_MICROS = 1000;
+
+	// Entry field offsets, see the description above.
+	private static final int OPERATION = 0;
+	private static final int CHECKSUM = 4;
+	private static final int RECORD = 8;
+
+	// The number of entries read from the file at a time during replay.
+	private static final int ENTRIES_PER_BUFFER = 512;
+
+	// Class wide variables.
+	private final Path journalFile;
+	private final Path oldJournalFile;
+	private final String snapshotFile;
+	private final RoomRegistry registry;
+	private final ByteBuffer entry = ByteBuffer.allocateDirect(ENTRY_SIZE);
+	private final CRC32 checksum = new CRC32();
+	private FileChannel channel;
+	private GroupCommitWriter writer;
+	private int entries;
+	private Thread compaction;
+
+	// Constructor, use open() to create a journal.
+	private BookingJournal(String journalFile, String snapshotFile, RoomRegistry registry)
+	{
+		this.journalFile = Paths.get(journalFile);
+		this.oldJournalFile = Paths.get(journalFile + ".old");
+		this.snapshotFile = snapshotFile;
+		this.registry = registry;
+	}
+
+	// Method to open the journal for the rooms in a registry, using the default
+	// group commit settings.
+	public static BookingJournal open(String journalFile, String snapshotFile, RoomRegistry registry) throws IOException
+	{
+		return open(journalFile, snapshotFile, registry, DEFAULT_BATCH_SIZE, DEFAULT_MAX_WAIT_MICROS);
+	}
+
+	// Method to open the journal for the rooms in a registry. Any entries left by a
+	// previous run (which did not exit cleanly) are first replayed over the rooms.
+	// Up to batchSize entries are forced to storage together, waiting no more than
+	// maxWaitMicros for a batch to fill.
+	public static BookingJournal open(String journalFile, String snapshotFile, RoomRegistry registry, int batchSize, long maxWaitMicros) throws IOException
+	{
+		BookingJournal journal = new BookingJournal(journalFile, snapshotFile, registry);
+
+		// A journal set aside by an unfinished compaction is older than the current
+		// one, so it is replayed first and then folded into a snapshot straight away.
+		if(Files.exists(journal.oldJournalFile))
+		{
+			journal.replay(journal.oldJournalFile);
+			journal.replay(journal.journalFile);
+			RoomSnapshot.save(registry.toArray(), snapshotFile);
+			Files.delete(journal.oldJournalFile);
+			Files.deleteIfExists(journal.journalFile);
+		}
+		else
+		{
+			journal.entries = journal.replay(journal.journalFile);
+		}
+
+		journal.channel = openForAppend(journal.journalFile);
+		journal.writer = new GroupCommitWriter(journal.channel, ENTRY_SIZE, batchSize, maxWaitMicros);
+		return journal;
+	}
+
+	// Method to append an entry recording a change to a room, returning once the
+	// entry is on stable storage.
+	public void append(byte operation, Room room) throws IOException
+	{
+		long start = System.nanoTime();
+		long ticket;
+		synchronized(this)
+		{
+			encode(operation, room, null);
+			ticket = writer.submit(entry);
+			entries++;
+
+			// Start a compaction, unless one is already running.
+			if(entries >= COMPACT_AFTER_ENTRIES && compaction == null)
+			{
+				compact();
+			}
+		}
+
+		// Wait for the commit outside the lock, so other appends can join the batch.
+		writer.await(ticket, start);
+	}
+
+	// Method to append an entry recording that a room has been reserved (RESERVE)
+	// or a reservation cancelled (UNRESERVE), returning once the entry is on
+	// stable storage.
+	public void appendReservation(byte operation, Room room, Reservation reservation) throws IOException
+	{
+		long start = System.nanoTime();
+		long ticket;
+		synchronized(this)
+		{
+			encode(operation, room, reservation);
+			ticket = writer.submit(entry);
+			entries++;
+			if(entries >= COMPACT_AFTER_ENTRIES && compaction == null)
+			{
+				compact();
+			}
+		}
+		writer.await(ticket, start);
+	}
+
+	// Method to append one entry per room for the same operation, returning once
+	// all of them are on stable storage. The entries are submitted together, so
+	// they share as few forces of the file as the batch size allows.
+	public void appendAll(byte operation, List<Room> rooms) throws IOException
+	{
+		if(rooms.isEmpty())
+		{
+			return;
+		}
+
+		long start = System.nanoTime();
+		long ticket = 0;
+		synchronized(this)
+		{
+			for(int i=0; i < rooms.size(); i++)
+			{
+				encode(operation, rooms.get(i), null);
+				ticket = writer.submit(entry);
+				entries++;
+			}
+			if(entries >= COMPACT_AFTER_ENTRIES && compaction == null)
+			{
+				compact();
+			}
+		}
+		writer.await(ticket, start);
+	}
+
+	// Method to save every room to the snapshot file and empty the journal, waiting
+	// for any running compaction to finish first. Used when the program exits.
+	public synchronized void checkpoint() throws IOException
+	{
+		awaitCompaction();
+		writer.flush();
+		RoomSnapshot.save(registry.toArray(), snapshotFile);
+		channel.truncate(HEADER_SIZE);
+		channel.force(true);
+		entries = 0;
+	}
+
+	// Method to close the journal file, waiting for any running compaction to finish.
+	public synchronized void close() throws IOException
+	{
+		awaitCompaction();
+		writer.close();
+		channel.close();
+	}
+
+	// Accessor method for the number of entries in the current journal file.
+	public synchronized int getEntries()
+	{
+		return entries;
+	}
+
+	// Accessor method for the time appends waited for their entry to be committed.
+	public LatencyHistogram getCommitLatencies()
+	{
+		return writer.getCommitLatencies();
+	}
+
+	// Accessor method for the number of times the journal has been forced to storage.
+	public long getBatchesWritten()
+	{
+		return writer.getBatchesWritten();
+	}
+
+	// Method to set the current journal aside, start a new one, and save a new
+	// snapshot in the background.
+	private void compact() throws IOException
+	{
+		writer.flush();
+		channel.close();
+		Files.move(journalFile, oldJournalFile, StandardCopyOption.ATOMIC_MOVE);
+		channel = openForAppend(journalFile);
+		writer.setChannel(channel);
+		entries = 0;
+
+		final Room[] rooms = registry.toArray();
+		compaction = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					RoomSnapshot.save(rooms, snapshotFile);
+					Files.delete(oldJournalFile);
+				}
+
+				// The old journal is kept if the snapshot could not be saved, and
+				// will be replayed and compacted the next time the journal is opened.
+				catch(IOException e)
+				{
+					System.err.println("Booking journal compaction failed: " + e);
+				}
+				finally
+				{
+					compactionFinished();
+				}
+			}
+		}, "journal-compaction");
+		compaction.setDaemon(true);
+		compaction.start();
+	}
+
+	// Called by the compaction thread once it has finished.
+	private synchronized void compactionFinished()
+	{
+		compaction = null;
+		notifyAll();
+	}
+
+	// Method to wait until no compaction is running.
+	private void awaitCompaction() throws IOException
+	{
+		while(compaction != null)
+		{
+			try
+			{
+				wait();
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted waiting for journal compaction");
+			}
+		}
+	}
+
+	// Method to encode an entry into the entry buffer, ready to be written. The
+	// entry holds the reservation if one is given, or the room's details otherwise.
+	private void encode(byte operation, Room room, Reservation reservation) throws IOException
+	{
+		entry.clear();
+		entry.put(OPERATION, operation);
+		entry.position(RECORD);
+		if(reservation != null)
+		{
+			RoomSnapshot.writeReservationRecord(room, reservation, entry);
+		}
+		else
+		{
+			RoomSnapshot.writeRecord(room, entry);
+		}
+
+		entry.position(RECORD);
+		checksum.reset();
+		checksum.update(entry);
+		entry.putInt(CHECKSUM, (int) checksum.getValue());
+		entry.clear();
+	}
+
+	// Method to replay every complete entry of a journal file over the rooms in
+	// the registry, returning the number of entries replayed. An entry torn by a
+	// crash part way through a write ends the replay, and is cut from the file.
+	// Only the last entry can be torn, so a damaged entry with more after it
+	// throws an IOException and the file is left as it is.
+	private int replay(Path file) throws IOException
+	{
+		if(!Files.exists(file))
+		{
+			return 0;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(ENTRY_SIZE * ENTRIES_PER_BUFFER);
+		byte[] text = new byte[64];
+		int replayed = 0;
+		FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			// Check the header, an empty or partly written header holds no entries.
+			buffer.limit(HEADER_SIZE);
+			if(read(in, buffer) < HEADER_SIZE)
+			{
+				return 0;
+			}
+			buffer.flip();
+			if(buffer.getInt() != MAGIC || buffer.getShort() != VERSION || buffer.getShort() != ENTRY_SIZE)
+			{
+				throw new IOException(file + " is not a booking journal");
+			}
+
+			long goodLength = HEADER_SIZE;
+			boolean torn = false;
+			int length;
+			do
+			{
+				buffer.clear();
+				length = read(in, buffer);
+				buffer.flip();
+				while(!torn && buffer.remaining() >= ENTRY_SIZE)
+				{
+					int base = buffer.position();
+
+					// Check the record against its checksum.
+					buffer.position(base + RECORD);
+					buffer.limit(base + ENTRY_SIZE);
+					checksum.reset();
+					checksum.update(buffer);
+					buffer.limit(length);
+					buffer.position(base + RECORD);
+					if((int) checksum.getValue() != buffer.getInt(base + CHECKSUM))
+					{
+						if(goodLength + ENTRY_SIZE < in.size())
+						{
+							throw new IOException(file + " is damaged at entry " + replayed);
+						}
+						torn = true;
+					}
+
+					// Apply the record to the room it belongs to, skipping rooms that no
+					// longer exist.
+					else
+					{
+						Room room = registry.find(RoomSnapshot.readRoomId(buffer, text));
+						byte operation = buffer.get(base + OPERATION);
+						if(room != null && (operation == RESERVE || operation == UNRESERVE))
+						{
+							RoomSnapshot.applyReservationRecord(buffer, room, operation == RESERVE);
+						}
+						else if(room != null)
+						{
+							RoomSnapshot.applyRecord(buffer, room);
+						}
+						buffer.position(base + ENTRY_SIZE);
+						goodLength += ENTRY_SIZE;
+						replayed++;
+					}
+				}
+
+				// A partial entry at the end of the file was torn by a crash.
+				if(buffer.hasRemaining())
+				{
+					torn = true;
+				}
+			}
+			while(!torn && length == buffer.capacity());
+
+			if(torn)
+			{
+				in.truncate(goodLength);
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		return replayed;
+	}
+
+	// Method to fill a buffer from a channel, returning the number of bytes read.
+	private static int read(FileChannel in, ByteBuffer buffer) throws IOException
+	{
+		int total = 0;
+		while(buffer.hasRemaining())
+		{
+			int count = in.read(buffer);
+			if(count < 0)
+			{
+				break;
+			}
+			total += count;
+		}
+		return total;
+	}
+
+	// Method to open a journal file for appending, writing the header if the file
+	// is new.
+	private static FileChannel openForAppend(Path file) throws IOException
+	{
+		FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+		if(out.size() < HEADER_SIZE)
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.putShort(VERSION);
+			header.putShort((short) ENTRY_SIZE);
+			header.putLong(0L);
+			header.flip();
+			out.truncate(0);
+			while(header.hasRemaining())
+			{
+				out.write(header, header.position());
+			}
+			out.force(true);
+		}
+		out.position(out.size());
+		return out;
+	}
+}
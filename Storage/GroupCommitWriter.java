@@ -0,0 +1,274 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Storage/GroupCommitWriter.java
+// Description:
+// 	This class, GroupCommitWriter, writes fixed size entries to a file and
+// 	forces them to stable storage in batches. Callers submit an entry and
+// 	then wait for it to be committed. A background thread collects entries
+// 	until the batch is full or the oldest entry has waited long enough,
+// 	writes them all, and calls FileChannel.force once for the whole batch.
+// 	While one batch is being forced the next one is filled.
+//
+package Storage;
+
+import utilities.LatencyHistogram;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class GroupCommitWriter
+{
+
+	// Class wide variables.
+	private final int maxBatchSize;
+	private final long maxWaitNanos;
+	private final LatencyHistogram commitLatencies = new LatencyHistogram();
+	private final Thread writer;
+	private FileChannel channel;
+	private ByteBuffer filling;
+	private ByteBuffer writing;
+	private int entriesInBatch;
+	private long batchStartNanos;
+	private long submittedBatch = 1;
+	private long committedBatch;
+	private volatile long batchesWritten;
+	private IOException failure;
+	private boolean closed;
+
+	// Constructor, starts the writer thread. Batches hold up to maxBatchSize entries
+	// of entrySize bytes, and a batch is written no later than maxWaitMicros after
+	// its first entry was submitted.
+	public GroupCommitWriter(FileChannel channel, int entrySize, int maxBatchSize, long maxWaitMicros)
+	{
+		if(maxBatchSize < 1 || maxWaitMicros < 0)
+		{
+			throw new IllegalArgumentException("Batch size must be at least 1 and the wait cannot be negative");
+		}
+		this.channel = channel;
+		this.maxBatchSize = maxBatchSize;
+		this.maxWaitNanos = maxWaitMicros * 1000L;
+		filling = ByteBuffer.allocateDirect(entrySize * maxBatchSize);
+		writing = ByteBuffer.allocateDirect(entrySize * maxBatchSize);
+
+		writer = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				writeBatches();
+			}
+		}, "group-commit-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	// Method to write an entry and wait until it is on stable storage.
+	public void commit(ByteBuffer entry) throws IOException
+	{
+		long start = System.nanoTime();
+		await(submit(entry), start);
+	}
+
+	// Method to add an entry to the next batch without waiting for it to be
+	// committed, returning the ticket to pass to await(). The entry's remaining
+	// bytes are copied, so the buffer can be reused straight away.
+	public synchronized long submit(ByteBuffer entry) throws IOException
+	{
+		checkOpen();
+
+		// Wait for the writer to take the current batch if it is full.
+		while(entriesInBatch == maxBatchSize || filling.remaining() < entry.remaining())
+		{
+			waitForWriter();
+			checkOpen();
+		}
+
+		if(entriesInBatch == 0)
+		{
+			batchStartNanos = System.nanoTime();
+		}
+		filling.put(entry);
+		entriesInBatch++;
+		notifyAll();
+		return submittedBatch;
+	}
+
+	// Method to wait until the batch holding a submitted entry has been committed.
+	public synchronized void await(long ticket) throws IOException
+	{
+		while(committedBatch < ticket)
+		{
+			if(failure != null)
+			{
+				throw new IOException("Journal write failed", failure);
+			}
+			waitForWriter();
+		}
+	}
+
+	// Method to wait until the batch holding a submitted entry has been committed,
+	// recording the commit latency measured from the given System.nanoTime().
+	public void await(long ticket, long startNanos) throws IOException
+	{
+		await(ticket);
+		commitLatencies.record(System.nanoTime() - startNanos);
+	}
+
+	// Method to wait until every entry submitted so far has been committed.
+	public synchronized void flush() throws IOException
+	{
+		if(entriesInBatch > 0)
+		{
+			await(submittedBatch);
+		}
+		else
+		{
+			await(submittedBatch - 1);
+		}
+	}
+
+	// Method to direct future batches to a different file. Entries submitted
+	// before this call are committed to the old file first.
+	public synchronized void setChannel(FileChannel channel) throws IOException
+	{
+		flush();
+		this.channel = channel;
+	}
+
+	// Method to commit any waiting entries and stop the writer thread. The file
+	// itself is left open.
+	public void close() throws IOException
+	{
+		synchronized(this)
+		{
+			flush();
+			closed = true;
+			notifyAll();
+		}
+		try
+		{
+			writer.join();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Accessor method for the time callers waited, from submitting an entry until
+	// it was on stable storage.
+	public LatencyHistogram getCommitLatencies()
+	{
+		return commitLatencies;
+	}
+
+	// Accessor method for the number of batches forced to storage. Dividing the
+	// number of commits by this gives the average batch size.
+	public long getBatchesWritten()
+	{
+		return batchesWritten;
+	}
+
+	// The writer thread's loop: take each batch once it is ready, write it, force
+	// it to storage and wake the callers waiting on it.
+	private void writeBatches()
+	{
+		while(true)
+		{
+			FileChannel target;
+			long batch;
+			synchronized(this)
+			{
+				try
+				{
+					// Wait for the first entry, then for the batch to fill or time out.
+					while(entriesInBatch == 0 && !closed)
+					{
+						wait();
+					}
+					if(entriesInBatch == 0)
+					{
+						return;
+					}
+					long remaining;
+					while(entriesInBatch < maxBatchSize && !closed && (remaining = maxWaitNanos - (System.nanoTime() - batchStartNanos)) > 0)
+					{
+						wait(remaining / 1000000L, (int) (remaining % 1000000L));
+					}
+				}
+				catch(InterruptedException e)
+				{
+					failure = new InterruptedIOException("Group commit writer interrupted");
+					notifyAll();
+					return;
+				}
+
+				// Swap buffers so callers can fill the next batch during the write.
+				ByteBuffer full = filling;
+				filling = writing;
+				writing = full;
+				entriesInBatch = 0;
+				batch = submittedBatch++;
+				target = channel;
+				notifyAll();
+			}
+
+			try
+			{
+				writing.flip();
+				while(writing.hasRemaining())
+				{
+					target.write(writing);
+				}
+				target.force(false);
+				writing.clear();
+				batchesWritten++;
+				synchronized(this)
+				{
+					committedBatch = batch;
+					notifyAll();
+				}
+			}
+
+			// A failed write leaves the file in an unknown state, so every waiting and
+			// future caller is told about it.
+			catch(IOException e)
+			{
+				synchronized(this)
+				{
+					failure = e;
+					notifyAll();
+				}
+				return;
+			}
+		}
+	}
+
+	// Method to throw if the writer has failed or been closed.
+	private void checkOpen() throws IOException
+	{
+		if(failure != null)
+		{
+			throw new IOException("Journal write failed", failure);
+		}
+		if(closed)
+		{
+			throw new IOException("Group commit writer is closed");
+		}
+	}
+
+	// Method to wait for the writer thread to make progress.
+	private void waitForWriter() throws IOException
+	{
+		try
+		{
+			wait();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for journal commit");
+		}
+	}
+}
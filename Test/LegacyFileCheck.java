@@ -0,0 +1,74 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: Test/LegacyFileCheck.java
+// Description:
+// 	This class, LegacyFileCheck, is a stand-alone program that checks rooms
+// 	saved with Java serialisation, as older versions of the program did, are
+// 	loaded with their bookings in the calendar. It saves a room booked for
+// 	five nights in the old format, reads it back the way Menu.loadRooms()
+// 	does, and checks that:
+// 		- another customer cannot reserve nights during the stay, and
+// 		- once the room is checked out and cleaned, those nights can be
+// 		  reserved by exactly one customer.
+// 	The file is written to a temporary file, so rooms.dat is not touched.
+//
+// 	Usage: java Test.LegacyFileCheck
+//
+package Test;
+
+import Room.Room;
+import Room.Reservation;
+import utilities.EpochDays;
+import java.io.*;
+
+public class LegacyFileCheck
+{
+
+	// Program starts here:
+	public static void main(String[] args) throws Exception
+	{
+		Room[] saved = {new Room("GARDEN0001", "North West Garden View", 45.00)};
+		saved[0].bookRoom("c0000001", 5);
+
+		// Save and load the rooms with Java serialisation, as older versions did.
+		File file = File.createTempFile("legacy-rooms", ".dat");
+		file.deleteOnExit();
+		ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+		out.writeObject(saved);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new FileInputStream(file));
+		Room room = ((Room[]) in.readObject())[0];
+		in.close();
+
+		long tomorrow = EpochDays.today() + 1;
+		boolean failed = false;
+		if(room.getStatus() != 'B' || !"c0000001".equals(room.getCustomerId()))
+		{
+			System.out.println("FAILED: the booking was not loaded");
+			failed = true;
+		}
+		if(room.isFree(tomorrow, 2) || room.reserve("c0000002", tomorrow, 2) != null)
+		{
+			System.out.println("FAILED: nights during the loaded stay could be reserved by another customer");
+			failed = true;
+		}
+
+		// Once the stay has ended, the nights are free for one customer only.
+		room.checkout();
+		room.cleanRoom();
+		Reservation reservation = room.reserve("c0000003", tomorrow, 2);
+		if(reservation == null || room.getReservations().size() != 1 || room.reserve("c0000004", tomorrow, 2) != null)
+		{
+			System.out.println("FAILED: the nights after checkout were not held by exactly one customer");
+			failed = true;
+		}
+
+		if(failed)
+		{
+			System.exit(1);
+		}
+		System.out.println("Legacy rooms file loaded with its booking in the calendar");
+	}
+}
@@ -7,11 +7,17 @@
 // 	This class, Test, is the driver class of the application - which would
 // 	be replace if this code were ever used in a production environment.
 //
+// 	Usage:
+// 		java Test.Test				run the console menus
+// 		java Test.Test --script [file]		run commands from a file (or standard
+// 							input) without the menus, see ScriptRunner
+//
 package Test;
 
 import Room.Room;
 import Room.PremiumRoom;
 import Menu.Menu;
+import Menu.ScriptRunner;
 import utilities.ScreenManager;
 import java.io.*;
 
@@ -21,17 +27,37 @@ public class Test
 	public static void main(String[] args)
 	{
 
+		// Run a script instead of the menus if asked to.
+		if(args.length > 0 && args[0].equals("--script"))
+		{
+			System.exit(runScript(args.length > 1 ? args[1] : "-"));
+		}
+
 		// Menu class can throw a number of exceptions, so they are being caught here.
 		// See below for more information.
 		try
 		{
 
-			// When calling the static method runMainMenu() in the Menu class, without
-			// any parameters, all room and booking information is fetched from a file
-			// called rooms.dat located within the project directory.
-			// This method will then enter into the menu methods until a user completes
-			// a function (i.e. books a room).
-			Room rooms[] = Menu.runMainMenu();
+			// All room and booking information is fetched from a file called rooms.dat
+			// located within the project directory.
+			Room rooms[];
+			try
+			{
+				rooms = Menu.loadRooms();
+			}
+
+			// This exception is caught when the rooms.dat file does not exist, in this
+			// situation, the software will assume that the program has never been run
+			// before, and will create a set of default rooms and associated values.
+			catch(IOException e)
+			{
+				ScreenManager.clear();
+				ScreenManager.printProgramTitle();
+				ScreenManager.printHeader("Program Setup");
+				ScreenManager.printNotice("A saved rooms file has not been found, starting program with default values");
+				ScreenManager.pause();
+				rooms = createDefaultRooms();
+			}
 
 			// This infinite loop ensures that after each completed function, the main
 			// menu will be re-displayed after a user completes a function.
@@ -39,33 +65,16 @@ public class Test
 			// information being re-loaded from the rooms.dat file.
 			while(1==1)
 			{
-				Menu.runMainMenu(rooms);
+				rooms = Menu.runMainMenu(rooms);
 			}
 		}
-		// This exception is caught when the rooms.dat file does not exist, in this situation,
-		// the software will assume that the program has never been run before, and will create
-		// a set of default rooms and associated values.
-		catch(IOException e)
+		// This exception is caught when the input ends part way through a menu, for example
+		// when piped input runs out. Changes already made have been saved to the booking
+		// journal, and will be restored the next time the program starts.
+		catch(java.util.NoSuchElementException e)
 		{
-			ScreenManager.clear();
-			ScreenManager.printProgramTitle();
-			ScreenManager.printHeader("Program Setup");
-			ScreenManager.printNotice("A saved rooms file has not been found, starting program with default values");
-			ScreenManager.pause();
-			Room newRooms[] = new Room[8];
-			newRooms[0] = new Room("GARDEN0001", "North West Garden View", 45.00);
-			newRooms[1] = new Room("GARDEN0002", "South East Garden View", 65.00);
-			newRooms[2] = new Room("GARDEN0003", "North Garden View", 35.00);
-			newRooms[3] = new Room("GARDEN0004", "South Garden View", 52.00);
-			newRooms[4] = new Room("GARDEN0005", "West Garden View", 35.00);
-			newRooms[5] = new Room("GARDEN0007", "East Garden View", 35.00);
-			newRooms[6] = new PremiumRoom("POOL000001", "North Side Facing Pool", 90.00, 1, 150.00);
-			newRooms[7] = new PremiumRoom("POOL000002", "South Side Facing Pool", 125.00, 2, 100.00);
-			while(1 == 1)
-			{
-				newRooms = Menu.runMainMenu(newRooms);
-			}
-
+			ScreenManager.printWarning("Input ended before the menu was complete");
+			System.exit(1);
 		}
 		// This exception is caught when one of the class files is missing. This error is thrown
 		// because the classes Room and PremiumRoom are stored as serialized objects in the
@@ -77,9 +86,68 @@ public class Test
 			ScreenManager.printProgramTitle();
 			ScreenManager.printHeader("Error");
 			ScreenManager.printWarning("A file is missing from your installation of Home Booking, please see below:");
-			System.out.println(e);
+			ScreenManager.println(e.toString());
 			ScreenManager.pause();
 		}
 		
 	}
+
+	// Method to run commands from a script file ("-" for standard input), saving
+	// the rooms afterwards. Returns 0 if every command succeeded, or 1 otherwise.
+	private static int runScript(String fileName)
+	{
+		try
+		{
+
+			// Load the rooms as the menus would, using the default rooms when there is
+			// no saved rooms file yet.
+			Room rooms[];
+			try
+			{
+				rooms = Menu.loadRooms();
+			}
+			catch(FileNotFoundException e)
+			{
+				rooms = createDefaultRooms();
+			}
+			catch(java.nio.file.NoSuchFileException e)
+			{
+				rooms = createDefaultRooms();
+			}
+
+			Reader reader = fileName.equals("-") ? new InputStreamReader(System.in) : new FileReader(fileName);
+			BufferedReader in = new BufferedReader(reader);
+			int failures = ScriptRunner.run(rooms, in, System.out);
+			in.close();
+
+			Menu.saveRooms(rooms);
+			return failures == 0 ? 0 : 1;
+		}
+		catch(IOException e)
+		{
+			System.err.println("ERR	0	script	" + e);
+			return 1;
+		}
+		catch(ClassNotFoundException e)
+		{
+			System.err.println("ERR	0	script	" + e);
+			return 1;
+		}
+	}
+
+	// Method to create the set of default rooms used when the program is run for
+	// the first time.
+	private static Room[] createDefaultRooms()
+	{
+		Room newRooms[] = new Room[8];
+		newRooms[0] = new Room("GARDEN0001", "North West Garden View", 45.00);
+		newRooms[1] = new Room("GARDEN0002", "South East Garden View", 65.00);
+		newRooms[2] = new Room("GARDEN0003", "North Garden View", 35.00);
+		newRooms[3] = new Room("GARDEN0004", "South Garden View", 52.00);
+		newRooms[4] = new Room("GARDEN0005", "West Garden View", 35.00);
+		newRooms[5] = new Room("GARDEN0007", "East Garden View", 35.00);
+		newRooms[6] = new PremiumRoom("POOL000001", "North Side Facing Pool", 90.00, 1, 150.00);
+		newRooms[7] = new PremiumRoom("POOL000002", "South Side Facing Pool", 125.00, 2, 100.00);
+		return newRooms;
+	}
 }
@@ -0,0 +1,51 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: utilities/Clock.java
+// Description:
+// 	This class, Clock, is the source of the current time for everything
+// 	that depends on it - booking dates, the number of nights charged at
+// 	checkout and premium room discounts. The program normally uses the
+// 	system clock, but a VirtualClock can be installed instead, so that
+// 	simulations and tests can move time forward by days in an instant and
+// 	get the same results on every run.
+//
+package utilities;
+
+public abstract class Clock
+{
+
+	// The clock that reads the system time.
+	public static final Clock SYSTEM = new Clock()
+	{
+		public long millis()
+		{
+			return System.currentTimeMillis();
+		}
+	};
+
+	// The clock in use by the program.
+	private static volatile Clock current = SYSTEM;
+
+	// Method to read the time from this clock, in epoch milliseconds.
+	public abstract long millis();
+
+	// Method to read the time from the clock in use, in epoch milliseconds.
+	public static long now()
+	{
+		return current.millis();
+	}
+
+	// Accessor method for the clock in use.
+	public static Clock get()
+	{
+		return current;
+	}
+
+	// Mutator method for the clock in use. Passing null restores the system clock.
+	public static void set(Clock clock)
+	{
+		current = clock == null ? SYSTEM : clock;
+	}
+}
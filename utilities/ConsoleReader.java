@@ -0,0 +1,356 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: utilities/ConsoleReader.java
+// Description:
+// 	This class, ConsoleReader, reads tokens, numbers and lines from an input
+// 	stream (usually the keyboard) through a single byte buffer. One reader is
+// 	shared by every prompt, so no typed or piped input is lost between
+// 	prompts, and numbers are parsed straight from the buffer without regular
+// 	expressions or temporary strings.
+//
+// 	Like Scanner, a token is a run of non-whitespace characters, and nextInt()
+// 	and nextDouble() throw InputMismatchException if the next token is not a
+// 	number - unlike Scanner, the bad token is skipped so the prompt can simply
+// 	be asked again. NoSuchElementException is thrown when the input ends.
+//
+package utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+public class ConsoleReader
+{
+
+	// Powers of ten that are exact as doubles, used to parse decimals.
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	// Class wide variables.
+	private final InputStream in;
+	private byte[] buffer;
+	private int position;
+	private int limit;
+	private boolean endOfInput;
+
+	// Set after a token is read, until the end of its line is reached. The next
+	// line read starts on the following line, so a prompt reading a line is not
+	// answered by what was left over from a prompt reading a token.
+	private boolean midLine;
+
+	// The start and end (exclusive) of the last token found in the buffer.
+	private int tokenStart;
+	private int tokenEnd;
+
+	// Constructors.
+	public ConsoleReader(InputStream in)
+	{
+		this(in, 8192);
+	}
+
+	public ConsoleReader(InputStream in, int bufferSize)
+	{
+		this.in = in;
+		this.buffer = new byte[bufferSize];
+	}
+
+	// Method to read the next token as a string.
+	public String next()
+	{
+		findToken();
+		return text(tokenStart, tokenEnd);
+	}
+
+	// Method to read the next token as an int.
+	public int nextInt()
+	{
+		findToken();
+		int i = tokenStart;
+		boolean negative = false;
+		if(buffer[i] == '-' || buffer[i] == '+')
+		{
+			negative = buffer[i] == '-';
+			i++;
+		}
+		if(i == tokenEnd)
+		{
+			throw mismatch();
+		}
+
+		// Accumulate as a negative number, which has the larger range.
+		int value = 0;
+		for(; i < tokenEnd; i++)
+		{
+			int digit = buffer[i] - '0';
+			if(digit < 0 || digit > 9 || value < (Integer.MIN_VALUE + digit) / 10)
+			{
+				throw mismatch();
+			}
+			value = value * 10 - digit;
+		}
+		if(!negative)
+		{
+			if(value == Integer.MIN_VALUE)
+			{
+				throw mismatch();
+			}
+			value = -value;
+		}
+		return value;
+	}
+
+	// Method to read the next token as a double. Plain decimals, such as "12.50",
+	// are parsed directly from the buffer, with the same result Double.parseDouble
+	// gives. Anything else (exponents, very long numbers) is passed to
+	// Double.parseDouble.
+	public double nextDouble()
+	{
+		findToken();
+		int i = tokenStart;
+		boolean negative = false;
+		if(buffer[i] == '-' || buffer[i] == '+')
+		{
+			negative = buffer[i] == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int decimals = -1;
+		boolean simple = i < tokenEnd;
+		for(; i < tokenEnd && simple; i++)
+		{
+			byte b = buffer[i];
+			if(b >= '0' && b <= '9')
+			{
+				mantissa = mantissa * 10 + (b - '0');
+				digits++;
+				if(decimals >= 0)
+				{
+					decimals++;
+				}
+			}
+			else if(b == '.' && decimals < 0)
+			{
+				decimals = 0;
+			}
+			else
+			{
+				simple = false;
+			}
+		}
+
+		// A mantissa below 2^53 and a power of ten up to 10^22 are both exact, so a
+		// single division gives the correctly rounded result.
+		if(simple && digits > 0 && digits <= 15 && decimals < POWERS_OF_TEN.length)
+		{
+			double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+			return negative ? -value : value;
+		}
+
+		// Error handeling for tokens that are not numbers.
+		try
+		{
+			return Double.parseDouble(text(tokenStart, tokenEnd));
+		}
+		catch(NumberFormatException e)
+		{
+			throw mismatch();
+		}
+	}
+
+	// Method to read a line. If a token has just been read, the rest of its line
+	// is skipped first, and the following line is returned without its line ending.
+	public String nextLine()
+	{
+		if(midLine)
+		{
+			skipLine();
+		}
+		if(!fill())
+		{
+			throw new NoSuchElementException("End of input");
+		}
+
+		// Find the end of the line, reading more input if it runs past the buffer.
+		int end = position;
+		while(true)
+		{
+			while(end < limit && buffer[end] != '\n')
+			{
+				end++;
+			}
+			if(end < limit)
+			{
+				break;
+			}
+			int shift = position;
+			boolean more = readMore();
+			end -= shift;
+			if(!more)
+			{
+				break;
+			}
+		}
+
+		int next = end < limit ? end + 1 : end;
+		if(end > position && buffer[end - 1] == '\r')
+		{
+			end--;
+		}
+		String line = text(position, end);
+		position = next;
+		return line;
+	}
+
+	// Method to skip the rest of the current line.
+	public void skipLine()
+	{
+		midLine = false;
+		while(fill())
+		{
+			while(position < limit)
+			{
+				if(buffer[position++] == '\n')
+				{
+					return;
+				}
+			}
+		}
+	}
+
+	// Method to find and skip the next token, leaving tokenStart and tokenEnd
+	// around it.
+	private void findToken()
+	{
+		while(true)
+		{
+			if(!fill())
+			{
+				throw new NoSuchElementException("End of input");
+			}
+			while(position < limit && isWhitespace(buffer[position]))
+			{
+				if(buffer[position] == '\n')
+				{
+					midLine = false;
+				}
+				position++;
+			}
+			if(position < limit)
+			{
+				break;
+			}
+		}
+
+		// Find the end of the token, reading more input if it runs past the buffer.
+		int end = position;
+		while(true)
+		{
+			while(end < limit && !isWhitespace(buffer[end]))
+			{
+				end++;
+			}
+			if(end < limit)
+			{
+				break;
+			}
+			int shift = position;
+			boolean more = readMore();
+			end -= shift;
+			if(!more)
+			{
+				break;
+			}
+		}
+		tokenStart = position;
+		tokenEnd = end;
+		position = end;
+		midLine = true;
+	}
+
+	// Method to make sure there is unread input in the buffer, returning false at
+	// the end of the input.
+	private boolean fill()
+	{
+		if(position < limit)
+		{
+			return true;
+		}
+		position = 0;
+		limit = 0;
+		return read();
+	}
+
+	// Method to read more input while keeping the unread bytes, which are moved to
+	// the front of the buffer (growing it if it is full of a single long line or
+	// token). Returns false if there is no more input.
+	private boolean readMore()
+	{
+		if(position > 0)
+		{
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			limit -= position;
+			position = 0;
+		}
+		if(limit == buffer.length)
+		{
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		return read();
+	}
+
+	// Method to read more input into the buffer after the current limit, returning
+	// false if there is no more input.
+	private boolean read()
+	{
+		if(endOfInput)
+		{
+			return false;
+		}
+
+		// Error handeling for reading from the input stream.
+		try
+		{
+			int count = in.read(buffer, limit, buffer.length - limit);
+			if(count < 0)
+			{
+				endOfInput = true;
+				return false;
+			}
+			limit += count;
+			return true;
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Method to build the exception for a token that is not the expected type. The
+	// token has already been skipped.
+	private InputMismatchException mismatch()
+	{
+		return new InputMismatchException("For input string: \"" + text(tokenStart, tokenEnd) + "\"");
+	}
+
+	// Method to decode part of the buffer as text.
+	private String text(int start, int end)
+	{
+		return new String(buffer, start, end - start, Charset.defaultCharset());
+	}
+
+	// Method to determine if a byte is whitespace.
+	private static boolean isWhitespace(byte b)
+	{
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+	}
+}
@@ -6,6 +6,8 @@
 // Description:
 // 	Very simple class that extends the DateTime class, but allows it to
 // 	implement Serializable so that it may be saved to a serialised file.
+// 	Rooms no longer use it, but it is kept so that rooms.dat files saved by
+// 	older versions of the program can still be read.
 //
 package utilities;
 
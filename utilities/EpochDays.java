@@ -0,0 +1,140 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: utilities/EpochDays.java
+// Description:
+// 	This class, EpochDays, is designed to be statically called to work with
+// 	booking times held as plain epoch milliseconds (longs), in place of
+// 	DateTime objects. It converts times to local epoch days (days since
+// 	1 January 1970), counts the days between two times, and formats and
+// 	parses dates for display and entry. Formatting uses one shared,
+// 	thread-safe formatter, and the formatted text for recently used days is
+// 	cached, so showing a date does not normally create any objects.
+//
+package utilities;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.TimeZone;
+
+public final class EpochDays
+{
+
+	// One day in milliseconds.
+	public static final long MILLIS_PER_DAY = 24L * 60L * 60L * 1000L;
+
+	// The formats dates are shown in - the same as DateTime.getFormattedDate() and
+	// DateTime.toString() respectively.
+	private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+	private static final DateTimeFormatter ISO_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
+
+	// The format dates are entered in, which rejects dates such as 31/02/2018.
+	private static final DateTimeFormatter ENTRY_FORMAT = DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT);
+
+	// Returned by parseDay() when the text is not a date.
+	public static final long NO_DAY = Long.MIN_VALUE;
+
+	// The time zone that dates are shown in.
+	private static final TimeZone ZONE = TimeZone.getDefault();
+
+	// Cache of formatted days, indexed by epoch day. Entries are immutable, so a
+	// thread that sees an entry always sees it complete, and a thread that misses
+	// simply formats the day again.
+	private static final int CACHE_SIZE = 1024;
+	private static final FormattedDay[] cache = new FormattedDay[CACHE_SIZE];
+
+	// This class is not meant to be instantiated.
+	private EpochDays()
+	{
+	}
+
+	// Method to convert a time to the local epoch day it falls on.
+	public static long toEpochDay(long millis)
+	{
+		return Math.floorDiv(millis + ZONE.getOffset(millis), MILLIS_PER_DAY);
+	}
+
+	// Method to fetch the local epoch day it is now, according to the Clock.
+	public static long today()
+	{
+		return toEpochDay(Clock.now());
+	}
+
+	// Method to count the whole days (24 hour periods) from one time to another,
+	// the same way DateTime.diffDays() does.
+	public static int daysBetween(long startMillis, long endMillis)
+	{
+		return (int) ((endMillis - startMillis) / MILLIS_PER_DAY);
+	}
+
+	// Method to format a time as a date, such as 25/12/2017.
+	public static String format(long millis)
+	{
+		return lookup(toEpochDay(millis)).display;
+	}
+
+	// Method to format a time as an ISO date, such as 2017-12-25.
+	public static String formatIso(long millis)
+	{
+		return lookup(toEpochDay(millis)).iso;
+	}
+
+	// Method to format an epoch day as a date, such as 25/12/2017.
+	public static String formatDay(long epochDay)
+	{
+		return lookup(epochDay).display;
+	}
+
+	// Method to format an epoch day as an ISO date, such as 2017-12-25.
+	public static String formatIsoDay(long epochDay)
+	{
+		return lookup(epochDay).iso;
+	}
+
+	// Method to convert a date entered as 25/12/2017 or 2017-12-25 to an epoch day,
+	// returning NO_DAY if it is not a valid date.
+	public static long parseDay(String text)
+	{
+		try
+		{
+			return LocalDate.parse(text, text.indexOf('/') != -1 ? ENTRY_FORMAT : ISO_FORMAT).toEpochDay();
+		}
+		catch(DateTimeParseException e)
+		{
+			return NO_DAY;
+		}
+	}
+
+	// Method to fetch the formatted text for an epoch day, from the cache if it
+	// is there.
+	private static FormattedDay lookup(long epochDay)
+	{
+		int index = (int) Math.floorMod(epochDay, (long) CACHE_SIZE);
+		FormattedDay day = cache[index];
+		if(day == null || day.epochDay != epochDay)
+		{
+			day = new FormattedDay(epochDay);
+			cache[index] = day;
+		}
+		return day;
+	}
+
+	// The formatted text for one epoch day.
+	private static final class FormattedDay
+	{
+		private final long epochDay;
+		private final String display;
+		private final String iso;
+
+		private FormattedDay(long epochDay)
+		{
+			LocalDate date = LocalDate.ofEpochDay(epochDay);
+			this.epochDay = epochDay;
+			this.display = DISPLAY_FORMAT.format(date);
+			this.iso = ISO_FORMAT.format(date);
+		}
+	}
+}
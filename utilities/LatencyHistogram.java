@@ -0,0 +1,129 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: utilities/LatencyHistogram.java
+// Description:
+// 	This class, LatencyHistogram, counts how long operations take using one
+// 	bucket per power of two nanoseconds. Recording a latency is a couple of
+// 	atomic increments, so it can be called from any thread without locking
+// 	and without creating objects.
+//
+package utilities;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram
+{
+
+	// One bucket for each possible bit length of a latency in nanoseconds.
+	private static final int BUCKETS = 64;
+
+	// Class wide variables.
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	// Method to record one latency, in nanoseconds.
+	public void record(long nanos)
+	{
+		if(nanos < 0)
+		{
+			nanos = 0;
+		}
+		buckets.incrementAndGet(bucket(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+
+		long currentMax;
+		while(nanos > (currentMax = max.get()))
+		{
+			if(max.compareAndSet(currentMax, nanos))
+			{
+				break;
+			}
+		}
+	}
+
+	// Accessor method for the number of latencies recorded.
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	// Accessor method for the mean latency, in nanoseconds.
+	public long getMean()
+	{
+		long recorded = count.get();
+		if(recorded == 0)
+		{
+			return 0;
+		}
+		return total.get() / recorded;
+	}
+
+	// Accessor method for the largest latency, in nanoseconds.
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	// Method to estimate a percentile (between 0 and 100) of the recorded latencies.
+	// The result is the upper bound of the bucket the percentile falls in, so it
+	// is at most twice the true value.
+	public long getPercentile(double percentile)
+	{
+		long recorded = count.get();
+		if(recorded == 0)
+		{
+			return 0;
+		}
+		long rank = (long) Math.ceil(recorded * percentile / 100.0);
+		long seen = 0;
+		for(int i=0; i < BUCKETS; i++)
+		{
+			seen += buckets.get(i);
+			if(seen >= rank)
+			{
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	// Method to clear every recorded latency.
+	public void reset()
+	{
+		for(int i=0; i < BUCKETS; i++)
+		{
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	// Method to summarise the histogram in microseconds.
+	public String toString()
+	{
+		return String.format("count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus", getCount(), getMean() / 1000.0, getPercentile(50) / 1000.0, getPercentile(90) / 1000.0, getPercentile(99) / 1000.0, getMax() / 1000.0);
+	}
+
+	// Method to find the bucket for a latency, which is its bit length.
+	private static int bucket(long nanos)
+	{
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+	}
+
+	// Method to find the largest latency that falls in a bucket.
+	private static long upperBound(int bucket)
+	{
+		if(bucket >= 63)
+		{
+			return Long.MAX_VALUE;
+		}
+		return (1L << bucket) - 1;
+	}
+}
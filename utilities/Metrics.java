@@ -0,0 +1,68 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: utilities/Metrics.java
+// Description:
+// 	This class, Metrics, is designed to be statically called to keep track
+// 	of every OperationMetrics in the program, and to print them all as a
+// 	table - from the menu, or when the program exits.
+//
+package utilities;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class Metrics
+{
+
+	// Every registered operation, in the order they were registered.
+	private static final List<OperationMetrics> operations = new CopyOnWriteArrayList<OperationMetrics>();
+
+	// Method to create and register the metrics for an operation.
+	public static OperationMetrics register(String name)
+	{
+		OperationMetrics metrics = new OperationMetrics(name);
+		operations.add(metrics);
+		return metrics;
+	}
+
+	// Accessor method for every registered operation.
+	public static List<OperationMetrics> getOperations()
+	{
+		return operations;
+	}
+
+	// Method to clear the counts and latencies of every operation.
+	public static void reset()
+	{
+		for(OperationMetrics metrics : operations)
+		{
+			metrics.reset();
+		}
+	}
+
+	// Method to print every operation as a row in a table, latencies in
+	// microseconds. Operations that have never run are left out.
+	public static void print()
+	{
+		ScreenManager.printf("  %-24s %9s %9s %9s %10s %10s %10s %10s %12s\n", "OPERATION", "OK", "FAILED", "RETRIES", "MEAN US", "P50 US", "P90 US", "P99 US", "MAX US");
+		for(OperationMetrics metrics : operations)
+		{
+			LatencyHistogram latencies = metrics.getLatencies();
+			if(metrics.getSuccesses() + metrics.getFailures() + metrics.getRetries() == 0)
+			{
+				continue;
+			}
+			if(latencies.getCount() == 0)
+			{
+				ScreenManager.printf("  %-24s %9d %9d %9d %10s %10s %10s %10s %12s\n", metrics.getName(), metrics.getSuccesses(), metrics.getFailures(), metrics.getRetries(), "-", "-", "-", "-", "-");
+			}
+			else
+			{
+				ScreenManager.printf("  %-24s %9d %9d %9d %10.1f %10.1f %10.1f %10.1f %12.1f\n", metrics.getName(), metrics.getSuccesses(), metrics.getFailures(), metrics.getRetries(),
+					latencies.getMean() / 1000.0, latencies.getPercentile(50) / 1000.0, latencies.getPercentile(90) / 1000.0, latencies.getPercentile(99) / 1000.0, latencies.getMax() / 1000.0);
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: utilities/OperationMetrics.java
+// Description:
+// 	This class, OperationMetrics, counts how often one kind of operation
+// 	(such as booking a room) succeeds or fails, how often it had to retry
+// 	because another thread got there first, and how long it takes. Counters
+// 	are lock-free and spread across threads, and latencies go into a
+// 	LatencyHistogram, so recording never blocks or creates objects. Create
+// 	instances with Metrics.register() so that they are included in reports.
+//
+package utilities;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class OperationMetrics
+{
+
+	// Class wide variables.
+	private final String name;
+	private final LongAdder successes = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	// Constructor.
+	public OperationMetrics(String name)
+	{
+		this.name = name;
+	}
+
+	// Method to fetch the start time of an operation, to be passed to success() or
+	// failure() when it completes.
+	public static long start()
+	{
+		return System.nanoTime();
+	}
+
+	// Method to record an operation that succeeded, with its latency.
+	public void success(long startNanos)
+	{
+		successes.increment();
+		latencies.record(System.nanoTime() - startNanos);
+	}
+
+	// Method to record an operation that failed, with its latency.
+	public void failure(long startNanos)
+	{
+		failures.increment();
+		latencies.record(System.nanoTime() - startNanos);
+	}
+
+	// Methods to count an operation that succeeded or failed, without timing it.
+	public void success()
+	{
+		successes.increment();
+	}
+
+	public void failure()
+	{
+		failures.increment();
+	}
+
+	// Method to count a retry, for example a lost compare-and-set.
+	public void retry()
+	{
+		retries.increment();
+	}
+
+	// Accessor method for the operation name.
+	public String getName()
+	{
+		return name;
+	}
+
+	// Accessor method for the number of successful operations.
+	public long getSuccesses()
+	{
+		return successes.sum();
+	}
+
+	// Accessor method for the number of failed operations.
+	public long getFailures()
+	{
+		return failures.sum();
+	}
+
+	// Accessor method for the number of retries.
+	public long getRetries()
+	{
+		return retries.sum();
+	}
+
+	// Accessor method for the latencies of timed operations.
+	public LatencyHistogram getLatencies()
+	{
+		return latencies;
+	}
+
+	// Method to clear every count and latency.
+	public void reset()
+	{
+		successes.reset();
+		failures.reset();
+		retries.reset();
+		latencies.reset();
+	}
+
+	// Method to summarise the metrics on one line.
+	public String toString()
+	{
+		return String.format("%s: ok=%d failed=%d retries=%d %s", name, getSuccesses(), getFailures(), getRetries(), latencies);
+	}
+}
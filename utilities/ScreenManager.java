@@ -7,103 +7,118 @@
 // 	This class, ScreenManager, is designed to be statically called to provision
 // 	common screen formatting and output to facilitate the console menu interface.
 //
+// 	Output is not written to the console straight away. Each screen (frame) is
+// 	built up in a reusable buffer and written out in one go when the program
+// 	next waits for the user, or when flush() is called, so slow terminals see
+// 	one write per screen rather than one per character. All screen output must
+// 	go through this class so that it reaches the console in the right order.
+//
 package utilities;
 
-import java.util.Scanner;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.Formatter;
 
 public class ScreenManager
 {
 
 	// Class wide static variables.
 	private static final String PROGRAM_TITLE = "H O M E    T R A V E L    B O O K I N G    S Y S T E M";
-	private static Scanner console = new Scanner(System.in);
+
+	// The one reader used for all keyboard input, so that nothing typed (or piped
+	// in) is lost between prompts.
+	private static final ConsoleReader console = new ConsoleReader(System.in);
+
+	// Width of the screen, in characters, and the padding strings used to build
+	// headers, dividers and table columns. Padding is appended as a slice of these
+	// strings instead of one character at a time.
+	private static final int SCREEN_WIDTH = 126;
+	private static final String SPACES = repeat(' ', SCREEN_WIDTH);
+	private static final String HASHES = repeat('#', SCREEN_WIDTH);
+	private static final String EQUALS = repeat('=', SCREEN_WIDTH);
+
+	// The program title line never changes, so it is built once.
+	private static final String TITLE_LINE = centre(SPACES, PROGRAM_TITLE, 60);
+
+	// The frame being built, and the formatter used to append formatted text to it.
+	// A frame larger than the flush threshold is written out early, so that very
+	// long tables do not have to be held in memory all at once.
+	private static final int FLUSH_THRESHOLD = 64 * 1024;
+	private static final StringBuilder frame = new StringBuilder(FLUSH_THRESHOLD);
+	private static final Formatter formatter = new Formatter(frame);
+
+	// Reusable buffers used to encode a frame into bytes for the console.
+	private static final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+		.onMalformedInput(CodingErrorAction.REPLACE)
+		.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private static ByteBuffer bytes = ByteBuffer.allocate(FLUSH_THRESHOLD * 2);
+
+	// Anything left in the frame is written out when the program exits.
+	static
+	{
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable()
+		{
+			public void run()
+			{
+				flush();
+			}
+		}));
+	}
 
 	// Method to clear the console screen.
 	public static void clear()
 	{
-		System.out.print("\u001b[2J");
-		System.out.flush();
+		frame.append("\u001b[2J");
 	}
 
 	// Method to print the program title centred on screen.
 	public static void printProgramTitle()
 	{
-		int titleLength = PROGRAM_TITLE.length() / 2;
-		for(int i=0; i < (60 - titleLength); i++)
-		{
-			System.out.print(" ");
-		}
-		System.out.print("   ");
-		System.out.printf("%S", PROGRAM_TITLE);
-		System.out.print("   ");
-		for(int i=0; i < (60 - titleLength); i++)
-		{
-			System.out.print(" ");
-		}
-		System.out.println();
-		System.out.println();
+		frame.append(TITLE_LINE);
+		frame.append('\n');
 	}
 
 	// Method to print a title, centred on screen, wrapped with "#" to form
 	// a horizontal divider.
 	public static void printHeader(String title)
 	{
-		int titleLength = title.length() / 2;
-		for(int i=0; i < (60 - titleLength); i++)
-		{
-			System.out.print("#");
-		}
-		System.out.print("   ");
-		System.out.printf("%S", title);
-		System.out.print("   ");
-		for(int i=0; i < (60 - titleLength); i++)
-		{
-			System.out.print("#");
-		}
-		System.out.println();
-		System.out.println();
+		appendCentred(HASHES, title, 60);
+		frame.append('\n');
+		frame.append('\n');
 	}
 
 	// Method to print a horizontal divider.
 	public static void printDivider(String message)
 	{
-		int messageLength = message.length() / 2;
-		for(int i=0; i < (40 - messageLength); i++)
-		{
-			System.out.print("=");
-		}
-		System.out.print("   ");
-		System.out.printf("%S", message);
-		System.out.print("   ");
-		for(int i=0; i < (40 - messageLength); i++)
-		{
-			System.out.print("=");
-		}
-		System.out.println();
+		appendCentred(EQUALS, message, 40);
+		frame.append('\n');
 	}
 
 	// Method to print a menu item - using a menu option number and description.
 	public static void printMenuItem(int option, String description)
 	{
-		System.out.printf("  %d.  %S\n\n", option, description);
+		frame.append("  ").append(option).append(".  ").append(description.toUpperCase()).append("\n\n");
 	}
 
-	// Method to print a prompt, with a associated prompt number.
+	// Method to print a prompt, with a associated prompt number. The frame is then
+	// written out, as the program is about to wait for the user.
 	public static void printPrompt(int number, String prompt)
 	{
-		System.out.printf(" %d.  %S:  ", number, prompt);
+		frame.append(' ').append(number).append(".  ").append(prompt.toUpperCase()).append(":  ");
+		flush();
 	}
 
 	// Method to print a warning on screen.
 	public static void printWarning(String message)
 	{
-		System.out.println();
-		System.out.println();
-		System.out.print("*****");
-		System.out.printf(" %S ", message);
-		System.out.print("*****");
-		System.out.println();
-		System.out.println();
+		frame.append("\n\n*****");
+		frame.append(' ').append(message.toUpperCase()).append(' ');
+		frame.append("*****\n\n");
 	}
 
 	// Method to print a notice on screen.
@@ -115,19 +130,139 @@ public class ScreenManager
 	// Method to pause the program, until the user presses enter.
 	public static void pause()
 	{
-		System.out.println();
-		System.out.printf("  %S  ", "Press [enter] to continue");
+		frame.append("\n  PRESS [ENTER] TO CONTINUE  ");
+		flush();
 		console.nextLine();
 	}
 
+	// Methods to read from the keyboard, once the frame has been written out. These
+	// throw java.util.InputMismatchException when the input is not a number, and
+	// java.util.NoSuchElementException when there is no more input.
+	public static int readInt()
+	{
+		flush();
+		return console.nextInt();
+	}
+
+	public static double readDouble()
+	{
+		flush();
+		return console.nextDouble();
+	}
+
+	public static String readToken()
+	{
+		flush();
+		return console.next();
+	}
+
+	public static String readLine()
+	{
+		flush();
+		return console.nextLine();
+	}
+
 	// Method to print a footer, with a horizontal divider.
 	public static void printFooter()
 	{
-		for(int i=0; i < 126; i++)
+		frame.append(HASHES);
+		frame.append("\n\n");
+	}
+
+	// Methods to print plain text to the screen, in place of System.out.
+	public static void print(String text)
+	{
+		frame.append(text);
+	}
+
+	public static void println()
+	{
+		frame.append('\n');
+	}
+
+	public static void println(String text)
+	{
+		frame.append(text).append('\n');
+	}
+
+	// Method to print formatted text to the screen, in place of System.out.printf.
+	public static void printf(String format, Object... args)
+	{
+		formatter.format(format, args);
+	}
+
+	// Method to fetch the frame being built, so that tables can append their rows
+	// directly. The frame is written out first if it has grown too large.
+	public static StringBuilder frame()
+	{
+		if(frame.length() >= FLUSH_THRESHOLD)
+		{
+			flush();
+		}
+		return frame;
+	}
+
+	// Method to append text, right aligned in a column of the given width, to a
+	// table row. Text longer than the column is not cut short.
+	public static void appendPadded(StringBuilder row, String text, int width)
+	{
+		int padding = width - text.length();
+		if(padding > 0)
 		{
-			System.out.print("#");
+			row.append(SPACES, 0, Math.min(padding, SCREEN_WIDTH));
 		}
-		System.out.println();
-		System.out.println();
+		row.append(text);
+	}
+
+	// Method to write the frame to the console, with a single write.
+	public static synchronized void flush()
+	{
+		if(frame.length() == 0)
+		{
+			return;
+		}
+
+		// Encode the frame, growing the byte buffer if the frame does not fit.
+		CharBuffer chars = CharBuffer.wrap(frame);
+		int needed = (int) Math.ceil(frame.length() * (double) encoder.maxBytesPerChar());
+		if(bytes.capacity() < needed)
+		{
+			bytes = ByteBuffer.allocate(needed);
+		}
+		bytes.clear();
+		encoder.reset();
+		encoder.encode(chars, bytes, true);
+		encoder.flush(bytes);
+		frame.setLength(0);
+
+		PrintStream out = System.out;
+		out.write(bytes.array(), 0, bytes.position());
+		out.flush();
+	}
+
+	// Method to append a title, centred between two runs of padding, to the frame.
+	// Each run is (width - half the title length) long, with three spaces either
+	// side of the title.
+	private static void appendCentred(String padding, String title, int width)
+	{
+		int length = Math.max(0, width - title.length() / 2);
+		frame.append(padding, 0, length);
+		frame.append("   ").append(title.toUpperCase()).append("   ");
+		frame.append(padding, 0, length);
+	}
+
+	// Method to build a centred title line, as appendCentred() would.
+	private static String centre(String padding, String title, int width)
+	{
+		int length = Math.max(0, width - title.length() / 2);
+		return padding.substring(0, length) + "   " + title.toUpperCase() + "   " + padding.substring(0, length) + "\n";
+	}
+
+	// Method to build a string of the same character repeated.
+	private static String repeat(char c, int count)
+	{
+		char[] chars = new char[count];
+		Arrays.fill(chars, c);
+		return new String(chars);
 	}
 }
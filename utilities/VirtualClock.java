@@ -0,0 +1,52 @@
+//
+// Home Travel Booking System
+// Written by Jeremy Mercer
+//
+// File: utilities/VirtualClock.java
+// Description:
+// 	This class, VirtualClock, is a clock that only moves when it is told to.
+// 	Installed with Clock.set(), it lets a simulation book rooms, move
+// 	forward a number of days and check them out without waiting, with the
+// 	same charges every time it is run. It is safe to share between threads.
+//
+package utilities;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class VirtualClock extends Clock
+{
+
+	// Class wide variables.
+	private final AtomicLong time;
+
+	// Constructor, starts the clock at the given time in epoch milliseconds.
+	public VirtualClock(long startMillis)
+	{
+		time = new AtomicLong(startMillis);
+	}
+
+	// Method to read the time from this clock, in epoch milliseconds.
+	public long millis()
+	{
+		return time.get();
+	}
+
+	// Method to move the clock forward (or back, if negative) by a number of
+	// milliseconds, returning the new time.
+	public long advance(long millis)
+	{
+		return time.addAndGet(millis);
+	}
+
+	// Method to move the clock forward by a number of days, returning the new time.
+	public long advanceDays(int days)
+	{
+		return advance(days * EpochDays.MILLIS_PER_DAY);
+	}
+
+	// Mutator method for the time, in epoch milliseconds.
+	public void setMillis(long millis)
+	{
+		time.set(millis);
+	}
+}